@@ -0,0 +1,172 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.repository.ArchivoReservasRepository;
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantenimiento diario de la tabla reservas, particionada por mes (ver esquema.sql):
+ * crea por adelantado las particiones de los próximos meses y traslada a reservas_archivo los meses
+ * completos anteriores al horizonte (casacaribe.archivo.horizonteDias). Así las consultas de la
+ * aplicación, que solo leen reservas, recorren un número acotado de particiones aunque el historial crezca.
+ *
+ * Las reservas archivadas dejan de aparecer en listados, exportaciones y búsquedas por ID; el resumen
+ * de ocupación de sus días se conserva. Se ejecuta cada día a casacaribe.archivo.hora (hora local) y
+ * se desactiva con -Dcasacaribe.archivo.habilitado=false.
+ * Cuando archiva algo publica una recarga en el flujo de cambios del proceso: los clientes vuelven a
+ * cargar el listado y el sello de la colección (ETag) cambia.
+ */
+@Component
+public class ArchivadorReservas {
+
+    private static final Metricas.Temporizador T_MANTENER = Metricas.temporizador("archivo", "mantener");
+    // Las búsquedas por ID recorren todas las particiones adjuntas: se limita cuántas se crean por delante
+    public static final int MESES_ADELANTADOS_MAXIMO = 24;
+
+    private final ArchivoReservasRepository repositorio = new ArchivoReservasRepository();
+    private final boolean habilitado;
+    private final int horizonteDias;
+    private final int mesesAdelantados;
+    private final int hora;
+    private final long esperaBloqueoMs;
+    private final ScheduledExecutorService programador;
+    private boolean iniciado;
+
+    /**
+     * @param horizonteDias Días pasados que se conservan en reservas; los meses completos anteriores se archivan.
+     * @param mesesAdelantados Meses, a partir del actual, que deben tener partición (1 a MESES_ADELANTADOS_MAXIMO).
+     * @param hora Hora local del mantenimiento diario (0-23).
+     * @param esperaBloqueoMs Espera máxima por el bloqueo exclusivo de reservas; si se agota, se reintenta al día siguiente.
+     */
+    @Autowired
+    public ArchivadorReservas(@Value("${casacaribe.archivo.habilitado:true}") boolean habilitado,
+                              @Value("${casacaribe.archivo.horizonteDias:90}") int horizonteDias,
+                              @Value("${casacaribe.archivo.mesesAdelantados:13}") int mesesAdelantados,
+                              @Value("${casacaribe.archivo.hora:4}") int hora,
+                              @Value("${casacaribe.archivo.esperaBloqueoMs:2000}") long esperaBloqueoMs) {
+        if (horizonteDias < 0 || mesesAdelantados < 1 || mesesAdelantados > MESES_ADELANTADOS_MAXIMO
+                || hora < 0 || hora > 23) {
+            throw new IllegalArgumentException("Configuración de archivo no válida: horizonteDias >= 0, "
+                    + "mesesAdelantados entre 1 y " + MESES_ADELANTADOS_MAXIMO + " y hora entre 0 y 23.");
+        }
+        this.habilitado = habilitado;
+        this.horizonteDias = horizonteDias;
+        this.mesesAdelantados = mesesAdelantados;
+        this.hora = hora;
+        this.esperaBloqueoMs = esperaBloqueoMs;
+        this.programador = !habilitado ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "casacaribe-archivo");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Construye el archivador a partir de propiedades del sistema (para uso fuera de Spring, p. ej. el servlet)
+     * y programa el mantenimiento diario.
+     */
+    public static ArchivadorReservas desdePropiedadesSistema() {
+        ArchivadorReservas archivador = new ArchivadorReservas(
+                Boolean.parseBoolean(System.getProperty("casacaribe.archivo.habilitado", "true")),
+                Integer.getInteger("casacaribe.archivo.horizonteDias", 90),
+                Integer.getInteger("casacaribe.archivo.mesesAdelantados", 13),
+                Integer.getInteger("casacaribe.archivo.hora", 4),
+                Long.getLong("casacaribe.archivo.esperaBloqueoMs", 2000L));
+        archivador.iniciar();
+        return archivador;
+    }
+
+    /**
+     * Programa el mantenimiento diario (una sola vez; sin efecto si está desactivado).
+     * Se hace aquí y no en el constructor para no publicar el objeto antes de construirlo por completo.
+     */
+    @PostConstruct
+    public synchronized void iniciar() {
+        if (programador == null || iniciado) {
+            return;
+        }
+        iniciado = true;
+        programador.scheduleAtFixedRate(this::mantenerSinPropagar, minutosHasta(hora), TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @return Primer día que se conserva en reservas si el mantenimiento se ejecuta hoy
+     *         (se archivan los meses que terminan antes).
+     */
+    public LocalDate getLimite() {
+        return LocalDate.now().minusDays(horizonteDias);
+    }
+
+    /**
+     * Ejecuta el mantenimiento ahora: crea las particiones que falten y archiva los meses anteriores al horizonte.
+     *
+     * @return Número de reservas archivadas, o -1 si otra instancia estaba haciendo el mantenimiento.
+     * @throws IllegalStateException Si la base de datos rechaza la operación (no se archiva nada).
+     */
+    public long mantener() {
+        long inicio = System.nanoTime();
+        try {
+            int creadas = repositorio.crearParticiones(LocalDate.now(), mesesAdelantados);
+            long archivadas = repositorio.archivarAnteriores(getLimite(), esperaBloqueoMs);
+            if (archivadas > 0) {
+                // Las filas salen del listado y de las búsquedas por ID sin pasar por las rutas de escritura
+                CacheReservas.compartida().limpiar();
+                FeedCambiosReservas.compartido().publicarRecarga();
+            }
+            if (creadas > 0 || archivadas > 0) {
+                System.out.println("Mantenimiento de reservas: " + creadas + " particiones creadas, "
+                        + archivadas + " reservas archivadas (anteriores a " + getLimite().withDayOfMonth(1) + ").");
+            }
+            return archivadas;
+        } catch (IllegalStateException e) {
+            T_MANTENER.error();
+            throw e;
+        } finally {
+            T_MANTENER.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Detiene el mantenimiento programado (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+
+    private void mantenerSinPropagar() {
+        try {
+            mantener();
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las ejecuciones siguientes
+            System.err.println("No se pudo completar el mantenimiento de reservas: " + e.getMessage());
+        }
+    }
+
+    private static long minutosHasta(int hora) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime siguiente = ahora.toLocalDate().atTime(LocalTime.of(hora, 0));
+        if (!siguiente.isAfter(ahora)) {
+            siguiente = siguiente.plusDays(1);
+        }
+        return Duration.between(ahora, siguiente).toMinutes();
+    }
+}
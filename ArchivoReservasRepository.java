@@ -0,0 +1,121 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.Metricas;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Mantenimiento de las particiones mensuales de reservas y del archivo de reservas pasadas
+ * (funciones crear_particiones_reservas y archivar_reservas de esquema.sql) con JDBC puro.
+ */
+public class ArchivoReservasRepository {
+
+    // Un solo mantenimiento a la vez entre todas las instancias (bloqueo consultivo de la transacción)
+    private static final String SQL_BLOQUEO = "SELECT pg_try_advisory_xact_lock(hashtext('casacaribe.archivo'))";
+    private static final String SQL_CREAR_PARTICIONES = "SELECT crear_particiones_reservas(?, ?)";
+    private static final String SQL_ARCHIVAR = "SELECT archivar_reservas(?)";
+    // DETACH necesita reservas en exclusiva: si una consulta larga la retiene, se desiste en lugar de
+    // dejar en cola, detrás del DETACH, todas las peticiones que llegan mientras tanto
+    private static final String SQL_ESPERA_BLOQUEO = "SET LOCAL lock_timeout = ";
+
+    private static final Metricas.Temporizador T_CREAR_PARTICIONES = Metricas.temporizador("repositorio", "crearParticiones");
+    private static final Metricas.Temporizador T_ARCHIVAR = Metricas.temporizador("repositorio", "archivarReservas");
+
+    /**
+     * Crea las particiones mensuales que falten.
+     *
+     * @param desde Día del primer mes.
+     * @param meses Número de meses a partir de ese.
+     * @return Número de particiones creadas, o -1 si otro mantenimiento estaba en curso.
+     * @throws IllegalStateException Si la creación falla.
+     */
+    public int crearParticiones(LocalDate desde, int meses) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
+            if (!bloquear(conn)) {
+                conn.rollback();
+                return -1;
+            }
+            ps = conn.prepareStatement(SQL_CREAR_PARTICIONES);
+            ps.setObject(1, desde);
+            ps.setInt(2, meses);
+            rs = ps.executeQuery();
+            rs.next();
+            int creadas = rs.getInt(1);
+            conn.commit();
+            return creadas;
+        } catch (SQLException e) {
+            T_CREAR_PARTICIONES.error();
+            System.err.println("ERROR en crearParticiones: " + e.getMessage());
+            try { if (conn != null) conn.rollback(); } catch (SQLException ex) {/* ignore */}
+            throw new IllegalStateException("No se pudieron crear las particiones de reservas.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CREAR_PARTICIONES.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Traslada a reservas_archivo las reservas anteriores a la fecha límite, en una transacción.
+     *
+     * @param limite Primer día que se conserva en reservas.
+     * @param esperaBloqueoMs Espera máxima por cada bloqueo de tabla antes de desistir.
+     * @return Número de reservas archivadas, o -1 si otro mantenimiento estaba en curso.
+     * @throws IllegalStateException Si el archivado falla o agota la espera (no se archiva nada).
+     */
+    public long archivarAnteriores(LocalDate limite, long esperaBloqueoMs) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
+            if (!bloquear(conn)) {
+                conn.rollback();
+                return -1;
+            }
+            try (Statement st = conn.createStatement()) {
+                st.execute(SQL_ESPERA_BLOQUEO + Math.max(1L, esperaBloqueoMs));
+            }
+            ps = conn.prepareStatement(SQL_ARCHIVAR);
+            ps.setObject(1, limite);
+            rs = ps.executeQuery();
+            rs.next();
+            long archivadas = rs.getLong(1);
+            conn.commit();
+            return archivadas;
+        } catch (SQLException e) {
+            T_ARCHIVAR.error();
+            System.err.println("ERROR en archivarReservas: " + e.getMessage());
+            try { if (conn != null) conn.rollback(); } catch (SQLException ex) {/* ignore */}
+            throw new IllegalStateException("No se pudieron archivar las reservas anteriores al " + limite + ".", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_ARCHIVAR.registrarDesde(inicio);
+        }
+    }
+
+    private static boolean bloquear(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(SQL_BLOQUEO)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
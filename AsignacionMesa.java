@@ -0,0 +1,55 @@
+/* Asignación de mesa de una reserva */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalTime;
+
+/**
+ * Mesa (o combinación de mesas, p. ej. "M6+M7") asignada a una reserva y el tramo del día que la ocupa.
+ * La hora de fin es el final del turno según el tamaño del grupo.
+ */
+public class AsignacionMesa {
+
+    private final int reservaId;
+    private final String mesa;
+    private final int capacidad;
+    private final int numPersonas;
+    private final LocalTime horaInicio;
+    private final LocalTime horaFin;
+
+    public AsignacionMesa(int reservaId, String mesa, int capacidad, int numPersonas, LocalTime horaInicio, LocalTime horaFin) {
+        this.reservaId = reservaId;
+        this.mesa = mesa;
+        this.capacidad = capacidad;
+        this.numPersonas = numPersonas;
+        this.horaInicio = horaInicio;
+        this.horaFin = horaFin;
+    }
+
+    public int getReservaId() {
+        return reservaId;
+    }
+
+    /**
+     * @return Código de la mesa o de la combinación, o null si la reserva no tiene mesa.
+     */
+    public String getMesa() {
+        return mesa;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public int getNumPersonas() {
+        return numPersonas;
+    }
+
+    public LocalTime getHoraInicio() {
+        return horaInicio;
+    }
+
+    public LocalTime getHoraFin() {
+        return horaFin;
+    }
+}
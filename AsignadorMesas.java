@@ -0,0 +1,780 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.AsignacionMesa;
+import com.casacaribe.reservas.modelo.PlanoMesasDia;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ProyeccionReserva;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Asignación automática de mesas: sienta cada reserva en una mesa concreta (o una combinación
+ * de mesas) del plano del salón durante su turno.
+ *
+ * La ocupación de cada mesa en un día es un mapa de bits de 96 franjas de 15 minutos (dos long),
+ * de modo que comprobar si una opción está libre en un tramo son dos operaciones AND por mesa.
+ * El criterio es el de mejor ajuste: la opción con menos asientos que admite al grupo y, a igualdad,
+ * la de menos mesas y la que queda más pegada a otras reservas (deja huecos libres más largos).
+ * Cuando una modificación o una baja libera un tramo, las reservas de ese tramo sentadas en mesas
+ * mayores de lo necesario se pasan a mejores opciones, y las que estaban sin mesa se sientan si ahora caben.
+ *
+ * Las asignaciones viven en memoria, como el índice de disponibilidad: se recalculan desde la tabla
+ * reservas al arrancar, así que reubicar una reserva no cuesta escrituras en la base de datos.
+ * Las escrituras se sincronizan por día con candados segmentados. El horizonte avanza solo, un día
+ * a la vez, como el de IndiceDisponibilidad (ver desplazarHorizonte()).
+ *
+ * Es opcional: se desactiva con casacaribe.plano.habilitado=false.
+ */
+@Component
+public class AsignadorMesas {
+
+    // Plano por defecto: 15 mesas y 60 asientos, como los límites por defecto de IndiceDisponibilidad
+    private static final String MESAS_DEFECTO = "M1:2,M2:2,M3:2,M4:2,M5:2,M6:4,M7:4,M8:4,M9:4,M10:4,M11:4,M12:6,M13:6,M14:6,M15:8";
+    private static final String COMBINACIONES_DEFECTO = "M1+M2,M3+M4,M6+M7,M8+M9,M10+M11,M12+M13,M13+M14";
+    private static final String TURNOS_DEFECTO = "2:90,4:120,10:150";
+
+    private static final int MINUTOS_FRANJA = 15;
+    private static final int FRANJAS_DIA = 24 * 60 / MINUTOS_FRANJA;
+    private static final int PALABRAS_DIA = (FRANJAS_DIA + 63) / 64;
+    private static final int SEGMENTOS_CANDADO = 64;
+    // Máximo de reubicaciones por cada tramo liberado: acota el tiempo de una baja o modificación
+    private static final int REUBICACIONES_MAXIMO = 32;
+    private static final long REVISION_HORIZONTE_MINUTOS = 10;
+    // Al cargar, cada día se reparte de los grupos mayores a los menores, que son los que tienen menos opciones
+    private static final Comparator<ReservaMesa> ORDEN_CARGA = Comparator.comparing(ReservaMesa::getFechaReserva)
+            .thenComparing(Comparator.comparingInt(ReservaMesa::getNumPersonas).reversed())
+            .thenComparing(ReservaMesa::getHoraReserva)
+            .thenComparingInt(ReservaMesa::getId);
+
+    private static final Metricas.Temporizador T_ASIGNAR = Metricas.temporizador("mesas", "asignar");
+    private static final Metricas.Temporizador T_REASIGNAR = Metricas.temporizador("mesas", "reasignar");
+    private static final Metricas.Temporizador T_REOPTIMIZAR = Metricas.temporizador("mesas", "reoptimizar");
+
+    /**
+     * Asignación de las reservas que no se siguen: plano deshabilitado, reservas canceladas
+     * o fechas fuera del horizonte. Liberarla o vincularla no hace nada.
+     */
+    public static final Asignacion SIN_SEGUIMIENTO = new Asignacion(null, null, 0, 0, 0);
+
+    private final ReservaRepository reservaRepository;
+    private final boolean habilitado;
+    private final PlanoSala plano;
+    private final int diasHorizonte;
+    private final Object[] candados = new Object[SEGMENTOS_CANDADO];
+    // Serializa la carga completa y el desplazamiento del horizonte entre sí
+    private final Object candadoHorizonte = new Object();
+    private ScheduledExecutorService revisionHorizonte;
+
+    // Se reemplaza completo al recalentar; las escrituras se hacen sobre la instancia vigente
+    private volatile Salon salon;
+
+    /**
+     * @throws IllegalArgumentException Si el plano del salón no es válido.
+     */
+    @Autowired
+    public AsignadorMesas(ReservaRepository reservaRepository,
+                          @Value("${casacaribe.plano.habilitado:true}") boolean habilitado,
+                          @Value("${casacaribe.plano.mesas:" + MESAS_DEFECTO + "}") String mesas,
+                          @Value("${casacaribe.plano.combinaciones:" + COMBINACIONES_DEFECTO + "}") String combinaciones,
+                          @Value("${casacaribe.plano.turnos:" + TURNOS_DEFECTO + "}") String turnos,
+                          @Value("${casacaribe.capacidad.diasHorizonte:400}") int diasHorizonte) {
+        this.reservaRepository = reservaRepository;
+        this.habilitado = habilitado;
+        this.plano = PlanoSala.desdeTexto(mesas, combinaciones, turnos);
+        this.diasHorizonte = diasHorizonte;
+        for (int i = 0; i < SEGMENTOS_CANDADO; i++) {
+            candados[i] = new Object();
+        }
+        this.salon = new Salon(LocalDate.now().minusDays(1).toEpochDay(), diasHorizonte, plano.getNumMesas());
+    }
+
+    /**
+     * Construye el asignador a partir de propiedades del sistema (para uso fuera de Spring).
+     */
+    public static AsignadorMesas desdePropiedadesSistema(ReservaRepository reservaRepository) {
+        return new AsignadorMesas(reservaRepository,
+                Boolean.parseBoolean(System.getProperty("casacaribe.plano.habilitado", "true")),
+                System.getProperty("casacaribe.plano.mesas", MESAS_DEFECTO),
+                System.getProperty("casacaribe.plano.combinaciones", COMBINACIONES_DEFECTO),
+                System.getProperty("casacaribe.plano.turnos", TURNOS_DEFECTO),
+                Integer.getInteger("casacaribe.capacidad.diasHorizonte", 400));
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Recalcula las asignaciones desde la tabla reservas (al iniciar la aplicación) y programa
+     * el desplazamiento diario del horizonte.
+     * Cada día se reparte de los grupos mayores a los menores, que son los que tienen menos opciones;
+     * las reservas que no caben en el plano quedan sin mesa.
+     * Reemplaza el plano completo, así que no debe llamarse con la aplicación atendiendo peticiones.
+     */
+    @PostConstruct
+    public void calentar() {
+        if (!habilitado) {
+            return;
+        }
+        synchronized (candadoHorizonte) {
+            LocalDate primerDia = LocalDate.now().minusDays(1);
+            Salon nuevo = new Salon(primerDia.toEpochDay(), diasHorizonte, plano.getNumMesas());
+            List<ReservaMesa> activas = new ArrayList<>();
+            try {
+                reservaRepository.recorrerDesde(primerDia, reserva -> {
+                    if (IndiceDisponibilidad.ocupaCapacidad(reserva.getEstado()) && nuevo.contiene(reserva.getFechaReserva())) {
+                        activas.add(reserva);
+                    }
+                }, ProyeccionReserva.RESUMEN);
+                int sinMesa = sentar(nuevo, activas);
+                salon = nuevo;
+                System.out.println("Plano de mesas cargado: " + (activas.size() - sinMesa) + " reservas con mesa y " + sinMesa + " sin mesa.");
+            } catch (IOException e) {
+                System.err.println("No se pudo cargar el plano de mesas: " + e.getMessage());
+            }
+            if (revisionHorizonte == null) {
+                revisionHorizonte = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "casacaribe-plano-horizonte");
+                    t.setDaemon(true);
+                    return t;
+                });
+                revisionHorizonte.scheduleWithFixedDelay(this::desplazarSinPropagar,
+                        REVISION_HORIZONTE_MINUTOS, REVISION_HORIZONTE_MINUTOS, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    /**
+     * Avanza el horizonte hasta que su primer día sea ayer, un día a la vez y sin detener las asignaciones:
+     * el día que sale se descarta y el que entra se carga de la base de datos con su candado tomado,
+     * de modo que las altas y modificaciones de ese día esperan a la carga. Una reserva de ese día
+     * guardada justo antes, cuando aún estaba fuera del horizonte, puede quedar sin seguimiento
+     * (lo mismo que con calentar()).
+     *
+     * @return Número de días desplazados.
+     * @throws IllegalStateException Si no se pudo leer un día nuevo (el horizonte queda donde estaba).
+     */
+    public int desplazarHorizonte() {
+        if (!habilitado) {
+            return 0;
+        }
+        synchronized (candadoHorizonte) {
+            Salon actual = salon;
+            long objetivo = LocalDate.now().minusDays(1).toEpochDay();
+            if (objetivo - actual.diaBase >= diasHorizonte) {
+                // Más días que el horizonte completo: no queda nada que conservar
+                calentar();
+                return (int) Math.min(Integer.MAX_VALUE, objetivo - actual.diaBase);
+            }
+            int desplazados = 0;
+            while (actual.diaBase < objetivo) {
+                LocalDate entrante = LocalDate.ofEpochDay(actual.diaBase + diasHorizonte);
+                synchronized (candado(entrante)) {
+                    Dia saliente = actual.abrir(entrante.toEpochDay());
+                    try {
+                        List<ReservaMesa> activas = new ArrayList<>();
+                        for (ReservaMesa reserva : reservaRepository.consultarPorFecha(entrante, ProyeccionReserva.RESUMEN)) {
+                            if (IndiceDisponibilidad.ocupaCapacidad(reserva.getEstado())) {
+                                activas.add(reserva);
+                            }
+                        }
+                        sentar(actual, activas);
+                    } catch (RuntimeException e) {
+                        actual.cerrar(saliente);
+                        throw e;
+                    }
+                }
+                desplazados++;
+            }
+            return desplazados;
+        }
+    }
+
+    /**
+     * Detiene la revisión periódica del horizonte (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        synchronized (candadoHorizonte) {
+            if (revisionHorizonte != null) {
+                revisionHorizonte.shutdownNow();
+            }
+        }
+    }
+
+    private void desplazarSinPropagar() {
+        try {
+            int desplazados = desplazarHorizonte();
+            if (desplazados > 0) {
+                System.out.println("Horizonte del plano de mesas desplazado " + desplazados + " días.");
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las revisiones siguientes; se reintenta en la próxima
+            System.err.println("No se pudo desplazar el horizonte del plano de mesas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sienta las reservas cargadas de la base de datos en el orden de carga.
+     * @return Número de reservas que quedaron sin mesa.
+     */
+    private int sentar(Salon destino, List<ReservaMesa> activas) {
+        activas.sort(ORDEN_CARGA);
+        int sinMesa = 0;
+        for (ReservaMesa reserva : activas) {
+            Dia dia = destino.dia(reserva.getFechaReserva());
+            Asignacion asignacion = colocar(dia, reserva);
+            if (asignacion == null) {
+                asignacion = dejarSinMesa(dia, reserva);
+                sinMesa++;
+            }
+            asignacion.reservaId = reserva.getId();
+        }
+        return sinMesa;
+    }
+
+    /**
+     * Sienta una reserva nueva en la mejor opción libre durante su turno.
+     * La asignación queda provisional hasta vincularla con el ID de la reserva guardada.
+     *
+     * @return La asignación; SIN_SEGUIMIENTO si la reserva no ocupa mesa o está fuera del horizonte;
+     *         null si ninguna mesa o combinación libre admite al grupo.
+     */
+    public Asignacion asignar(ReservaMesa reserva) {
+        if (!seSigue(reserva)) {
+            return SIN_SEGUIMIENTO;
+        }
+        long inicio = System.nanoTime();
+        try {
+            Salon actual = salon;
+            if (!actual.contiene(reserva.getFechaReserva())) {
+                return SIN_SEGUIMIENTO;
+            }
+            synchronized (candado(reserva.getFechaReserva())) {
+                return colocar(actual.dia(reserva.getFechaReserva()), reserva);
+            }
+        } finally {
+            T_ASIGNAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Asocia una asignación provisional con el ID de la reserva ya guardada.
+     */
+    public void vincular(Asignacion asignacion, int reservaId) {
+        if (asignacion.dia == null) {
+            return;
+        }
+        synchronized (candado(asignacion.dia.epoch)) {
+            asignacion.reservaId = reservaId;
+        }
+    }
+
+    /**
+     * Devuelve la mesa de una asignación provisional cuya reserva no llegó a guardarse.
+     */
+    public void liberar(Asignacion asignacion) {
+        if (asignacion.dia == null) {
+            return;
+        }
+        synchronized (candado(asignacion.dia.epoch)) {
+            quitar(asignacion);
+        }
+    }
+
+    /**
+     * Libera la mesa de una reserva eliminada y reubica las reservas del tramo liberado.
+     */
+    public void liberar(ReservaMesa reserva) {
+        if (!habilitado) {
+            return;
+        }
+        Salon actual = salon;
+        if (!actual.contiene(reserva.getFechaReserva())) {
+            return;
+        }
+        synchronized (candado(reserva.getFechaReserva())) {
+            Asignacion asignacion = actual.dia(reserva.getFechaReserva()).buscar(reserva.getId());
+            if (asignacion != null) {
+                quitar(asignacion);
+            }
+        }
+    }
+
+    /**
+     * Cambia la asignación de una reserva modificada (fecha, hora, tamaño o estado) de forma atómica:
+     * si la nueva versión no cabe, la reserva conserva su mesa anterior.
+     * Una reserva que ya estaba sin mesa puede seguir sin mesa tras la modificación.
+     *
+     * @return false si la nueva versión no cabe en ninguna mesa libre; la asignación anterior se mantiene.
+     */
+    public boolean reasignar(ReservaMesa anterior, ReservaMesa nueva) {
+        if (!habilitado) {
+            return true;
+        }
+        long inicio = System.nanoTime();
+        try {
+            Salon actual = salon;
+            int segmentoAnterior = segmento(anterior.getFechaReserva().toEpochDay());
+            int segmentoNuevo = segmento(nueva.getFechaReserva().toEpochDay());
+            // Orden fijo entre los dos candados para que dos modificaciones cruzadas no se bloqueen
+            synchronized (candados[Math.min(segmentoAnterior, segmentoNuevo)]) {
+                synchronized (candados[Math.max(segmentoAnterior, segmentoNuevo)]) {
+                    return reasignarBloqueado(actual, anterior, nueva, false);
+                }
+            }
+        } finally {
+            T_REASIGNAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Deshace una reasignación cuya modificación no llegó a confirmarse en la base de datos: la reserva
+     * vuelve a sentarse con sus datos anteriores. Si su mesa ya se ocupó, queda sin mesa (como al cargar
+     * el plano) en lugar de conservar la asignación de unos datos que no se guardaron.
+     */
+    public void revertir(ReservaMesa nueva, ReservaMesa anterior) {
+        if (!habilitado) {
+            return;
+        }
+        Salon actual = salon;
+        int segmentoNuevo = segmento(nueva.getFechaReserva().toEpochDay());
+        int segmentoAnterior = segmento(anterior.getFechaReserva().toEpochDay());
+        synchronized (candados[Math.min(segmentoAnterior, segmentoNuevo)]) {
+            synchronized (candados[Math.max(segmentoAnterior, segmentoNuevo)]) {
+                reasignarBloqueado(actual, nueva, anterior, true);
+            }
+        }
+    }
+
+    private boolean reasignarBloqueado(Salon actual, ReservaMesa anterior, ReservaMesa nueva, boolean sinMesaSiNoCabe) {
+        Asignacion previa = actual.contiene(anterior.getFechaReserva())
+                ? actual.dia(anterior.getFechaReserva()).buscar(anterior.getId()) : null;
+        if (previa != null) {
+            desocupar(previa);
+        }
+        if (seSigue(nueva) && actual.contiene(nueva.getFechaReserva())) {
+            Dia dia = actual.dia(nueva.getFechaReserva());
+            Asignacion siguiente = colocar(dia, nueva);
+            if (siguiente == null) {
+                if (!sinMesaSiNoCabe && (previa == null || previa.opcion != null)) {
+                    if (previa != null) {
+                        ocupar(previa);
+                    }
+                    return false;
+                }
+                // Ya estaba sin mesa (o se revierte): queda sin mesa con los datos nuevos
+                siguiente = dejarSinMesa(dia, nueva);
+            }
+            siguiente.reservaId = nueva.getId();
+        }
+        if (previa != null) {
+            previa.dia.sinMesa.remove(previa);
+            if (previa.dia.asignaciones.remove(previa)) {
+                reoptimizar(previa.dia, previa.inicio, previa.fin);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consulta, sin asignar, si alguna mesa o combinación libre admite al grupo durante su turno.
+     */
+    public boolean hayMesa(LocalDate fecha, LocalTime hora, int numPersonas) {
+        Salon actual = salon;
+        if (!habilitado || !actual.contiene(fecha)) {
+            return true;
+        }
+        synchronized (candado(fecha)) {
+            int inicio = franja(hora);
+            return mejorOpcion(actual.dia(fecha), inicio, fin(inicio, numPersonas), numPersonas, null) != null;
+        }
+    }
+
+    /**
+     * @return Las mesas asignadas a las reservas del día y las reservas que quedaron sin mesa.
+     */
+    public PlanoMesasDia plano(LocalDate fecha) {
+        List<Asignacion> asignadas = new ArrayList<>();
+        List<Asignacion> sinMesa = new ArrayList<>();
+        Salon actual = salon;
+        if (habilitado && actual.contiene(fecha)) {
+            synchronized (candado(fecha)) {
+                Dia dia = actual.dia(fecha);
+                for (Asignacion asignacion : dia.asignaciones) {
+                    asignadas.add(asignacion.copia());
+                }
+                for (Asignacion asignacion : dia.sinMesa) {
+                    sinMesa.add(asignacion.copia());
+                }
+            }
+        }
+        // Por hora y, dentro de cada hora, en el orden de las mesas en el plano
+        Comparator<Asignacion> orden = Comparator.comparingInt((Asignacion a) -> a.inicio)
+                .thenComparing(a -> a.hora)
+                .thenComparingInt(a -> a.opcion == null ? Integer.MAX_VALUE : a.opcion.mesas[0])
+                .thenComparingInt(a -> a.reservaId);
+        asignadas.sort(orden);
+        sinMesa.sort(orden);
+        return new PlanoMesasDia(fecha, aModelo(asignadas), aModelo(sinMesa));
+    }
+
+    private static List<AsignacionMesa> aModelo(List<Asignacion> asignaciones) {
+        List<AsignacionMesa> modelo = new ArrayList<>(asignaciones.size());
+        for (Asignacion asignacion : asignaciones) {
+            modelo.add(asignacion.aModelo());
+        }
+        return modelo;
+    }
+
+    // --- Núcleo de la asignación (siempre con el candado del día tomado) ---
+
+    private Asignacion colocar(Dia dia, ReservaMesa reserva) {
+        int inicio = franja(reserva.getHoraReserva());
+        int fin = fin(inicio, reserva.getNumPersonas());
+        PlanoSala.Opcion opcion = mejorOpcion(dia, inicio, fin, reserva.getNumPersonas(), null);
+        if (opcion == null) {
+            return null;
+        }
+        Asignacion asignacion = new Asignacion(dia, reserva.getHoraReserva(), inicio, fin, reserva.getNumPersonas());
+        asignacion.opcion = opcion;
+        ocupar(asignacion);
+        dia.asignaciones.add(asignacion);
+        return asignacion;
+    }
+
+    private Asignacion dejarSinMesa(Dia dia, ReservaMesa reserva) {
+        int inicio = franja(reserva.getHoraReserva());
+        Asignacion asignacion = new Asignacion(dia, reserva.getHoraReserva(), inicio, fin(inicio, reserva.getNumPersonas()), reserva.getNumPersonas());
+        dia.sinMesa.add(asignacion);
+        return asignacion;
+    }
+
+    private void quitar(Asignacion asignacion) {
+        Dia dia = asignacion.dia;
+        dia.sinMesa.remove(asignacion);
+        if (dia.asignaciones.remove(asignacion)) {
+            desocupar(asignacion);
+            reoptimizar(dia, asignacion.inicio, asignacion.fin);
+        }
+    }
+
+    /**
+     * Mejor ajuste: recorre las opciones de menor a mayor capacidad y se queda con el primer nivel
+     * (capacidad y número de mesas) que tenga alguna opción libre; dentro del nivel, la más pegada a otras reservas.
+     *
+     * @param actual Opción que ocupa ahora la reserva, o null; solo se devuelve otra si es estrictamente mejor.
+     */
+    private PlanoSala.Opcion mejorOpcion(Dia dia, int inicio, int fin, int numPersonas, PlanoSala.Opcion actual) {
+        long[] mascara = mascara(inicio, fin);
+        PlanoSala.Opcion mejor = null;
+        int mejorContacto = -1;
+        for (PlanoSala.Opcion opcion : plano.getOpciones()) {
+            if (opcion.capacidad < numPersonas) {
+                continue;
+            }
+            if (mejor != null && mejor.mejorQue(opcion)) {
+                break;
+            }
+            if (actual != null && !opcion.mejorQue(actual)) {
+                break;
+            }
+            if (libre(dia, opcion, mascara)) {
+                int contacto = contacto(dia, opcion, inicio, fin);
+                if (contacto > mejorContacto) {
+                    mejor = opcion;
+                    mejorContacto = contacto;
+                }
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Tras liberar un tramo: sienta las reservas sin mesa que coinciden con él y pasa a mejores opciones
+     * las que ocupan más asientos o mesas de los necesarios, empezando por las que más desperdician.
+     * No mueve reservas cuyo turno ya empezó.
+     */
+    private void reoptimizar(Dia dia, int inicio, int fin) {
+        long hoy = LocalDate.now().toEpochDay();
+        if (dia.epoch < hoy) {
+            return;
+        }
+        long comienzo = System.nanoTime();
+        int reubicadas = 0;
+        int franjaActual = (dia.epoch == hoy) ? franja(LocalTime.now()) : -1;
+
+        for (Iterator<Asignacion> it = dia.sinMesa.iterator(); it.hasNext() && reubicadas < REUBICACIONES_MAXIMO; ) {
+            Asignacion asignacion = it.next();
+            if (!asignacion.seSolapa(inicio, fin)) {
+                continue;
+            }
+            PlanoSala.Opcion opcion = mejorOpcion(dia, asignacion.inicio, asignacion.fin, asignacion.numPersonas, null);
+            if (opcion != null) {
+                asignacion.opcion = opcion;
+                ocupar(asignacion);
+                it.remove();
+                dia.asignaciones.add(asignacion);
+                reubicadas++;
+            }
+        }
+
+        List<Asignacion> candidatas = new ArrayList<>();
+        for (Asignacion asignacion : dia.asignaciones) {
+            if (asignacion.seSolapa(inicio, fin) && asignacion.inicio > franjaActual
+                    && (asignacion.opcion.capacidad > asignacion.numPersonas || asignacion.opcion.mesas.length > 1)) {
+                candidatas.add(asignacion);
+            }
+        }
+        candidatas.sort(Comparator.comparingInt((Asignacion a) -> a.numPersonas - a.opcion.capacidad)
+                .thenComparingInt(a -> -a.opcion.mesas.length));
+        for (Asignacion asignacion : candidatas) {
+            if (reubicadas >= REUBICACIONES_MAXIMO) {
+                break;
+            }
+            desocupar(asignacion);
+            PlanoSala.Opcion opcion = mejorOpcion(dia, asignacion.inicio, asignacion.fin, asignacion.numPersonas, asignacion.opcion);
+            if (opcion != null) {
+                asignacion.opcion = opcion;
+                reubicadas++;
+            }
+            ocupar(asignacion);
+        }
+        T_REOPTIMIZAR.registrarDesde(comienzo);
+    }
+
+    private boolean libre(Dia dia, PlanoSala.Opcion opcion, long[] mascara) {
+        for (int mesa : opcion.mesas) {
+            int base = mesa * PALABRAS_DIA;
+            for (int p = 0; p < PALABRAS_DIA; p++) {
+                if ((dia.ocupadas[base + p] & mascara[p]) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Extremos del tramo que tocan otra reserva o el borde del día, sumados sobre las mesas de la opción
+    private int contacto(Dia dia, PlanoSala.Opcion opcion, int inicio, int fin) {
+        int contacto = 0;
+        for (int mesa : opcion.mesas) {
+            if (inicio == 0 || dia.ocupada(mesa, inicio - 1)) {
+                contacto++;
+            }
+            if (fin >= FRANJAS_DIA || dia.ocupada(mesa, fin)) {
+                contacto++;
+            }
+        }
+        return contacto;
+    }
+
+    private void ocupar(Asignacion asignacion) {
+        marcar(asignacion, true);
+    }
+
+    private void desocupar(Asignacion asignacion) {
+        marcar(asignacion, false);
+    }
+
+    private void marcar(Asignacion asignacion, boolean ocupada) {
+        if (asignacion.opcion == null) {
+            return;
+        }
+        long[] mascara = mascara(asignacion.inicio, asignacion.fin);
+        long[] ocupadas = asignacion.dia.ocupadas;
+        for (int mesa : asignacion.opcion.mesas) {
+            int base = mesa * PALABRAS_DIA;
+            for (int p = 0; p < PALABRAS_DIA; p++) {
+                ocupadas[base + p] = ocupada ? ocupadas[base + p] | mascara[p] : ocupadas[base + p] & ~mascara[p];
+            }
+        }
+    }
+
+    private static long[] mascara(int inicio, int fin) {
+        long[] mascara = new long[PALABRAS_DIA];
+        for (int p = 0; p < PALABRAS_DIA; p++) {
+            int desde = Math.max(inicio, p * 64) - p * 64;
+            int hasta = Math.min(fin, p * 64 + 64) - p * 64;
+            if (hasta > desde) {
+                long bajo = -1L << desde;
+                mascara[p] = (hasta == 64) ? bajo : bajo & ((1L << hasta) - 1);
+            }
+        }
+        return mascara;
+    }
+
+    private static int franja(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_FRANJA;
+    }
+
+    private int fin(int inicio, int numPersonas) {
+        int franjasTurno = Math.max(1, (plano.minutosTurno(numPersonas) + MINUTOS_FRANJA - 1) / MINUTOS_FRANJA);
+        // El turno no se extiende más allá de la medianoche
+        return Math.min(inicio + franjasTurno, FRANJAS_DIA);
+    }
+
+    private boolean seSigue(ReservaMesa reserva) {
+        return habilitado && IndiceDisponibilidad.ocupaCapacidad(reserva.getEstado());
+    }
+
+    private Object candado(LocalDate fecha) {
+        return candado(fecha.toEpochDay());
+    }
+
+    private Object candado(long epoch) {
+        return candados[segmento(epoch)];
+    }
+
+    private static int segmento(long epoch) {
+        return (int) (epoch & (SEGMENTOS_CANDADO - 1));
+    }
+
+    /**
+     * Mesa de una reserva durante su turno. Se modifica solo con el candado de su día tomado.
+     */
+    public static final class Asignacion {
+        private final Dia dia;
+        private final LocalTime hora;
+        private final int inicio;
+        private final int fin;
+        private final int numPersonas;
+        private PlanoSala.Opcion opcion; // null = sin mesa
+        private int reservaId;           // 0 mientras es provisional
+
+        private Asignacion(Dia dia, LocalTime hora, int inicio, int fin, int numPersonas) {
+            this.dia = dia;
+            this.hora = hora;
+            this.inicio = inicio;
+            this.fin = fin;
+            this.numPersonas = numPersonas;
+        }
+
+        // Copia para leer fuera del candado (la reubicación cambia la opción)
+        private Asignacion copia() {
+            Asignacion copia = new Asignacion(dia, hora, inicio, fin, numPersonas);
+            copia.opcion = opcion;
+            copia.reservaId = reservaId;
+            return copia;
+        }
+
+        private boolean seSolapa(int desde, int hasta) {
+            return inicio < hasta && desde < fin;
+        }
+
+        private AsignacionMesa aModelo() {
+            LocalTime horaFin = (fin >= FRANJAS_DIA) ? LocalTime.MIDNIGHT
+                    : LocalTime.of(fin * MINUTOS_FRANJA / 60, fin * MINUTOS_FRANJA % 60);
+            return new AsignacionMesa(reservaId, opcion == null ? null : opcion.codigo,
+                    opcion == null ? 0 : opcion.capacidad, numPersonas, hora, horaFin);
+        }
+    }
+
+    /**
+     * Ocupación de las mesas en un día: PALABRAS_DIA long por mesa, un bit por franja.
+     */
+    private static final class Dia {
+        private final long epoch;
+        private final long[] ocupadas;
+        private final List<Asignacion> asignaciones = new ArrayList<>();
+        private final List<Asignacion> sinMesa = new ArrayList<>();
+
+        private Dia(long epoch, int numMesas) {
+            this.epoch = epoch;
+            this.ocupadas = new long[numMesas * PALABRAS_DIA];
+        }
+
+        private boolean ocupada(int mesa, int franja) {
+            return (ocupadas[mesa * PALABRAS_DIA + franja / 64] & (1L << (franja % 64))) != 0;
+        }
+
+        private Asignacion buscar(int reservaId) {
+            for (Asignacion asignacion : asignaciones) {
+                if (asignacion.reservaId == reservaId) {
+                    return asignacion;
+                }
+            }
+            for (Asignacion asignacion : sinMesa) {
+                if (asignacion.reservaId == reservaId) {
+                    return asignacion;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Días del horizonte a partir de diaBase, en un anillo: al desplazar el horizonte, el día que entra
+     * toma el lugar del que sale. Cada día se crea al asignarle la primera reserva.
+     */
+    private static final class Salon {
+        private final int numMesas;
+        private final AtomicReferenceArray<Dia> dias;
+        // Solo lo cambia desplazarHorizonte(); se escribe después del día que publica
+        private volatile long diaBase;
+
+        private Salon(long diaBase, int dias, int numMesas) {
+            this.numMesas = numMesas;
+            this.dias = new AtomicReferenceArray<>(dias);
+            this.diaBase = diaBase;
+        }
+
+        private int posicion(long epoch) {
+            return (int) Math.floorMod(epoch, (long) dias.length());
+        }
+
+        private boolean contiene(LocalDate fecha) {
+            long desplazamiento = fecha.toEpochDay() - diaBase;
+            return desplazamiento >= 0 && desplazamiento < dias.length();
+        }
+
+        // Con el candado del día tomado
+        private Dia dia(LocalDate fecha) {
+            long epoch = fecha.toEpochDay();
+            int i = posicion(epoch);
+            Dia dia = dias.get(i);
+            if (dia == null && contiene(fecha)) {
+                // compareAndSet: un día que entra nunca se pisa con uno que acaba de salir
+                dias.compareAndSet(i, null, new Dia(epoch, numMesas));
+                dia = dias.get(i);
+            }
+            if (dia == null || dia.epoch != epoch) {
+                // El día salió del horizonte mientras se esperaba el candado: lo que se escriba se descarta
+                return new Dia(epoch, numMesas);
+            }
+            return dia;
+        }
+
+        /**
+         * Con el candado del día que entra tomado: lo publica vacío en el lugar del día más antiguo.
+         * @return El día que sale, para deshacer con cerrar().
+         */
+        private Dia abrir(long epoch) {
+            Dia saliente = dias.getAndSet(posicion(epoch), new Dia(epoch, numMesas));
+            diaBase = diaBase + 1;
+            return saliente;
+        }
+
+        private void cerrar(Dia saliente) {
+            diaBase = diaBase - 1;
+            dias.set(posicion(diaBase + dias.length()), saliente);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: CacheAcotada.java
+    * Descripción: Caché en memoria de lectura directa (read-through) con límite de tamaño y expiración.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché acotada por tamaño (desalojo LRU) y por tiempo de vida (TTL).
+ * Las lecturas que no encuentran la clave se resuelven con un cargador (p. ej. el repositorio)
+ * y el resultado se guarda para las siguientes consultas.
+ *
+ * Para evitar lecturas obsoletas, un valor cargado solo se guarda si no hubo ninguna invalidación
+ * mientras se consultaba la base de datos.
+ *
+ * @param <K> Tipo de la clave.
+ * @param <V> Tipo del valor.
+ */
+public class CacheAcotada<K, V> {
+
+    private final int tamanoMaximo;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    // Se incrementa con cada invalidación; permite descartar cargas concurrentes con una escritura
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiraciones = new LongAdder();
+
+    /**
+     * @param tamanoMaximo Número máximo de entradas antes de desalojar la menos usada.
+     * @param ttlMillis Tiempo de vida de cada entrada en milisegundos.
+     */
+    public CacheAcotada(int tamanoMaximo, long ttlMillis) {
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // Orden de acceso: el primer elemento es el menos usado recientemente
+        this.entradas = new LinkedHashMap<K, Entrada<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> masAntigua) {
+                if (size() > CacheAcotada.this.tamanoMaximo) {
+                    desalojos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Obtiene un valor de la caché o, si no está o expiró, lo carga y lo guarda.
+     *
+     * @param clave Clave buscada.
+     * @param cargador Función que consulta la fuente de datos cuando no hay acierto.
+     * @return El valor, o vacío si tampoco existe en la fuente de datos.
+     */
+    public Optional<V> obtener(K clave, Function<K, Optional<V>> cargador) {
+        long ahora = System.nanoTime();
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (ahora - entrada.creada < ttlNanos) {
+                    aciertos.increment();
+                    return Optional.of(entrada.valor);
+                }
+                entradas.remove(clave);
+                expiraciones.increment();
+            }
+        }
+
+        fallos.increment();
+        long generacionInicial = generacion.get();
+        Optional<V> cargado = cargador.apply(clave);
+        if (cargado.isPresent()) {
+            synchronized (entradas) {
+                // Si hubo una escritura durante la carga, el valor podría estar obsoleto: no se guarda
+                if (generacion.get() == generacionInicial) {
+                    entradas.put(clave, new Entrada<>(cargado.get(), System.nanoTime()));
+                }
+            }
+        }
+        return cargado;
+    }
+
+    /**
+     * Reemplaza el valor de una clave tras una escritura confirmada.
+     * Gana la última llamada aunque su valor sea más antiguo: si puede haber escrituras concurrentes
+     * sobre la misma clave, use invalidar().
+     */
+    public void actualizar(K clave, V valor) {
+        synchronized (entradas) {
+            generacion.incrementAndGet();
+            entradas.put(clave, new Entrada<>(valor, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Elimina una clave de la caché (tras actualizarla o eliminarla en la base de datos).
+     */
+    public void invalidar(K clave) {
+        synchronized (entradas) {
+            generacion.incrementAndGet();
+            entradas.remove(clave);
+        }
+    }
+
+    /**
+     * Vacía la caché por completo.
+     */
+    public void limpiar() {
+        synchronized (entradas) {
+            generacion.incrementAndGet();
+            entradas.clear();
+        }
+    }
+
+    /**
+     * Elimina las entradas expiradas (útil para liberar memoria en periodos sin lecturas).
+     */
+    public void purgarExpiradas() {
+        long ahora = System.nanoTime();
+        synchronized (entradas) {
+            Iterator<Entrada<V>> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                if (ahora - it.next().creada >= ttlNanos) {
+                    it.remove();
+                    expiraciones.increment();
+                }
+            }
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    public long getExpiraciones() {
+        return expiraciones.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheAcotada{tamano=" + getTamano() + "/" + tamanoMaximo
+                + ", aciertos=" + getAciertos()
+                + ", fallos=" + getFallos()
+                + ", desalojos=" + getDesalojos()
+                + ", expiraciones=" + getExpiraciones() + '}';
+    }
+
+    private static final class Entrada<V> {
+        private final V valor;
+        private final long creada;
+
+        private Entrada(V valor, long creada) {
+            this.valor = valor;
+            this.creada = creada;
+        }
+    }
+}
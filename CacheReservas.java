@@ -0,0 +1,26 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.util.CacheAcotada;
+
+/**
+ * Caché de reservas por ID compartida por ReservaService y ReservaServlet dentro del mismo proceso:
+ * una escritura hecha por cualquiera de los dos la invalida (o actualiza) para ambos.
+ * Quien lee debe entregar copias: los valores guardados nunca salen de la caché.
+ * Entre instancias distintas sigue valiendo el tiempo de vida (casacaribe.cache.reservas.ttlMs).
+ */
+public final class CacheReservas {
+
+    // Tamaño máximo y tiempo de vida configurables
+    private static final int TAMANO_MAXIMO = Integer.getInteger("casacaribe.cache.reservas.tamano", 1_000);
+    private static final long TTL_MS = Long.getLong("casacaribe.cache.reservas.ttlMs", 30_000L);
+
+    private static final CacheAcotada<Long, ReservaMesa> COMPARTIDA = new CacheAcotada<>(TAMANO_MAXIMO, TTL_MS);
+
+    private CacheReservas() {
+    }
+
+    public static CacheAcotada<Long, ReservaMesa> compartida() {
+        return COMPARTIDA;
+    }
+}
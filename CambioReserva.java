@@ -0,0 +1,80 @@
+/* Cambio de una reserva publicado en el flujo de cambios */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Evento del flujo de cambios de reservas (GET /api/reservas/cambios).
+ * Los IDs de evento crecen de forma estricta, también entre reinicios del servidor,
+ * y son los que el cliente devuelve en Last-Event-ID para reanudar.
+ */
+public class CambioReserva {
+
+    /**
+     * Tipo de cambio.
+     * DIA_MODIFICADO se usa cuando quien escribió no conoce el ID de la reserva (p. ej. el alta por el DAO
+     * del servlet): el cliente debe volver a pedir solo ese día.
+     * RECARGA indica un cambio en bloque (p. ej. una importación masiva): el cliente debe recargar el listado.
+     * OFERTA_ESPERA avisa de que se retuvo una mesa para una entrada de la lista de espera, que debe aceptarla
+     * antes de su vencimiento; no cambia ninguna reserva.
+     */
+    public enum Tipo { CREADA, ACTUALIZADA, ELIMINADA, DIA_MODIFICADO, RECARGA, OFERTA_ESPERA }
+
+    private final long id;
+    private final Tipo tipo;
+    private final int reservaId;
+    private final LocalDate fechaReserva;
+    private final ReservaMesa reserva;
+    private final EntradaEspera entradaEspera;
+
+    public CambioReserva(long id, Tipo tipo, int reservaId, LocalDate fechaReserva, ReservaMesa reserva) {
+        this(id, tipo, reservaId, fechaReserva, reserva, null);
+    }
+
+    public CambioReserva(long id, Tipo tipo, int reservaId, LocalDate fechaReserva, ReservaMesa reserva,
+                         EntradaEspera entradaEspera) {
+        this.id = id;
+        this.tipo = tipo;
+        this.reservaId = reservaId;
+        this.fechaReserva = fechaReserva;
+        this.reserva = reserva;
+        this.entradaEspera = entradaEspera;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return ID de la reserva afectada, o 0 en DIA_MODIFICADO, RECARGA y OFERTA_ESPERA.
+     */
+    public int getReservaId() {
+        return reservaId;
+    }
+
+    /**
+     * @return Día afectado, o null si no se conoce (p. ej. una baja por ID desde el servlet).
+     */
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    /**
+     * @return Estado de la reserva tras el cambio, o null en ELIMINADA, DIA_MODIFICADO, RECARGA y OFERTA_ESPERA.
+     */
+    public ReservaMesa getReserva() {
+        return reserva;
+    }
+
+    /**
+     * @return Entrada de la lista de espera con la hora ofrecida y el vencimiento, solo en OFERTA_ESPERA.
+     */
+    public EntradaEspera getEntradaEspera() {
+        return entradaEspera;
+    }
+}
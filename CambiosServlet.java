@@ -0,0 +1,126 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.casacaribe.reservas.modelo.CambioReserva;
+import com.casacaribe.reservas.service.FeedCambiosReservas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Flujo de cambios de reservas como Server-Sent Events para el despliegue basado en servlets
+ * (equivalente a GET /api/reservas/cambios de la API REST). La pantalla de recepción carga el listado
+ * una vez y aplica los eventos creada, actualizada, eliminada y dia_modificado en lugar de recargarlo;
+ * ante un evento reinicio o recarga vuelve a cargarlo completo. Los eventos oferta_espera avisan de una
+ * mesa retenida para la lista de espera y no modifican el listado.
+ */
+@WebServlet(urlPatterns = "/reservas/cambios", asyncSupported = true)
+public class CambiosServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String ultimoEvento = request.getHeader("Last-Event-ID");
+        if (ultimoEvento == null || ultimoEvento.trim().isEmpty()) {
+            ultimoEvento = request.getParameter("desde");
+        }
+        Long ultimoIdVisto;
+        try {
+            ultimoIdVisto = (ultimoEvento == null || ultimoEvento.trim().isEmpty()) ? null : Long.valueOf(ultimoEvento.trim());
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.flushBuffer();
+
+        AsyncContext contexto = request.startAsync();
+        // Sin tiempo límite: los latidos del flujo detectan los clientes desconectados
+        contexto.setTimeout(0);
+        FeedCambiosReservas.Suscripcion suscripcion;
+        try {
+            suscripcion = FeedCambiosReservas.compartido().suscribir(ultimoIdVisto, new ReceptorSse(contexto, response.getOutputStream()));
+        } catch (IllegalStateException e) {
+            // Máximo de suscriptores alcanzado: la respuesta ya empezó, así que solo se cierra
+            contexto.complete();
+            return;
+        }
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                suscripcion.cerrar();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                suscripcion.cerrar();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                suscripcion.cerrar();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    /**
+     * Escribe los eventos del flujo en el formato de texto de Server-Sent Events.
+     */
+    private static final class ReceptorSse implements FeedCambiosReservas.Receptor {
+        private final AsyncContext contexto;
+        private final ServletOutputStream salida;
+
+        ReceptorSse(AsyncContext contexto, ServletOutputStream salida) {
+            this.contexto = contexto;
+            this.salida = salida;
+        }
+
+        @Override
+        public void enviar(CambioReserva cambio) throws IOException {
+            escribir("id: " + cambio.getId() + "\nevent: " + cambio.getTipo().name().toLowerCase(Locale.ROOT)
+                    + "\ndata: " + JSON.writeValueAsString(cambio) + "\n\n");
+        }
+
+        @Override
+        public void reiniciar(long ultimoId) throws IOException {
+            escribir("id: " + ultimoId + "\nevent: reinicio\ndata: " + ultimoId + "\n\n");
+        }
+
+        @Override
+        public void latido() throws IOException {
+            escribir(":latido\n\n");
+        }
+
+        @Override
+        public void cerrar() {
+            try {
+                contexto.complete();
+            } catch (IllegalStateException e) {/* ya completado */}
+        }
+
+        private void escribir(String evento) throws IOException {
+            salida.write(evento.getBytes(StandardCharsets.UTF_8));
+            salida.flush();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de ingreso con escritura agrupada (group commit) para la creación de reservas.
+ * Las reservas ya validadas se encolan y un único hilo escritor las inserta en grupos de hasta
+ * tamanoGrupo filas o cada esperaMs milisegundos, lo que ocurra primero, en una sola transacción.
+ * Quien encola espera a que su grupo quede confirmado: la respuesta HTTP mantiene la misma
+ * semántica de confirmación que una inserción individual.
+ *
+ * Es opcional: se activa con casacaribe.ingreso.agrupado.habilitado=true.
+ */
+@Component
+public class ColaIngresoReservas {
+
+    private final ReservaRepository reservaRepository;
+    private final boolean habilitado;
+    private final int tamanoGrupo;
+    private final long esperaGrupoMs;
+    private final long esperaEncoladoMs;
+    private final BlockingQueue<Solicitud> cola;
+    private final Thread escritor;
+    private volatile boolean detenida;
+
+    @Autowired
+    public ColaIngresoReservas(ReservaRepository reservaRepository,
+                               @Value("${casacaribe.ingreso.agrupado.habilitado:false}") boolean habilitado,
+                               @Value("${casacaribe.ingreso.agrupado.capacidad:2000}") int capacidad,
+                               @Value("${casacaribe.ingreso.agrupado.tamanoGrupo:100}") int tamanoGrupo,
+                               @Value("${casacaribe.ingreso.agrupado.esperaMs:5}") long esperaGrupoMs,
+                               @Value("${casacaribe.ingreso.agrupado.esperaEncoladoMs:1000}") long esperaEncoladoMs) {
+        this.reservaRepository = reservaRepository;
+        this.habilitado = habilitado;
+        this.tamanoGrupo = tamanoGrupo;
+        this.esperaGrupoMs = esperaGrupoMs;
+        this.esperaEncoladoMs = esperaEncoladoMs;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.escritor = new Thread(this::escribirGrupos, "casacaribe-ingreso-agrupado");
+        this.escritor.setDaemon(true);
+        if (habilitado) {
+            escritor.start();
+        }
+    }
+
+    /**
+     * Construye la cola a partir de propiedades del sistema (para uso fuera de Spring, p. ej. el servlet).
+     */
+    public static ColaIngresoReservas desdePropiedadesSistema(ReservaRepository reservaRepository) {
+        return new ColaIngresoReservas(reservaRepository,
+                Boolean.getBoolean("casacaribe.ingreso.agrupado.habilitado"),
+                Integer.getInteger("casacaribe.ingreso.agrupado.capacidad", 2000),
+                Integer.getInteger("casacaribe.ingreso.agrupado.tamanoGrupo", 100),
+                Long.getLong("casacaribe.ingreso.agrupado.esperaMs", 5L),
+                Long.getLong("casacaribe.ingreso.agrupado.esperaEncoladoMs", 1000L));
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Encola una reserva validada y espera a que su grupo quede confirmado en la base de datos.
+     *
+     * @param reserva Reserva ya validada.
+     * @return La reserva con su ID generado.
+     * @throws IllegalStateException Si la cola está llena o detenida, o si el grupo no pudo guardarse.
+     */
+    public ReservaMesa guardar(ReservaMesa reserva) {
+        CompletableFuture<ReservaMesa> confirmacion = encolar(reserva);
+        try {
+            return confirmacion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba la confirmación de la reserva.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Encola una reserva validada sin esperar su confirmación.
+     *
+     * @param reserva Reserva ya validada.
+     * @return Futuro que se completa cuando el grupo que la contiene queda confirmado.
+     * @throws IllegalStateException Si la cola está deshabilitada, detenida o llena.
+     */
+    public CompletableFuture<ReservaMesa> encolar(ReservaMesa reserva) {
+        if (!habilitado || detenida) {
+            throw new IllegalStateException("La cola de ingreso no está disponible.");
+        }
+        Solicitud solicitud = new Solicitud(reserva);
+        try {
+            if (!cola.offer(solicitud, esperaEncoladoMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("La cola de ingreso de reservas está llena.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se encolaba la reserva.", e);
+        }
+        // Se detuvo mientras se encolaba: el escritor puede haber terminado ya. Si la solicitud sigue
+        // en la cola nadie la confirmará, así que se retira y se rechaza
+        if (detenida && cola.remove(solicitud)) {
+            throw new IllegalStateException("La cola de ingreso no está disponible.");
+        }
+        return solicitud.confirmacion;
+    }
+
+    /**
+     * Detiene el escritor tras confirmar las reservas pendientes. Las que queden en la cola
+     * (encoladas durante la detención o si el escritor no terminó a tiempo) se completan con error.
+     */
+    @PreDestroy
+    public void detener() {
+        detenida = true;
+        escritor.interrupt();
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Solicitud> pendientes = new ArrayList<>();
+        cola.drainTo(pendientes);
+        IllegalStateException error = new IllegalStateException("La cola de ingreso se detuvo antes de guardar la reserva.");
+        pendientes.forEach(s -> s.confirmacion.completeExceptionally(error));
+    }
+
+    /**
+     * Bucle del hilo escritor: forma un grupo con la primera solicitud y las que lleguen
+     * dentro de la ventana de espera, y lo inserta en una sola transacción.
+     */
+    private void escribirGrupos() {
+        List<Solicitud> grupo = new ArrayList<>(tamanoGrupo);
+        while (!detenida || !cola.isEmpty()) {
+            try {
+                Solicitud primera = detenida ? cola.poll() : cola.take();
+                if (primera == null) {
+                    continue;
+                }
+                grupo.add(primera);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaGrupoMs);
+                while (grupo.size() < tamanoGrupo) {
+                    // Primero se toma lo que ya está en cola, sin esperar
+                    if (cola.drainTo(grupo, tamanoGrupo - grupo.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    Solicitud siguiente = (restante > 0 && !detenida) ? cola.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    grupo.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                // Detención solicitada: se confirma lo que haya en el grupo y se vacía la cola
+                if (!detenida) {
+                    continue;
+                }
+            }
+            if (!grupo.isEmpty()) {
+                confirmarGrupo(grupo);
+                grupo.clear();
+            }
+        }
+    }
+
+    private void confirmarGrupo(List<Solicitud> grupo) {
+        List<ReservaMesa> reservas = new ArrayList<>(grupo.size());
+        for (Solicitud solicitud : grupo) {
+            reservas.add(solicitud.reserva);
+        }
+        int[] ids;
+        try {
+            // No atómico: una fila inválida no hace fallar al resto del grupo
+            ids = reservaRepository.crearReservasLote(reservas, false);
+        } catch (RuntimeException e) {
+            grupo.forEach(s -> s.confirmacion.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < grupo.size(); i++) {
+            Solicitud solicitud = grupo.get(i);
+            if (ids[i] != -1) {
+                solicitud.confirmacion.complete(solicitud.reserva);
+            } else {
+                solicitud.confirmacion.completeExceptionally(new IllegalStateException("No se pudo guardar la reserva."));
+            }
+        }
+    }
+
+    private static final class Solicitud {
+        private final ReservaMesa reserva;
+        private final CompletableFuture<ReservaMesa> confirmacion = new CompletableFuture<>();
+
+        private Solicitud(ReservaMesa reserva) {
+            this.reserva = reserva;
+        }
+    }
+}
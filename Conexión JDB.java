@@ -18,17 +18,83 @@ import java.sql.SQLException;
 public class ConexionDB {
 
     // Nomenclatura de Constantes en MAYÚSCULAS_CON_GUION_BAJO
-    private static final String JDBC_URL = "jdbc:postgresql://localhost:5432/casacaribe_db";
-    private static final String JDBC_USER = "usuario_app";
-    private static final String JDBC_PASSWORD = "tu_password_segura";
+    // Se pueden sobrescribir con -Dcasacaribe.db.url/usuario/password (p. ej. base de datos local de pruebas de carga)
+    private static final String JDBC_URL = System.getProperty("casacaribe.db.url", "jdbc:postgresql://localhost:5432/casacaribe_db");
+    private static final String JDBC_USER = System.getProperty("casacaribe.db.usuario", "usuario_app");
+    private static final String JDBC_PASSWORD = System.getProperty("casacaribe.db.password", "tu_password_segura");
+
+    // Modo pool: activo por defecto, se desactiva con -Dcasacaribe.db.pool.habilitado=false.
+    // Con hilos virtuales siempre se usa: el pool es el límite de operaciones simultáneas en la base de datos.
+    private static final boolean POOL_HABILITADO =
+            Boolean.parseBoolean(System.getProperty("casacaribe.db.pool.habilitado", "true"))
+            || HilosVirtuales.isHabilitado();
+    private static volatile PoolConexiones pool;
+
+    private static final Metricas.Temporizador T_OBTENER = Metricas.temporizador("conexion", "obtener");
 
     /**
-     * Establece y retorna una nueva conexión a la base de datos.
+     * Retorna una conexión a la base de datos.
+     * Con el pool habilitado la conexión proviene de PoolConexiones y su cierre la devuelve al pool.
      *
      * @return Objeto Connection activo.
-     * @throws SQLException Si ocurre un error de conexión a la base de datos.
+     * @throws SQLException Si ocurre un error de conexión o se agota la espera del pool.
      */
     public static Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            if (POOL_HABILITADO) {
+                return getPool().obtener();
+            }
+            return abrirConexionFisica();
+        } catch (SQLException e) {
+            T_OBTENER.error();
+            throw e;
+        } finally {
+            T_OBTENER.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Retorna las estadísticas del pool, o null si el pool está deshabilitado.
+     *
+     * @return Instantánea de activas/inactivas/en espera e histograma de adquisición.
+     */
+    public static PoolConexiones.Estadisticas getEstadisticasPool() {
+        return POOL_HABILITADO ? getPool().getEstadisticas() : null;
+    }
+
+    /**
+     * Cierra el pool de conexiones (al detener la aplicación).
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
+    }
+
+    private static PoolConexiones getPool() {
+        PoolConexiones actual = pool;
+        if (actual == null) {
+            synchronized (ConexionDB.class) {
+                actual = pool;
+                if (actual == null) {
+                    actual = new PoolConexiones(PoolConexiones.Configuracion.desdePropiedadesSistema(),
+                            ConexionDB::abrirConexionFisica);
+                    pool = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Establece y retorna una nueva conexión física a la base de datos.
+     *
+     * @return Objeto Connection activo.
+     * @throws SQLException Si ocurre un error de conexión a la base de datos.
+     */
+    private static Connection abrirConexionFisica() throws SQLException {
         // Usa Log.i o System.out.println para propósitos de depuración
         System.out.println("Intentando conectar a la base de datos...");
         
@@ -46,6 +112,7 @@ public class ConexionDB {
 
     /**
      * Cierra la conexión JDBC de forma segura.
+     * Si la conexión proviene del pool, se devuelve al pool en lugar de cerrarse.
      *
      * @param connection La conexión a cerrar.
      */
@@ -53,11 +120,13 @@ public class ConexionDB {
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
-                System.out.println("Conexión cerrada.");
+                if (!POOL_HABILITADO) {
+                    System.out.println("Conexión cerrada.");
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error al cerrar la conexión.");
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.casacaribe.reservas.config;
+
+import com.casacaribe.reservas.util.ControlAdmision;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra el control de admisión de la API REST (ver ControlAdmision).
+ * Con -Dcasacaribe.admision.habilitado=false no se registra.
+ */
+@Configuration
+public class ConfiguracionAdmision implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (ControlAdmision.isHabilitado()) {
+            registry.addInterceptor(new InterceptorAdmision())
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
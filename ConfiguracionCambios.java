@@ -0,0 +1,22 @@
+package com.casacaribe.reservas.config;
+
+import com.casacaribe.reservas.service.FeedCambiosReservas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra como bean el flujo de cambios del proceso, el mismo en el que publican los servlets
+ * (ReservaServlet, CambiosServlet): GET /api/reservas/cambios y /reservas/cambios ven todas las
+ * escrituras, y el ETag de la colección usa un único sello.
+ */
+@Configuration
+public class ConfiguracionCambios {
+
+    @Bean
+    public FeedCambiosReservas feedCambiosReservas(@Value("${casacaribe.feed.historial:4096}") int tamanoHistorial,
+                                                   @Value("${casacaribe.feed.suscriptoresMaximo:1000}") int suscriptoresMaximo,
+                                                   @Value("${casacaribe.feed.latidoMs:15000}") long latidoMs) {
+        return FeedCambiosReservas.compartido(tamanoHistorial, suscriptoresMaximo, latidoMs);
+    }
+}
@@ -0,0 +1,49 @@
+package com.casacaribe.reservas.config;
+
+import com.casacaribe.reservas.util.HilosVirtuales;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuración opcional del modo de hilos virtuales para la API REST (Java 21).
+ * Se activa con -Dcasacaribe.hilosVirtuales.habilitado=true: Tomcat atiende cada petición en un hilo virtual
+ * y las respuestas asíncronas (p. ej. la exportación en streaming) también se ejecutan en hilos virtuales.
+ * La decisión es la de HilosVirtuales (propiedad del sistema), no la del Environment de Spring: así la
+ * configuración nunca se activa con el ejecutor deshabilitado.
+ */
+@Configuration
+@Conditional(ConfiguracionHilosVirtuales.ModoHabilitado.class)
+public class ConfiguracionHilosVirtuales implements WebMvcConfigurer {
+
+    /**
+     * Reemplaza el pool de hilos del conector de Tomcat por el ejecutor de hilos virtuales.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> ejecutorVirtualTomcat() {
+        return protocolHandler -> protocolHandler.setExecutor(HilosVirtuales.ejecutor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(HilosVirtuales.ejecutor()));
+    }
+
+    /**
+     * Activa la configuración solo si HilosVirtuales tiene el modo habilitado.
+     */
+    static class ModoHabilitado implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext contexto, AnnotatedTypeMetadata metadatos) {
+            return HilosVirtuales.isHabilitado();
+        }
+    }
+}
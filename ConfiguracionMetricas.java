@@ -0,0 +1,18 @@
+package com.casacaribe.reservas.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra la medición de latencia de la API REST. Las métricas se consultan en GET /metricas.
+ */
+@Configuration
+public class ConfiguracionMetricas implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new InterceptorMetricas())
+                .addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,33 @@
+package com.casacaribe.reservas.service;
+
+/**
+ * Se lanza cuando una clave de idempotencia no puede resolverse con la reserva original:
+ * la clave se usó con otros datos, su alta sigue en curso en otra petición, o la reserva que creó ya no existe.
+ */
+public class ConflictoIdempotenciaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Causa del conflicto.
+     */
+    public enum Motivo {
+        /** La clave ya se usó con datos distintos: es otra petición, no un reintento. */
+        OTRA_PETICION,
+        /** El alta original no ha terminado (p. ej. en otra instancia); el cliente debe reintentar más tarde. */
+        EN_CURSO,
+        /** El alta original se completó, pero su reserva se eliminó después. */
+        RESERVA_ELIMINADA
+    }
+
+    private final Motivo motivo;
+
+    public ConflictoIdempotenciaException(Motivo motivo, String mensaje) {
+        super(mensaje);
+        this.motivo = motivo;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,24 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+
+/**
+ * Se lanza cuando una actualización usa una versión desactualizada de la reserva
+ * (otra escritura la modificó primero). Contiene la reserva vigente para que el cliente la recargue.
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ReservaMesa reservaVigente;
+
+    public ConflictoVersionException(ReservaMesa reservaVigente) {
+        super("La reserva " + reservaVigente.getId() + " fue modificada por otra operación (versión vigente: "
+                + reservaVigente.getVersion() + ").");
+        this.reservaVigente = reservaVigente;
+    }
+
+    public ReservaMesa getReservaVigente() {
+        return reservaVigente;
+    }
+}
@@ -0,0 +1,296 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: ControlAdmision.java
+    * Descripción: Control de admisión con límites de concurrencia adaptativos por clase de operación.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Control de admisión delante de la base de datos, compartido por el controlador REST y el servlet.
+ * Se desactiva con -Dcasacaribe.admision.habilitado=false.
+ *
+ * Cada clase de operación tiene su propio límite de peticiones simultáneas, que se ajusta con la latencia
+ * observada (aumento aditivo, reducción multiplicativa): mientras la latencia reciente se mantiene cerca de
+ * la mínima observada el límite crece poco a poco; cuando la base de datos se ralentiza y la latencia
+ * supera la tolerancia (o las peticiones fallan), el límite se reduce un 10 % por ronda. Así el número de
+ * peticiones que esperan a la base de datos se mantiene acotado y el resto se rechaza enseguida con 503,
+ * en lugar de acumular hilos bloqueados hasta que el contenedor deja de responder.
+ *
+ * Por encima del límite, una petición espera como mucho casacaribe.admision.esperaMs en una cola corta.
+ * Las clases de prioridad baja (listados completos, operaciones masivas) no tienen cola y tienen un límite
+ * máximo menor, de modo que bajo presión se rechazan antes que las altas y las consultas puntuales.
+ */
+public final class ControlAdmision {
+
+    /**
+     * Prioridad de una clase de operación: fracción del límite máximo y de la cola que puede usar.
+     */
+    public enum Prioridad {
+        ALTA(1.0, 1.0),
+        MEDIA(0.5, 0.5),
+        BAJA(0.25, 0.0);
+
+        private final double fraccionLimite;
+        private final double fraccionCola;
+
+        Prioridad(double fraccionLimite, double fraccionCola) {
+            this.fraccionLimite = fraccionLimite;
+            this.fraccionCola = fraccionCola;
+        }
+    }
+
+    /**
+     * Clase de operación, con su propio límite.
+     */
+    public enum Clase {
+        /** Altas de reservas y de la lista de espera. */
+        CREAR("crear", Prioridad.ALTA),
+        /** Consultas puntuales: una reserva, disponibilidad, plano de mesas. */
+        CONSULTAR("consultar", Prioridad.ALTA),
+        /** Modificaciones y bajas. */
+        MODIFICAR("modificar", Prioridad.MEDIA),
+        /** Listados completos o por rango, exportaciones e informes. */
+        LISTAR("listar", Prioridad.BAJA),
+        /** Operaciones masivas: lotes, importaciones, reconstrucciones. */
+        MASIVA("masiva", Prioridad.BAJA);
+
+        private final String nombre;
+        private final Prioridad prioridad;
+
+        Clase(String nombre, Prioridad prioridad) {
+            this.nombre = nombre;
+            this.prioridad = prioridad;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public Prioridad getPrioridad() {
+            return prioridad;
+        }
+    }
+
+    private static final boolean HABILITADO =
+            Boolean.parseBoolean(System.getProperty("casacaribe.admision.habilitado", "true"));
+    private static final int LIMITE_MAXIMO = Integer.getInteger("casacaribe.admision.limiteMaximo", 64);
+    private static final int COLA_MAXIMA = Integer.getInteger("casacaribe.admision.cola", 32);
+    private static final long ESPERA_MAXIMA_MS = Long.getLong("casacaribe.admision.esperaMs", 50L);
+    // La latencia reciente puede superar a la mínima en este factor antes de reducir el límite
+    private static final double TOLERANCIA = Double.parseDouble(System.getProperty("casacaribe.admision.tolerancia", "2.0"));
+    // Por debajo de esta latencia nunca se reduce el límite (evita reaccionar a la diferencia entre aciertos de caché y consultas)
+    private static final long LATENCIA_MINIMA_MS = Long.getLong("casacaribe.admision.latenciaMinimaMs", 20L);
+    private static final int RETRY_AFTER_SEGUNDOS = Integer.getInteger("casacaribe.admision.retryAfterSegundos", 1);
+
+    private static final Map<Clase, Limitador> LIMITADORES = new EnumMap<>(Clase.class);
+
+    static {
+        for (Clase clase : Clase.values()) {
+            int maximo = Math.max(1, (int) Math.round(LIMITE_MAXIMO * clase.prioridad.fraccionLimite));
+            int cola = (int) Math.round(COLA_MAXIMA * clase.prioridad.fraccionCola);
+            LIMITADORES.put(clase, new Limitador(clase, maximo, cola, TimeUnit.MILLISECONDS.toNanos(ESPERA_MAXIMA_MS)));
+        }
+    }
+
+    private ControlAdmision() {
+    }
+
+    /**
+     * @return true si el control de admisión está activo.
+     */
+    public static boolean isHabilitado() {
+        return HABILITADO;
+    }
+
+    public static Limitador limitador(Clase clase) {
+        return LIMITADORES.get(clase);
+    }
+
+    public static Iterable<Limitador> limitadores() {
+        return LIMITADORES.values();
+    }
+
+    /**
+     * @return Segundos que se indican en la cabecera Retry-After de un rechazo.
+     */
+    public static int getRetryAfterSegundos() {
+        return RETRY_AFTER_SEGUNDOS;
+    }
+
+    /**
+     * Límite adaptativo de una clase de operación, con su cola de espera acotada.
+     */
+    public static final class Limitador {
+        // La latencia base es la mínima de la ventana actual y la anterior: sigue los cambios duraderos
+        private static final long VENTANA_BASE_NANOS = TimeUnit.SECONDS.toNanos(30);
+        private static final double FACTOR_REDUCCION = 0.9;
+        private static final double PESO_RECIENTE = 0.2;
+
+        private final Clase clase;
+        private final int minimo;
+        private final int maximo;
+        private final int colaMaxima;
+        private final long esperaMaximaNanos;
+        private final long latenciaMinimaNanos = TimeUnit.MILLISECONDS.toNanos(LATENCIA_MINIMA_MS);
+        private final ReentrantLock candado = new ReentrantLock();
+        private final Condition hayHueco = candado.newCondition();
+        private final LongAdder admitidas = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+
+        // Estado protegido por el candado
+        private double limite;
+        private int enCurso;
+        private int esperando;
+        private long minimaVentanaAnterior = Long.MAX_VALUE;
+        private long minimaVentana = Long.MAX_VALUE;
+        private long inicioVentana = System.nanoTime();
+        private double latenciaReciente;
+        private int muestrasDesdeReduccion;
+
+        private Limitador(Clase clase, int maximo, int colaMaxima, long esperaMaximaNanos) {
+            this.clase = clase;
+            this.minimo = Math.min(2, maximo);
+            this.maximo = maximo;
+            this.colaMaxima = colaMaxima;
+            this.esperaMaximaNanos = esperaMaximaNanos;
+            this.limite = Math.max(minimo, maximo / 2.0);
+        }
+
+        /**
+         * Admite una petición si hay hueco; si no, espera en la cola como mucho el tiempo configurado.
+         *
+         * @return true si se admitió (debe llamarse a liberar al terminar); false si se rechazó.
+         */
+        public boolean adquirir() {
+            candado.lock();
+            try {
+                if (enCurso < (int) limite) {
+                    enCurso++;
+                    admitidas.increment();
+                    return true;
+                }
+                if (esperando >= colaMaxima) {
+                    rechazadas.increment();
+                    return false;
+                }
+                esperando++;
+                try {
+                    long restante = esperaMaximaNanos;
+                    while (enCurso >= (int) limite) {
+                        if (restante <= 0) {
+                            rechazadas.increment();
+                            return false;
+                        }
+                        restante = hayHueco.awaitNanos(restante);
+                    }
+                    enCurso++;
+                    admitidas.increment();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rechazadas.increment();
+                    return false;
+                } finally {
+                    esperando--;
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        /**
+         * Libera una petición admitida y ajusta el límite con su latencia.
+         *
+         * @param latenciaNanos Duración de la petición.
+         * @param sobrecarga true si falló por causas de capacidad (5xx, excepción, tiempo agotado).
+         */
+        public void liberar(long latenciaNanos, boolean sobrecarga) {
+            candado.lock();
+            try {
+                enCurso--;
+                int anterior = (int) limite;
+                ajustar(latenciaNanos, sobrecarga);
+                if ((int) limite > anterior) {
+                    hayHueco.signalAll();
+                } else {
+                    hayHueco.signal();
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        private void ajustar(long latenciaNanos, boolean sobrecarga) {
+            long ahora = System.nanoTime();
+            if (ahora - inicioVentana > VENTANA_BASE_NANOS) {
+                minimaVentanaAnterior = minimaVentana;
+                minimaVentana = Long.MAX_VALUE;
+                inicioVentana = ahora;
+            }
+            minimaVentana = Math.min(minimaVentana, latenciaNanos);
+            long latenciaBase = Math.min(minimaVentanaAnterior, minimaVentana);
+            latenciaReciente = (latenciaReciente == 0) ? latenciaNanos
+                    : latenciaReciente + PESO_RECIENTE * (latenciaNanos - latenciaReciente);
+            muestrasDesdeReduccion++;
+
+            double umbral = Math.max(latenciaBase * TOLERANCIA, latenciaMinimaNanos);
+            if (sobrecarga || latenciaReciente > umbral) {
+                // Una reducción por ronda (tantas respuestas como el límite): las respuestas lentas ya en curso no la repiten
+                if (muestrasDesdeReduccion >= limite) {
+                    limite = Math.max(minimo, limite * FACTOR_REDUCCION);
+                    muestrasDesdeReduccion = 0;
+                }
+            } else if (enCurso + 1 >= limite / 2) {
+                // Solo crece si se está usando: aproximadamente una unidad por ronda
+                limite = Math.min(maximo, limite + 1.0 / limite);
+            }
+        }
+
+        public Clase getClase() {
+            return clase;
+        }
+
+        public int getLimite() {
+            candado.lock();
+            try {
+                return (int) limite;
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        public int getEnCurso() {
+            candado.lock();
+            try {
+                return enCurso;
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        public int getEsperando() {
+            candado.lock();
+            try {
+                return esperando;
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        public long getAdmitidas() {
+            return admitidas.sum();
+        }
+
+        public long getRechazadas() {
+            return rechazadas.sum();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.Metricas;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Exportación e importación masivas de la tabla reservas con COPY de PostgreSQL.
+ * Los datos viajan en streaming entre la base de datos y el flujo de entrada o salida,
+ * sin pasar por ResultSet ni por una sentencia por fila, y sin materializar el archivo en memoria.
+ */
+public class CopiaMasivaReservas {
+
+    // Mismos nombres de campo que ReservaMesa, pero formato propio: la hora siempre como HH:MM:SS
+    // (sin fracciones de segundo) y el estado con la etiqueta guardada ("Pendiente"); ambos se leen con
+    // LocalTime.parse y EstadoReserva.desdeTexto
+    private static final String SQL_EXPORTAR_NDJSON = "COPY (SELECT row_to_json(r) FROM ("
+            + "SELECT id, fecha_reserva AS \"fechaReserva\", "
+            + "to_char(hora_reserva, 'HH24:MI:SS') AS \"horaReserva\", "
+            + "num_personas AS \"numPersonas\", nombre_cliente AS \"nombreCliente\", email_cliente AS \"emailCliente\", "
+            + "estado, version FROM reservas ORDER BY fecha_reserva, hora_reserva, id) r) "
+            // Sin comillas ni separadores posibles en el JSON: cada línea sale tal cual, sin escapes de COPY
+            + "TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+    private static final String SQL_EXPORTAR_CSV = "COPY (SELECT " + ProyeccionReserva.COMPLETA.getColumnas()
+            + " FROM reservas ORDER BY fecha_reserva, hora_reserva, id) TO STDOUT WITH (FORMAT csv, HEADER true)";
+    private static final String SQL_IMPORTAR = "COPY reservas (id, fecha_reserva, hora_reserva, num_personas, "
+            + "nombre_cliente, email_cliente, estado) FROM STDIN WITH (FORMAT csv)";
+    // Varios bloques de la secuencia en un solo viaje (cada nextval() reserva INCREMENT BY IDs, ver esquema.sql)
+    private static final String SQL_RESERVAR_BLOQUES = "SELECT nextval('reservas_id_seq'), "
+            + "(SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = 'reservas_id_seq') "
+            + "FROM generate_series(1, ?)";
+    private static final int BLOQUES_POR_RESERVA = 200;
+    // Bytes acumulados antes de cada envío al COPY
+    private static final int TAMANO_ENVIO = 64 * 1024;
+
+    private static final Metricas.Temporizador T_EXPORTAR = Metricas.temporizador("repositorio", "exportarCopy");
+    private static final Metricas.Temporizador T_IMPORTAR = Metricas.temporizador("repositorio", "importarCopy");
+
+    /**
+     * Escribe todas las reservas en el formato indicado, ordenadas por fecha, hora e ID.
+     *
+     * @param formato CSV (con encabezado) o NDJSON.
+     * @param salida Destino; no se cierra.
+     * @return Número de reservas exportadas.
+     * @throws IOException Si falla la escritura (p. ej. el cliente cerró la conexión); el COPY se cancela.
+     */
+    public long exportar(FormatoDatos formato, OutputStream salida) throws IOException {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        try {
+            conn = ConexionDB.getConnection();
+            CopyManager copia = conn.unwrap(PGConnection.class).getCopyAPI();
+            return copia.copyOut(formato == FormatoDatos.CSV ? SQL_EXPORTAR_CSV : SQL_EXPORTAR_NDJSON, salida);
+        } catch (SQLException e) {
+            T_EXPORTAR.error();
+            System.err.println("ERROR en exportar: " + e.getMessage());
+            throw new IOException("La exportación se interrumpió.", e);
+        } finally {
+            ConexionDB.closeConnection(conn);
+            T_EXPORTAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Inserta con un único COPY, en una transacción, todas las reservas que entregue la fuente.
+     * Las filas deben llegar ya validadas; a cada una se le asigna un ID nuevo de la secuencia
+     * (los IDs del archivo de origen no se conservan).
+     *
+     * @param fuente Reservas a insertar, producidas en streaming.
+     * @return Número de reservas insertadas.
+     * @throws IOException Si la fuente falla; no se inserta ninguna reserva.
+     * @throws IllegalStateException Si la base de datos rechaza el COPY; no se inserta ninguna reserva.
+     */
+    public long importar(FuenteFilas<ReservaMesa> fuente) throws IOException {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        CopyIn copia = null;
+        try {
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
+            CopyIn destino = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_IMPORTAR);
+            copia = destino;
+            StringBuilder envio = new StringBuilder(TAMANO_ENVIO + 1024);
+            IdsPorBloques ids = new IdsPorBloques();
+
+            fuente.recorrer(reserva -> {
+                try {
+                    reserva.setId(ids.siguiente());
+                    escribirFilaCsv(envio, reserva);
+                    if (envio.length() >= TAMANO_ENVIO) {
+                        enviar(destino, envio);
+                    }
+                } catch (SQLException e) {
+                    System.err.println("ERROR en importar: " + e.getMessage());
+                    throw new IllegalStateException("La base de datos rechazó la importación: " + e.getMessage(), e);
+                }
+            });
+            enviar(destino, envio);
+            long insertadas = destino.endCopy();
+            conn.commit();
+            return insertadas;
+        } catch (SQLException e) {
+            T_IMPORTAR.error();
+            System.err.println("ERROR en importar: " + e.getMessage());
+            cancelar(conn, copia);
+            throw new IllegalStateException("No se pudo importar: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            T_IMPORTAR.error();
+            cancelar(conn, copia);
+            throw e;
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_IMPORTAR.registrarDesde(inicio);
+        }
+    }
+
+    private static void enviar(CopyIn destino, StringBuilder envio) throws SQLException {
+        if (envio.length() > 0) {
+            byte[] bytes = envio.toString().getBytes(StandardCharsets.UTF_8);
+            destino.writeToCopy(bytes, 0, bytes.length);
+            envio.setLength(0);
+        }
+    }
+
+    private static void cancelar(Connection conn, CopyIn copia) {
+        try { if (copia != null && copia.isActive()) copia.cancelCopy(); } catch (SQLException e) {/* ignore */}
+        try { if (conn != null) conn.rollback(); } catch (SQLException e) {/* ignore */}
+    }
+
+    private static void escribirFilaCsv(StringBuilder linea, ReservaMesa reserva) {
+        linea.append(reserva.getId()).append(',')
+                .append(reserva.getFechaReserva()).append(',')
+                .append(reserva.getHoraReserva()).append(',')
+                .append(reserva.getNumPersonas()).append(',');
+        campoCsv(linea, reserva.getNombreCliente());
+        linea.append(',');
+        campoCsv(linea, reserva.getEmailCliente());
+        linea.append(',');
+        campoCsv(linea, reserva.getEstado());
+        linea.append('\n');
+    }
+
+    // En FORMAT csv un campo vacío sin comillas es NULL; un texto vacío va entre comillas
+    private static void campoCsv(StringBuilder linea, String valor) {
+        if (valor == null) {
+            return;
+        }
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linea.append('"');
+            }
+            linea.append(c);
+        }
+        linea.append('"');
+    }
+
+    /**
+     * IDs de la secuencia reservas_id_seq pedidos de BLOQUES_POR_RESERVA bloques en cada consulta.
+     * Usa una conexión propia: la de la importación está ocupada por el COPY en curso.
+     */
+    private static final class IdsPorBloques {
+        private long[] inicios = new long[0];
+        private int bloque;
+        private long incremento = 1;
+        private long siguiente;
+        private long fin;
+
+        int siguiente() throws SQLException {
+            if (siguiente >= fin) {
+                if (bloque >= inicios.length) {
+                    recargar();
+                }
+                siguiente = inicios[bloque];
+                fin = siguiente + incremento;
+                bloque++;
+            }
+            return Math.toIntExact(siguiente++);
+        }
+
+        private void recargar() throws SQLException {
+            Connection conn = null;
+            PreparedStatement ps = null;
+            ResultSet rs = null;
+            try {
+                conn = ConexionDB.getConnection();
+                ps = conn.prepareStatement(SQL_RESERVAR_BLOQUES);
+                ps.setInt(1, BLOQUES_POR_RESERVA);
+                rs = ps.executeQuery();
+                long[] nuevos = new long[BLOQUES_POR_RESERVA];
+                int n = 0;
+                while (rs.next()) {
+                    nuevos[n++] = rs.getLong(1);
+                    incremento = Math.max(1, rs.getLong(2));
+                }
+                inicios = Arrays.copyOf(nuevos, n);
+                bloque = 0;
+            } finally {
+                try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+                try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+                ConexionDB.closeConnection(conn);
+            }
+        }
+    }
+}
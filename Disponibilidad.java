@@ -0,0 +1,54 @@
+/* Disponibilidad de una franja */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Respuesta a la pregunta "¿cabe este grupo en esta fecha y hora?".
+ * Los cupos restantes corresponden a la franja más llena dentro del turno de la reserva.
+ */
+public class Disponibilidad {
+
+    private final LocalDate fechaReserva;
+    private final LocalTime horaReserva;
+    private final int numPersonas;
+    private final boolean disponible;
+    private final int cubiertosRestantes;
+    private final int mesasRestantes;
+
+    public Disponibilidad(LocalDate fechaReserva, LocalTime horaReserva, int numPersonas,
+                          boolean disponible, int cubiertosRestantes, int mesasRestantes) {
+        this.fechaReserva = fechaReserva;
+        this.horaReserva = horaReserva;
+        this.numPersonas = numPersonas;
+        this.disponible = disponible;
+        this.cubiertosRestantes = cubiertosRestantes;
+        this.mesasRestantes = mesasRestantes;
+    }
+
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    public LocalTime getHoraReserva() {
+        return horaReserva;
+    }
+
+    public int getNumPersonas() {
+        return numPersonas;
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    public int getCubiertosRestantes() {
+        return cubiertosRestantes;
+    }
+
+    public int getMesasRestantes() {
+        return mesasRestantes;
+    }
+}
@@ -0,0 +1,162 @@
+/* Entrada de la lista de espera */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Cliente en lista de espera para un día: acepta cualquier hora entre horaDesde y horaHasta
+ * si se libera una mesa para su grupo. Mientras tiene una oferta, horaOfrecida es la hora de la mesa
+ * retenida y ofertaVenceEn el momento en que se libera si no la acepta.
+ */
+public class EntradaEspera {
+
+    private int id;
+    private LocalDate fechaReserva;
+    private LocalTime horaDesde;
+    private LocalTime horaHasta;
+    private int numPersonas;
+    private String nombreCliente;
+    private String emailCliente;
+    private String estado;
+    private LocalDateTime creadaEn;
+    private LocalTime horaOfrecida;
+    private LocalDateTime ofertaVenceEn;
+    private Integer reservaId;
+
+    /**
+     * Constructor vacío.
+     */
+    public EntradaEspera() {
+    }
+
+    /**
+     * Constructor de copia.
+     * @param otra La entrada a copiar.
+     */
+    public EntradaEspera(EntradaEspera otra) {
+        this.id = otra.id;
+        this.fechaReserva = otra.fechaReserva;
+        this.horaDesde = otra.horaDesde;
+        this.horaHasta = otra.horaHasta;
+        this.numPersonas = otra.numPersonas;
+        this.nombreCliente = otra.nombreCliente;
+        this.emailCliente = otra.emailCliente;
+        this.estado = otra.estado;
+        this.creadaEn = otra.creadaEn;
+        this.horaOfrecida = otra.horaOfrecida;
+        this.ofertaVenceEn = otra.ofertaVenceEn;
+        this.reservaId = otra.reservaId;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    public void setFechaReserva(LocalDate fechaReserva) {
+        this.fechaReserva = fechaReserva;
+    }
+
+    public LocalTime getHoraDesde() {
+        return horaDesde;
+    }
+
+    public void setHoraDesde(LocalTime horaDesde) {
+        this.horaDesde = horaDesde;
+    }
+
+    public LocalTime getHoraHasta() {
+        return horaHasta;
+    }
+
+    public void setHoraHasta(LocalTime horaHasta) {
+        this.horaHasta = horaHasta;
+    }
+
+    public int getNumPersonas() {
+        return numPersonas;
+    }
+
+    public void setNumPersonas(int numPersonas) {
+        this.numPersonas = numPersonas;
+    }
+
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+
+    public void setNombreCliente(String nombreCliente) {
+        this.nombreCliente = nombreCliente;
+    }
+
+    public String getEmailCliente() {
+        return emailCliente;
+    }
+
+    public void setEmailCliente(String emailCliente) {
+        this.emailCliente = emailCliente;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getCreadaEn() {
+        return creadaEn;
+    }
+
+    public void setCreadaEn(LocalDateTime creadaEn) {
+        this.creadaEn = creadaEn;
+    }
+
+    public LocalTime getHoraOfrecida() {
+        return horaOfrecida;
+    }
+
+    public void setHoraOfrecida(LocalTime horaOfrecida) {
+        this.horaOfrecida = horaOfrecida;
+    }
+
+    public LocalDateTime getOfertaVenceEn() {
+        return ofertaVenceEn;
+    }
+
+    public void setOfertaVenceEn(LocalDateTime ofertaVenceEn) {
+        this.ofertaVenceEn = ofertaVenceEn;
+    }
+
+    public Integer getReservaId() {
+        return reservaId;
+    }
+
+    public void setReservaId(Integer reservaId) {
+        this.reservaId = reservaId;
+    }
+
+    @Override
+    public String toString() {
+        return "EntradaEspera{" +
+                "ID=" + id +
+                ", Cliente='" + nombreCliente + '\'' +
+                ", Fecha=" + fechaReserva +
+                ", Desde=" + horaDesde +
+                ", Hasta=" + horaHasta +
+                ", Personas=" + numPersonas +
+                ", Estado='" + estado + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.casacaribe.reservas.modelo;
+
+/**
+ * Estados de una entrada de la lista de espera.
+ * En la base de datos se guarda la etiqueta (columna lista_espera.estado, ver esquema.sql).
+ *
+ * Transiciones: ESPERANDO -> OFRECIDA | RETIRADA; OFRECIDA -> ACEPTADA | RETIRADA | VENCIDA, o de vuelta
+ * a ESPERANDO si la reserva aceptada no pudo guardarse (o la oferta se perdió en un reinicio).
+ * ACEPTADA, RETIRADA y VENCIDA son finales.
+ */
+public enum EstadoEspera {
+
+    /** En cola, a la espera de que se libere una mesa. */
+    ESPERANDO("Esperando"),
+    /** Se le retuvo una mesa y tiene hasta ofertaVenceEn para aceptarla. */
+    OFRECIDA("Ofrecida"),
+    /** Aceptó la oferta: reservaId es la reserva creada. */
+    ACEPTADA("Aceptada"),
+    /** El cliente salió de la lista o rechazó la oferta. */
+    RETIRADA("Retirada"),
+    /** No respondió a la oferta a tiempo. */
+    VENCIDA("Vencida");
+
+    private final String etiqueta;
+
+    EstadoEspera(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+
+    /**
+     * @return Texto con el que se guarda y se muestra el estado.
+     */
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+}
@@ -0,0 +1,76 @@
+package com.casacaribe.reservas.modelo;
+
+import java.util.Locale;
+
+/**
+ * Estados posibles de una reserva y sus transiciones permitidas.
+ * En la base de datos se guarda como el tipo enumerado estado_reserva (ver esquema.sql),
+ * cuyos valores son las etiquetas ("Pendiente", "Confirmada", "Cancelada").
+ *
+ * Transiciones: PENDIENTE -> CONFIRMADA | CANCELADA, CONFIRMADA -> CANCELADA.
+ * CANCELADA es final.
+ */
+public enum EstadoReserva {
+
+    PENDIENTE("Pendiente"),
+    CONFIRMADA("Confirmada"),
+    CANCELADA("Cancelada");
+
+    private final String etiqueta;
+
+    EstadoReserva(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+
+    /**
+     * @return Texto con el que se guarda y se muestra el estado.
+     */
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+
+    /**
+     * @return true si una reserva en este estado ocupa mesas y cubiertos.
+     */
+    public boolean ocupaCapacidad() {
+        return this != CANCELADA;
+    }
+
+    /**
+     * @param destino Estado al que se quiere pasar.
+     * @return true si el cambio está permitido (permanecer en el mismo estado siempre lo está).
+     */
+    public boolean permiteTransicionA(EstadoReserva destino) {
+        if (destino == this) {
+            return true;
+        }
+        switch (this) {
+            case PENDIENTE:
+                return true;
+            case CONFIRMADA:
+                return destino == CANCELADA;
+            case CANCELADA:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Interpreta un estado recibido como etiqueta ("Pendiente") o como nombre ("PENDIENTE").
+     *
+     * @param texto Estado en texto, sin distinguir mayúsculas.
+     * @return El estado correspondiente.
+     * @throws IllegalArgumentException Si el texto es nulo o no corresponde a ningún estado.
+     */
+    public static EstadoReserva desdeTexto(String texto) {
+        if (texto != null) {
+            String normalizado = texto.trim().toUpperCase(Locale.ROOT);
+            for (EstadoReserva estado : values()) {
+                if (estado.name().equals(normalizado)) {
+                    return estado;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Estado de reserva no válido: " + texto);
+    }
+}
@@ -0,0 +1,314 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.CambioReserva;
+import com.casacaribe.reservas.modelo.EntradaEspera;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flujo de cambios de reservas (altas, modificaciones y bajas) para clientes que aplican deltas
+ * en lugar de volver a pedir el listado completo.
+ *
+ * Los cambios se guardan en un anillo con los últimos tamanoHistorial eventos. Cada suscriptor
+ * tiene un hilo virtual que lee el anillo desde su propio cursor, así que publicar no depende
+ * del número de suscriptores ni de su velocidad. Un cliente que se reconecta indica el último ID
+ * que vio y recibe lo que se perdió; si ese ID ya salió del anillo (o es de antes de un reinicio),
+ * recibe un aviso de reinicio y debe volver a cargar el listado antes de seguir aplicando cambios.
+ * Lo mismo ocurre con un suscriptor tan lento que el anillo le da la vuelta.
+ *
+ * Hay una sola instancia por proceso (compartido()): el bean de Spring es esa misma instancia, así que
+ * la API REST y los servlets publican en el mismo anillo y comparten el sello de colección.
+ */
+public class FeedCambiosReservas {
+
+    private static final AtomicLong SECUENCIA_HILOS = new AtomicLong();
+    private static volatile FeedCambiosReservas compartido;
+
+    private final CambioReserva[] anillo;
+    private final int suscriptoresMaximo;
+    private final long latidoMs;
+    private final ReentrantLock candado = new ReentrantLock();
+    private final Condition hayCambios = candado.newCondition();
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    // IDs basados en el reloj: siguen creciendo tras un reinicio, y los anteriores se detectan como perdidos
+    private final long primerId;
+    private volatile long ultimoId; // se escribe con el candado tomado
+
+    public FeedCambiosReservas(int tamanoHistorial, int suscriptoresMaximo, long latidoMs) {
+        this.anillo = new CambioReserva[tamanoHistorial];
+        this.suscriptoresMaximo = suscriptoresMaximo;
+        this.latidoMs = latidoMs;
+        this.ultimoId = System.currentTimeMillis() * 1000;
+        this.primerId = ultimoId + 1;
+    }
+
+    /**
+     * Construye el flujo a partir de propiedades del sistema (para uso fuera de Spring).
+     */
+    public static FeedCambiosReservas desdePropiedadesSistema() {
+        return new FeedCambiosReservas(
+                Integer.getInteger("casacaribe.feed.historial", 4096),
+                Integer.getInteger("casacaribe.feed.suscriptoresMaximo", 1000),
+                Long.getLong("casacaribe.feed.latidoMs", 15_000L));
+    }
+
+    /**
+     * Retorna el flujo del proceso, compartido por la API REST y los servlets (alta, edición y suscripción).
+     * Si todavía no existe, se crea a partir de propiedades del sistema.
+     */
+    public static FeedCambiosReservas compartido() {
+        FeedCambiosReservas actual = compartido;
+        return actual != null ? actual : compartido(
+                Integer.getInteger("casacaribe.feed.historial", 4096),
+                Integer.getInteger("casacaribe.feed.suscriptoresMaximo", 1000),
+                Long.getLong("casacaribe.feed.latidoMs", 15_000L));
+    }
+
+    /**
+     * Retorna el flujo del proceso, creándolo con esta configuración si todavía no existe
+     * (la usa el bean de Spring; si un servlet lo creó antes, se conserva el existente).
+     */
+    public static FeedCambiosReservas compartido(int tamanoHistorial, int suscriptoresMaximo, long latidoMs) {
+        FeedCambiosReservas actual = compartido;
+        if (actual == null) {
+            synchronized (FeedCambiosReservas.class) {
+                actual = compartido;
+                if (actual == null) {
+                    actual = new FeedCambiosReservas(tamanoHistorial, suscriptoresMaximo, latidoMs);
+                    compartido = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    // --- Publicación (desde las rutas de escritura, tras confirmar) ---
+
+    public void publicarCreada(ReservaMesa reserva) {
+        publicar(CambioReserva.Tipo.CREADA, reserva.getId(), reserva.getFechaReserva(), new ReservaMesa(reserva));
+    }
+
+    public void publicarActualizada(ReservaMesa reserva) {
+        publicar(CambioReserva.Tipo.ACTUALIZADA, reserva.getId(), reserva.getFechaReserva(), new ReservaMesa(reserva));
+    }
+
+    /**
+     * @param fecha Día de la reserva eliminada, o null si no se conoce.
+     */
+    public void publicarEliminada(int id, LocalDate fecha) {
+        publicar(CambioReserva.Tipo.ELIMINADA, id, fecha, null);
+    }
+
+    /**
+     * Publica que un día cambió sin saber qué reserva (p. ej. un alta cuyo ID no devolvió el DAO).
+     */
+    public void publicarDiaModificado(LocalDate fecha) {
+        publicar(CambioReserva.Tipo.DIA_MODIFICADO, 0, fecha, null);
+    }
+
+    /**
+     * Publica un cambio en bloque (p. ej. una importación masiva) que no se detalla reserva a reserva.
+     */
+    public void publicarRecarga() {
+        publicar(CambioReserva.Tipo.RECARGA, 0, null, null);
+    }
+
+    /**
+     * Publica que se retuvo una mesa para una entrada de la lista de espera (con hora ofrecida y vencimiento).
+     */
+    public void publicarOfertaEspera(EntradaEspera entrada) {
+        publicar(CambioReserva.Tipo.OFERTA_ESPERA, 0, entrada.getFechaReserva(), null, new EntradaEspera(entrada));
+    }
+
+    private void publicar(CambioReserva.Tipo tipo, int reservaId, LocalDate fecha, ReservaMesa reserva) {
+        publicar(tipo, reservaId, fecha, reserva, null);
+    }
+
+    private void publicar(CambioReserva.Tipo tipo, int reservaId, LocalDate fecha, ReservaMesa reserva,
+                          EntradaEspera entradaEspera) {
+        candado.lock();
+        try {
+            CambioReserva cambio = new CambioReserva(ultimoId + 1, tipo, reservaId, fecha, reserva, entradaEspera);
+            anillo[posicion(cambio.getId())] = cambio;
+            ultimoId = cambio.getId();
+            hayCambios.signalAll();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    // --- Suscripción ---
+
+    /**
+     * Suscribe un receptor a partir del evento siguiente a ultimoIdVisto.
+     *
+     * @param ultimoIdVisto Último ID recibido por el cliente (cabecera Last-Event-ID), o null para recibir
+     *                      solo los cambios desde ahora.
+     * @param receptor Destino de los eventos; se invoca siempre desde el hilo de la suscripción.
+     * @return La suscripción, que debe cerrarse cuando el cliente se desconecta.
+     * @throws IllegalStateException Si se alcanzó casacaribe.feed.suscriptoresMaximo.
+     */
+    public Suscripcion suscribir(Long ultimoIdVisto, Receptor receptor) {
+        if (suscripciones.size() >= suscriptoresMaximo) {
+            throw new IllegalStateException("Se alcanzó el máximo de " + suscriptoresMaximo + " suscriptores al flujo de cambios.");
+        }
+        long siguiente;
+        candado.lock();
+        try {
+            // Un ID mayor que el último publicado no puede venir de este servidor: se trata como perdido
+            siguiente = (ultimoIdVisto == null) ? ultimoId + 1
+                    : (ultimoIdVisto <= ultimoId ? ultimoIdVisto + 1 : Long.MIN_VALUE);
+        } finally {
+            candado.unlock();
+        }
+        Suscripcion suscripcion = new Suscripcion(receptor, siguiente);
+        suscripciones.add(suscripcion);
+        Thread.ofVirtual().name("casacaribe-feed-" + SECUENCIA_HILOS.incrementAndGet()).start(suscripcion::atender);
+        return suscripcion;
+    }
+
+    /**
+     * @return ID del último cambio publicado: cambia con cada escritura y sirve de sello de la colección.
+     */
+    public long getUltimoId() {
+        return ultimoId;
+    }
+
+    /**
+     * @return Número de suscripciones abiertas.
+     */
+    public int getSuscriptores() {
+        return suscripciones.size();
+    }
+
+    /**
+     * Cierra todas las suscripciones (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.cerrar();
+        }
+    }
+
+    private int posicion(long id) {
+        return (int) Math.floorMod(id, (long) anillo.length);
+    }
+
+    // Primer ID que todavía está en el anillo; protegido por candado
+    private long primerIdDisponible() {
+        return Math.max(primerId, ultimoId - anillo.length + 1);
+    }
+
+    /**
+     * Destino de los eventos de una suscripción (una respuesta SSE, por ejemplo).
+     * Una IOException en cualquier método cierra la suscripción.
+     */
+    public interface Receptor {
+
+        void enviar(CambioReserva cambio) throws IOException;
+
+        /**
+         * El cliente perdió cambios: debe recargar el listado completo y continuar a partir de ultimoId.
+         */
+        void reiniciar(long ultimoId) throws IOException;
+
+        /**
+         * Sin cambios durante casacaribe.feed.latidoMs: mantiene viva la conexión y detecta clientes caídos.
+         */
+        void latido() throws IOException;
+
+        /**
+         * La suscripción terminó; se invoca una sola vez.
+         */
+        void cerrar();
+    }
+
+    /**
+     * Suscripción de un receptor, con su cursor sobre el anillo.
+     */
+    public final class Suscripcion {
+        private static final int LOTE_MAXIMO = 256;
+
+        private final Receptor receptor;
+        private volatile boolean abierta = true;
+        private long siguiente; // solo lo usa el hilo de la suscripción
+
+        private Suscripcion(Receptor receptor, long siguiente) {
+            this.receptor = receptor;
+            this.siguiente = siguiente;
+        }
+
+        /**
+         * Cierra la suscripción; su hilo termina y llama a Receptor.cerrar().
+         */
+        public void cerrar() {
+            abierta = false;
+            candado.lock();
+            try {
+                hayCambios.signalAll();
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        private void atender() {
+            List<CambioReserva> lote = new ArrayList<>();
+            try {
+                while (abierta) {
+                    long reinicioEn = -1;
+                    boolean sinCambios = false;
+                    lote.clear();
+                    candado.lock();
+                    try {
+                        if (siguiente > ultimoId && abierta) {
+                            sinCambios = !hayCambios.await(latidoMs, TimeUnit.MILLISECONDS) && siguiente > ultimoId;
+                        }
+                        if (siguiente < primerIdDisponible() && siguiente <= ultimoId) {
+                            reinicioEn = ultimoId;
+                            siguiente = ultimoId + 1;
+                        } else {
+                            for (long id = siguiente; id <= ultimoId && lote.size() < LOTE_MAXIMO; id++) {
+                                lote.add(anillo[posicion(id)]);
+                            }
+                            siguiente += lote.size();
+                        }
+                    } finally {
+                        candado.unlock();
+                    }
+
+                    // El envío se hace fuera del candado: un cliente lento no retrasa a los escritores
+                    if (!abierta) {
+                        break;
+                    }
+                    if (reinicioEn >= 0) {
+                        receptor.reiniciar(reinicioEn);
+                    } else if (sinCambios) {
+                        receptor.latido();
+                    }
+                    for (CambioReserva cambio : lote) {
+                        receptor.enviar(cambio);
+                    }
+                }
+            } catch (IOException e) {
+                // Cliente desconectado
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                abierta = false;
+                suscripciones.remove(this);
+                receptor.cerrar();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.casacaribe.reservas.repository;
+
+import java.util.Locale;
+
+/**
+ * Formatos de archivo de la exportación e importación masivas de reservas.
+ */
+public enum FormatoDatos {
+
+    /** CSV con encabezado (RFC 4180), columnas con los nombres de la tabla. */
+    CSV("text/csv"),
+
+    /** Un objeto JSON por línea, con los mismos campos que la API REST. */
+    NDJSON("application/x-ndjson");
+
+    private final String tipoContenido;
+
+    FormatoDatos(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    /**
+     * @return Tipo MIME del formato.
+     */
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    /**
+     * Resuelve el parámetro "formato" de la API.
+     *
+     * @param formato "csv", "ndjson" o null (ndjson).
+     * @return El formato correspondiente.
+     * @throws IllegalArgumentException Si el formato no existe.
+     */
+    public static FormatoDatos desdeNombre(String formato) {
+        if (formato == null || formato.isEmpty()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato no válido: " + formato, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.casacaribe.reservas.repository;
+
+import java.io.IOException;
+
+/**
+ * Origen de filas que se entregan una a una a un ProcesadorFila (p. ej. un archivo que se importa
+ * en streaming). Es el inverso de ProcesadorFila: quien escribe en la base de datos pide las filas
+ * y la fuente las va produciendo sin materializarlas todas en memoria.
+ *
+ * @param <T> Tipo de objeto de cada fila.
+ */
+@FunctionalInterface
+public interface FuenteFilas<T> {
+
+    /**
+     * Entrega todas las filas de la fuente al destino, en orden.
+     *
+     * @param destino Receptor de cada fila.
+     * @throws IOException Si falla la lectura de la fuente o la escritura en el destino.
+     */
+    void recorrer(ProcesadorFila<T> destino) throws IOException;
+}
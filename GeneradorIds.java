@@ -0,0 +1,21 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: GeneradorIds.java
+    * Descripción: Contrato de los generadores de identificadores de reservas.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+/**
+ * Genera identificadores únicos para entidades nuevas antes de insertarlas.
+ * Las implementaciones deben ser seguras entre hilos.
+ */
+@FunctionalInterface
+public interface GeneradorIds {
+
+    /**
+     * @return Un identificador que no se ha entregado antes.
+     * @throws IllegalStateException Si no se pudo reservar un nuevo bloque de identificadores.
+     */
+    int siguienteId();
+}
@@ -0,0 +1,99 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: GeneradorIdsHiLo.java
+    * Descripción: Generador de IDs por bloques (hi-lo) reservados a una secuencia de PostgreSQL.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de IDs hi-lo: cada llamada a nextval() de la secuencia reserva un bloque completo
+ * [valor, valor + incremento), que luego se reparte en memoria con un incremento atómico.
+ *
+ * La secuencia debe tener un INCREMENT BY igual al tamaño de bloque deseado (ver esquema.sql);
+ * el tamaño se lee de la propia secuencia, por lo que varios nodos y el DEFAULT de la columna
+ * comparten la secuencia sin solaparse. Solo el hilo que agota el bloque consulta la base de datos.
+ */
+public class GeneradorIdsHiLo implements GeneradorIds {
+
+    private static final String SQL_RESERVAR_BLOQUE = "SELECT nextval(?::regclass), increment_by FROM pg_sequences "
+            + "WHERE schemaname = current_schema() AND sequencename = ?";
+
+    private static final GeneradorIdsHiLo RESERVAS = new GeneradorIdsHiLo("reservas_id_seq");
+
+    private final String secuencia;
+    private volatile Bloque bloque = new Bloque(0, 0);
+
+    public GeneradorIdsHiLo(String secuencia) {
+        this.secuencia = secuencia;
+    }
+
+    /**
+     * @return El generador compartido de IDs de la tabla reservas (uno por proceso).
+     */
+    public static GeneradorIdsHiLo reservas() {
+        return RESERVAS;
+    }
+
+    @Override
+    public int siguienteId() {
+        while (true) {
+            Bloque actual = bloque;
+            int id = actual.siguiente.getAndIncrement();
+            if (id < actual.fin) {
+                return id;
+            }
+            synchronized (this) {
+                // Otro hilo pudo haber reservado un bloque nuevo mientras se esperaba el monitor
+                if (bloque == actual) {
+                    bloque = reservarBloque();
+                }
+            }
+        }
+    }
+
+    private Bloque reservarBloque() {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_RESERVAR_BLOQUE);
+            ps.setString(1, secuencia);
+            ps.setString(2, secuencia);
+            rs = ps.executeQuery();
+            if (!rs.next()) {
+                throw new IllegalStateException("No existe la secuencia " + secuencia + ".");
+            }
+            long inicio = rs.getLong(1);
+            long tamano = Math.max(1, rs.getLong(2));
+            return new Bloque((int) inicio, (int) Math.min(Integer.MAX_VALUE, inicio + tamano));
+        } catch (SQLException e) {
+            System.err.println("ERROR al reservar un bloque de IDs de " + secuencia + ": " + e.getMessage());
+            throw new IllegalStateException("No se pudo reservar un bloque de IDs.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Rango [inicio, fin) reservado en la secuencia.
+     */
+    private static final class Bloque {
+        private final AtomicInteger siguiente;
+        private final int fin;
+
+        private Bloque(int inicio, int fin) {
+            this.siguiente = new AtomicInteger(inicio);
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: HilosVirtuales.java
+    * Descripción: Modo opcional de ejecución de peticiones sobre hilos virtuales (Java 21).
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Punto único de configuración del modo de hilos virtuales.
+ * Se activa con -Dcasacaribe.hilosVirtuales.habilitado=true.
+ *
+ * Con el modo activo, las peticiones del servlet y del controlador REST se atienden en hilos virtuales,
+ * de modo que una consulta JDBC bloqueada no retiene un hilo de plataforma del contenedor.
+ * El número de operaciones de base de datos simultáneas queda acotado por el pool de ConexionDB
+ * (casacaribe.db.pool.maximo); el resto de hilos virtuales espera su turno, como máximo
+ * casacaribe.db.pool.esperaMs, en lugar de abrir más conexiones.
+ */
+public final class HilosVirtuales {
+
+    private static final boolean HABILITADO =
+            Boolean.parseBoolean(System.getProperty("casacaribe.hilosVirtuales.habilitado", "false"));
+
+    private static volatile ExecutorService ejecutor;
+
+    private HilosVirtuales() {
+    }
+
+    /**
+     * @return true si las peticiones deben atenderse en hilos virtuales.
+     */
+    public static boolean isHabilitado() {
+        return HABILITADO;
+    }
+
+    /**
+     * Retorna el ejecutor compartido que crea un hilo virtual por tarea.
+     *
+     * @return Ejecutor de hilos virtuales.
+     * @throws IllegalStateException Si el modo no está habilitado.
+     */
+    public static ExecutorService ejecutor() {
+        if (!HABILITADO) {
+            throw new IllegalStateException("El modo de hilos virtuales no está habilitado.");
+        }
+        ExecutorService actual = ejecutor;
+        if (actual == null) {
+            synchronized (HilosVirtuales.class) {
+                actual = ejecutor;
+                if (actual == null) {
+                    actual = Executors.newThreadPerTaskExecutor(
+                            Thread.ofVirtual().name("casacaribe-virtual-", 0).factory());
+                    ejecutor = actual;
+                }
+            }
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,126 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: HistogramaLatencia.java
+    * Descripción: Histograma de latencias de registro concurrente y sin asignación de memoria.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma log-lineal de latencias en nanosegundos.
+ * Cada potencia de dos se divide en 32 sub-cubos (error relativo máximo ~3%),
+ * lo que cubre desde 1 ns hasta varios siglos con menos de 2.000 contadores.
+ * Registrar una muestra es un incremento atómico: no hay bloqueos ni asignación de objetos.
+ */
+public class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBO = 5;
+    private static final int SUBCUBOS = 1 << BITS_SUBCUBO;
+    private static final int CUBOS = SUBCUBOS + (63 - BITS_SUBCUBO) * SUBCUBOS;
+
+    private final AtomicLongArray contadores = new AtomicLongArray(CUBOS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong suma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra una muestra.
+     *
+     * @param nanos Latencia en nanosegundos (los valores negativos se registran como 0).
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contadores.incrementAndGet(indice(valor));
+        total.incrementAndGet();
+        suma.addAndGet(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getSumaNanos() {
+        return suma.get();
+    }
+
+    public long getMaximoNanos() {
+        return maximo.get();
+    }
+
+    /**
+     * @return Latencia media en nanosegundos, o 0 si no hay muestras.
+     */
+    public double getMediaNanos() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) suma.get() / n;
+    }
+
+    /**
+     * Calcula un percentil aproximado (límite superior del cubo que lo contiene).
+     *
+     * @param percentil Valor entre 0 y 100 (p. ej. 99.9).
+     * @return Latencia en nanosegundos, o 0 si no hay muestras.
+     */
+    public long percentil(double percentil) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBOS; i++) {
+            acumulado += contadores.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * @return Número de cubos del histograma.
+     */
+    public static int getNumeroCubos() {
+        return CUBOS;
+    }
+
+    /**
+     * @param cubo Índice del cubo.
+     * @return Número de muestras registradas en ese cubo.
+     */
+    public long getContador(int cubo) {
+        return contadores.get(cubo);
+    }
+
+    /**
+     * @param cubo Índice del cubo.
+     * @return Mayor valor (en nanosegundos) que se registra en ese cubo.
+     */
+    public static long limiteSuperior(int cubo) {
+        if (cubo < SUBCUBOS) {
+            return cubo;
+        }
+        int magnitud = (cubo - SUBCUBOS) / SUBCUBOS + BITS_SUBCUBO;
+        int sub = (cubo - SUBCUBOS) % SUBCUBOS;
+        long desplazamiento = magnitud - BITS_SUBCUBO;
+        long siguiente = (long) (SUBCUBOS + sub + 1) << desplazamiento;
+        return siguiente <= 0 ? Long.MAX_VALUE : siguiente - 1;
+    }
+
+    /**
+     * @param valor Latencia en nanosegundos (no negativa).
+     * @return Índice del cubo donde se registra.
+     */
+    static int indice(long valor) {
+        if (valor < SUBCUBOS) {
+            return (int) valor;
+        }
+        int magnitud = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (magnitud - BITS_SUBCUBO)) & (SUBCUBOS - 1);
+        return SUBCUBOS + (magnitud - BITS_SUBCUBO) * SUBCUBOS + sub;
+    }
+}
@@ -0,0 +1,177 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.Metricas;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Persistencia de las claves de idempotencia de las altas (tabla claves_idempotencia) con JDBC puro.
+ * La clave primaria garantiza que, entre todas las instancias, solo una petición reclama cada clave.
+ */
+public class IdempotenciaRepository {
+
+    // Una clave en curso más antigua que el plazo se da por abandonada (p. ej. la instancia cayó) y puede reclamarse
+    private static final String SQL_RECLAMAR = "INSERT INTO claves_idempotencia (clave, huella) VALUES (?, ?) "
+            + "ON CONFLICT (clave) DO UPDATE SET huella = EXCLUDED.huella, creada_en = now() "
+            + "WHERE claves_idempotencia.reserva_id IS NULL "
+            + "AND claves_idempotencia.creada_en < now() - make_interval(secs => ?) RETURNING clave";
+    private static final String SQL_SELECT = "SELECT huella, reserva_id FROM claves_idempotencia WHERE clave = ?";
+    private static final String SQL_COMPLETAR = "UPDATE claves_idempotencia SET reserva_id = ? WHERE clave = ?";
+    private static final String SQL_LIBERAR = "DELETE FROM claves_idempotencia WHERE clave = ? AND reserva_id IS NULL";
+    private static final String SQL_PURGAR = "DELETE FROM claves_idempotencia WHERE creada_en < now() - make_interval(secs => ?)";
+
+    private static final Metricas.Temporizador T_RECLAMAR = Metricas.temporizador("repositorio", "reclamarClaveIdempotencia");
+    private static final Metricas.Temporizador T_CONSULTAR = Metricas.temporizador("repositorio", "consultarClaveIdempotencia");
+    private static final Metricas.Temporizador T_ESCRIBIR = Metricas.temporizador("repositorio", "escribirClaveIdempotencia");
+    private static final Metricas.Temporizador T_PURGAR = Metricas.temporizador("repositorio", "purgarClavesIdempotencia");
+
+    /**
+     * Reclama una clave para ejecutar el alta que protege.
+     *
+     * @param huella Resumen de los datos de la petición.
+     * @param abandonoSegundos Antigüedad a partir de la cual una clave en curso se considera abandonada.
+     * @return true si la clave era nueva (o estaba abandonada) y ahora pertenece a esta petición.
+     * @throws IllegalStateException Si no se pudo acceder a la base de datos.
+     */
+    public boolean reclamar(String clave, String huella, long abandonoSegundos) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_RECLAMAR);
+            ps.setString(1, clave);
+            ps.setString(2, huella);
+            ps.setLong(3, abandonoSegundos);
+            rs = ps.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            T_RECLAMAR.error();
+            System.err.println("ERROR en reclamarClaveIdempotencia: " + e.getMessage());
+            throw new IllegalStateException("No se pudo registrar la clave de idempotencia.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_RECLAMAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * @return La clave registrada, o vacío si no existe.
+     * @throws IllegalStateException Si no se pudo acceder a la base de datos.
+     */
+    public Optional<Registro> consultar(String clave) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_SELECT);
+            ps.setString(1, clave);
+            rs = ps.executeQuery();
+            return rs.next() ? Optional.of(new Registro(rs.getString(1), (Integer) rs.getObject(2))) : Optional.empty();
+        } catch (SQLException e) {
+            T_CONSULTAR.error();
+            System.err.println("ERROR en consultarClaveIdempotencia: " + e.getMessage());
+            throw new IllegalStateException("No se pudo consultar la clave de idempotencia.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Asocia la clave con la reserva creada.
+     *
+     * @throws IllegalStateException Si no se pudo acceder a la base de datos (la clave sigue en curso).
+     */
+    public void completar(String clave, int reservaId) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_COMPLETAR);
+            ps.setInt(1, reservaId);
+            ps.setString(2, clave);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            T_ESCRIBIR.error();
+            System.err.println("ERROR en completarClaveIdempotencia: " + e.getMessage());
+            throw new IllegalStateException("No se pudo completar la clave de idempotencia.", e);
+        } finally {
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_ESCRIBIR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Libera una clave en curso cuyo alta falló, para que un reintento pueda volver a intentarla.
+     */
+    public void liberar(String clave) {
+        ejecutar(T_ESCRIBIR, SQL_LIBERAR, clave);
+    }
+
+    /**
+     * Borra las claves más antiguas que el plazo de conservación.
+     *
+     * @return Número de claves borradas.
+     */
+    public int purgarAnteriores(long segundos) {
+        return ejecutar(T_PURGAR, SQL_PURGAR, segundos);
+    }
+
+    private static int ejecutar(Metricas.Temporizador temporizador, String sql, Object... parametros) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(sql);
+            for (int i = 0; i < parametros.length; i++) {
+                ps.setObject(i + 1, parametros[i]);
+            }
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            temporizador.error();
+            System.err.println("ERROR en claves de idempotencia: " + e.getMessage());
+            return 0;
+        } finally {
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            temporizador.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Clave registrada: huella de la petición original y reserva creada (null mientras el alta está en curso).
+     */
+    public static final class Registro {
+        private final String huella;
+        private final Integer reservaId;
+
+        public Registro(String huella, Integer reservaId) {
+            this.huella = huella;
+            this.reservaId = reservaId;
+        }
+
+        public String getHuella() {
+            return huella;
+        }
+
+        public Integer getReservaId() {
+            return reservaId;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.Disponibilidad;
+import com.casacaribe.reservas.modelo.EstadoReserva;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ProyeccionReserva;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice en memoria de la ocupación por fecha y franja horaria.
+ * Guarda cubiertos sentados y mesas ocupadas en arreglos primitivos (una celda por franja de 15 minutos),
+ * de modo que responder "¿cabe este grupo?" cuesta lo mismo sin importar el tamaño de la tabla reservas.
+ * Las escrituras se sincronizan por día con candados segmentados: reservas de días distintos no compiten.
+ *
+ * El horizonte (ayer más diasHorizonte - 1 días) avanza solo: cada REVISION_HORIZONTE_MINUTOS se comprueba
+ * la fecha y, si cambió, se descarta el día más antiguo y se carga de la base de datos el día que entra,
+ * sin recargar el resto ni reemplazar el índice (ver desplazarHorizonte()).
+ */
+@Component
+public class IndiceDisponibilidad {
+
+    private static final int MINUTOS_FRANJA = 15;
+    private static final int FRANJAS_DIA = 24 * 60 / MINUTOS_FRANJA;
+    private static final int SEGMENTOS_CANDADO = 64;
+    private static final long REVISION_HORIZONTE_MINUTOS = 10;
+
+    private final ReservaRepository reservaRepository;
+    private final int capacidadCubiertos;
+    private final int capacidadMesas;
+    private final int franjasTurno;
+    private final int diasHorizonte;
+    private final Object[] candados = new Object[SEGMENTOS_CANDADO];
+    // Serializa la carga completa y el desplazamiento del horizonte entre sí
+    private final Object candadoHorizonte = new Object();
+    private ScheduledExecutorService revisionHorizonte;
+
+    // Se reemplaza completo al recalentar; las escrituras se hacen sobre la instancia vigente
+    private volatile Ocupacion ocupacion;
+
+    @Autowired
+    public IndiceDisponibilidad(ReservaRepository reservaRepository,
+                                @Value("${casacaribe.capacidad.cubiertos:60}") int capacidadCubiertos,
+                                @Value("${casacaribe.capacidad.mesas:15}") int capacidadMesas,
+                                @Value("${casacaribe.capacidad.turnoMinutos:120}") int duracionTurnoMinutos,
+                                @Value("${casacaribe.capacidad.diasHorizonte:400}") int diasHorizonte) {
+        this.reservaRepository = reservaRepository;
+        this.capacidadCubiertos = capacidadCubiertos;
+        this.capacidadMesas = capacidadMesas;
+        this.franjasTurno = Math.max(1, (duracionTurnoMinutos + MINUTOS_FRANJA - 1) / MINUTOS_FRANJA);
+        this.diasHorizonte = diasHorizonte;
+        for (int i = 0; i < SEGMENTOS_CANDADO; i++) {
+            candados[i] = new Object();
+        }
+        this.ocupacion = new Ocupacion(LocalDate.now().minusDays(1).toEpochDay(), diasHorizonte);
+    }
+
+    /**
+     * Construye el índice a partir de propiedades del sistema (para uso fuera de Spring).
+     */
+    public static IndiceDisponibilidad desdePropiedadesSistema(ReservaRepository reservaRepository) {
+        return new IndiceDisponibilidad(reservaRepository,
+                Integer.getInteger("casacaribe.capacidad.cubiertos", 60),
+                Integer.getInteger("casacaribe.capacidad.mesas", 15),
+                Integer.getInteger("casacaribe.capacidad.turnoMinutos", 120),
+                Integer.getInteger("casacaribe.capacidad.diasHorizonte", 400));
+    }
+
+    /**
+     * Reconstruye el índice a partir de la tabla reservas (al iniciar la aplicación) y programa
+     * el desplazamiento diario del horizonte.
+     * Recorre la tabla en streaming; las reservas canceladas no ocupan capacidad.
+     * Reemplaza el índice completo: las reservas hechas durante la carga se pierden, así que no debe
+     * llamarse con la aplicación atendiendo peticiones.
+     */
+    @PostConstruct
+    public void calentar() {
+        synchronized (candadoHorizonte) {
+            LocalDate primerDia = LocalDate.now().minusDays(1);
+            Ocupacion nueva = new Ocupacion(primerDia.toEpochDay(), diasHorizonte);
+            try {
+                // Solo las particiones desde el primer día del índice: las reservas pasadas no cuentan
+                long total = reservaRepository.recorrerDesde(primerDia, reserva -> {
+                    if (ocupaCapacidad(reserva.getEstado())) {
+                        nueva.sumar(reserva.getFechaReserva(), reserva.getHoraReserva(), reserva.getNumPersonas(), 1, franjasTurno);
+                    }
+                }, ProyeccionReserva.RESUMEN); // Sin datos de contacto: solo fecha, hora, personas y estado
+                ocupacion = nueva;
+                System.out.println("Índice de disponibilidad cargado con " + total + " reservas.");
+            } catch (IOException e) {
+                System.err.println("No se pudo cargar el índice de disponibilidad: " + e.getMessage());
+            }
+            if (revisionHorizonte == null) {
+                revisionHorizonte = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "casacaribe-indice-horizonte");
+                    t.setDaemon(true);
+                    return t;
+                });
+                revisionHorizonte.scheduleWithFixedDelay(this::desplazarSinPropagar,
+                        REVISION_HORIZONTE_MINUTOS, REVISION_HORIZONTE_MINUTOS, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    /**
+     * Avanza el horizonte hasta que su primer día sea ayer, un día a la vez y sin detener las reservas:
+     * el día que sale se descarta y el que entra se lee de la base de datos con su candado tomado,
+     * de modo que las reservas de ese día esperan a la carga en lugar de perderse o contarse dos veces.
+     * Una reserva de ese día guardada justo antes de la carga, sin pasar por el índice porque entonces
+     * estaba fuera del horizonte, puede no contarse (lo mismo que con calentar()).
+     *
+     * @return Número de días desplazados.
+     * @throws IllegalStateException Si no se pudo leer un día nuevo (el horizonte queda donde estaba).
+     */
+    public int desplazarHorizonte() {
+        synchronized (candadoHorizonte) {
+            Ocupacion actual = ocupacion;
+            long objetivo = LocalDate.now().minusDays(1).toEpochDay();
+            if (objetivo - actual.diaBase >= diasHorizonte) {
+                // Más días que el horizonte completo: no queda nada que conservar
+                calentar();
+                return (int) Math.min(Integer.MAX_VALUE, objetivo - actual.diaBase);
+            }
+            int desplazados = 0;
+            while (actual.diaBase < objetivo) {
+                LocalDate entrante = LocalDate.ofEpochDay(actual.diaBase + diasHorizonte);
+                synchronized (candado(entrante)) {
+                    Franjas saliente = actual.abrir(entrante.toEpochDay());
+                    try {
+                        for (ReservaMesa reserva : reservaRepository.consultarPorFecha(entrante, ProyeccionReserva.RESUMEN)) {
+                            if (ocupaCapacidad(reserva.getEstado())) {
+                                actual.sumar(reserva.getFechaReserva(), reserva.getHoraReserva(), reserva.getNumPersonas(), 1, franjasTurno);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        actual.cerrar(saliente);
+                        throw e;
+                    }
+                }
+                desplazados++;
+            }
+            return desplazados;
+        }
+    }
+
+    /**
+     * Detiene la revisión periódica del horizonte (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        synchronized (candadoHorizonte) {
+            if (revisionHorizonte != null) {
+                revisionHorizonte.shutdownNow();
+            }
+        }
+    }
+
+    private void desplazarSinPropagar() {
+        try {
+            int desplazados = desplazarHorizonte();
+            if (desplazados > 0) {
+                System.out.println("Horizonte del índice de disponibilidad desplazado " + desplazados + " días.");
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las revisiones siguientes; se reintenta en la próxima
+            System.err.println("No se pudo desplazar el horizonte del índice de disponibilidad: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Consulta si un grupo cabe en la fecha y hora indicadas, sin reservar.
+     *
+     * @return La disponibilidad, con los cupos restantes de la franja más llena del turno.
+     */
+    public Disponibilidad consultar(LocalDate fecha, LocalTime hora, int numPersonas) {
+        Ocupacion actual = ocupacion;
+        if (!actual.contiene(fecha)) {
+            // Fuera del horizonte no se lleva registro: no se limita la reserva
+            return new Disponibilidad(fecha, hora, numPersonas, true, capacidadCubiertos, capacidadMesas);
+        }
+        synchronized (candado(fecha)) {
+            int cubiertosRestantes = capacidadCubiertos - actual.maximoCubiertos(fecha, hora, franjasTurno);
+            int mesasRestantes = capacidadMesas - actual.maximoMesas(fecha, hora, franjasTurno);
+            boolean disponible = numPersonas <= cubiertosRestantes && mesasRestantes >= 1;
+            return new Disponibilidad(fecha, hora, numPersonas, disponible, cubiertosRestantes, mesasRestantes);
+        }
+    }
+
+    /**
+     * Reserva capacidad de forma atómica: comprueba y descuenta en un solo paso.
+     *
+     * @return true si el grupo cabía y la capacidad quedó reservada; false si no hay cupo.
+     */
+    public boolean reservar(LocalDate fecha, LocalTime hora, int numPersonas) {
+        Ocupacion actual = ocupacion;
+        if (!actual.contiene(fecha)) {
+            return true;
+        }
+        synchronized (candado(fecha)) {
+            if (actual.maximoCubiertos(fecha, hora, franjasTurno) + numPersonas > capacidadCubiertos
+                    || actual.maximoMesas(fecha, hora, franjasTurno) + 1 > capacidadMesas) {
+                return false;
+            }
+            actual.sumar(fecha, hora, numPersonas, 1, franjasTurno);
+            return true;
+        }
+    }
+
+    /**
+     * Registra la ocupación de una reserva sin comprobar capacidad (p. ej. al deshacer una liberación).
+     */
+    public void forzar(LocalDate fecha, LocalTime hora, int numPersonas) {
+        Ocupacion actual = ocupacion;
+        if (actual.contiene(fecha)) {
+            synchronized (candado(fecha)) {
+                actual.sumar(fecha, hora, numPersonas, 1, franjasTurno);
+            }
+        }
+    }
+
+    /**
+     * Libera la capacidad ocupada por una reserva eliminada, cancelada o modificada.
+     */
+    public void liberar(LocalDate fecha, LocalTime hora, int numPersonas) {
+        Ocupacion actual = ocupacion;
+        if (actual.contiene(fecha)) {
+            synchronized (candado(fecha)) {
+                actual.sumar(fecha, hora, -numPersonas, -1, franjasTurno);
+            }
+        }
+    }
+
+    /**
+     * Atajo para liberar la capacidad de una reserva existente, si la estaba ocupando.
+     */
+    public void liberar(ReservaMesa reserva) {
+        if (ocupaCapacidad(reserva.getEstado())) {
+            liberar(reserva.getFechaReserva(), reserva.getHoraReserva(), reserva.getNumPersonas());
+        }
+    }
+
+    /**
+     * @param estado Estado de la reserva.
+     * @return true si una reserva en ese estado ocupa mesa (todas salvo las canceladas).
+     */
+    public static boolean ocupaCapacidad(String estado) {
+        return !EstadoReserva.CANCELADA.getEtiqueta().equalsIgnoreCase(estado);
+    }
+
+    private Object candado(LocalDate fecha) {
+        return candados[(int) (fecha.toEpochDay() & (SEGMENTOS_CANDADO - 1))];
+    }
+
+    /**
+     * Ocupación de una ventana de días a partir de diaBase, como anillo con un bloque de franjas por día:
+     * al desplazar el horizonte, el día que entra toma el lugar del que sale con un bloque nuevo, así que
+     * una escritura rezagada sobre el día que salió nunca alcanza al que entró.
+     */
+    private static final class Ocupacion {
+        private final Franjas[] anillo;
+        // Solo lo cambia desplazarHorizonte(); se escribe después del bloque que publica
+        private volatile long diaBase;
+
+        private Ocupacion(long diaBase, int dias) {
+            this.anillo = new Franjas[dias];
+            for (long epoch = diaBase; epoch < diaBase + dias; epoch++) {
+                anillo[posicion(epoch)] = new Franjas(epoch);
+            }
+            this.diaBase = diaBase;
+        }
+
+        private int posicion(long epoch) {
+            return (int) Math.floorMod(epoch, (long) anillo.length);
+        }
+
+        private boolean contiene(LocalDate fecha) {
+            long desplazamiento = fecha.toEpochDay() - diaBase;
+            return desplazamiento >= 0 && desplazamiento < anillo.length;
+        }
+
+        // null si el día no está (o ya no está) en el horizonte
+        private Franjas franjas(LocalDate fecha) {
+            long epoch = fecha.toEpochDay();
+            Franjas franjas = anillo[posicion(epoch)];
+            return franjas != null && franjas.epoch == epoch && contiene(fecha) ? franjas : null;
+        }
+
+        /**
+         * Con el candado del día que entra tomado: lo publica vacío en el lugar del día más antiguo.
+         * @return El bloque del día que sale, para deshacer con cerrar().
+         */
+        private Franjas abrir(long epoch) {
+            int i = posicion(epoch);
+            Franjas saliente = anillo[i];
+            anillo[i] = new Franjas(epoch);
+            diaBase = diaBase + 1;
+            return saliente;
+        }
+
+        private void cerrar(Franjas saliente) {
+            diaBase = diaBase - 1;
+            anillo[posicion(saliente.epoch)] = saliente;
+        }
+
+        private static int inicio(LocalTime hora) {
+            return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_FRANJA;
+        }
+
+        private static int fin(int inicio, int franjasTurno) {
+            // El turno no se extiende más allá de la medianoche
+            return Math.min(inicio + franjasTurno, FRANJAS_DIA);
+        }
+
+        private void sumar(LocalDate fecha, LocalTime hora, int deltaCubiertos, int deltaMesas, int franjasTurno) {
+            Franjas franjas = franjas(fecha);
+            if (franjas == null) {
+                return;
+            }
+            int inicio = inicio(hora);
+            int fin = fin(inicio, franjasTurno);
+            for (int i = inicio; i < fin; i++) {
+                franjas.cubiertos[i] = Math.max(0, franjas.cubiertos[i] + deltaCubiertos);
+                franjas.mesas[i] = Math.max(0, franjas.mesas[i] + deltaMesas);
+            }
+        }
+
+        private int maximoCubiertos(LocalDate fecha, LocalTime hora, int franjasTurno) {
+            Franjas franjas = franjas(fecha);
+            return franjas == null ? 0 : maximo(franjas.cubiertos, inicio(hora), franjasTurno);
+        }
+
+        private int maximoMesas(LocalDate fecha, LocalTime hora, int franjasTurno) {
+            Franjas franjas = franjas(fecha);
+            return franjas == null ? 0 : maximo(franjas.mesas, inicio(hora), franjasTurno);
+        }
+
+        private static int maximo(int[] celdas, int inicio, int franjasTurno) {
+            int fin = fin(inicio, franjasTurno);
+            int maximo = 0;
+            for (int i = inicio; i < fin; i++) {
+                maximo = Math.max(maximo, celdas[i]);
+            }
+            return maximo;
+        }
+    }
+
+    /**
+     * Cubiertos sentados y mesas ocupadas en cada franja de un día. Se modifica solo con el candado del día tomado.
+     */
+    private static final class Franjas {
+        private final long epoch;
+        private final int[] cubiertos = new int[FRANJAS_DIA];
+        private final int[] mesas = new int[FRANJAS_DIA];
+
+        private Franjas(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.casacaribe.reservas.config;
+
+import com.casacaribe.reservas.util.ControlAdmision;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aplica el control de admisión a las acciones de los controladores REST: una petición admitida conserva su
+ * permiso hasta terminar (también si la respuesta se escribe de forma asíncrona, como en una exportación),
+ * y una rechazada recibe 503 con Retry-After sin llegar al controlador.
+ *
+ * La clase de operación se decide por el nombre del método del controlador y, si no está en la tabla,
+ * por el verbo HTTP: POST es un alta, GET una consulta puntual y el resto una modificación.
+ */
+public class InterceptorAdmision implements AsyncHandlerInterceptor {
+
+    private static final String ATRIBUTO_PERMISO = InterceptorAdmision.class.getName() + ".permiso";
+    private static final String ATRIBUTO_INICIO = InterceptorAdmision.class.getName() + ".inicio";
+
+    // Acciones cuya clase no se deduce del verbo; null = sin control (el flujo de cambios no usa la base de datos por evento)
+    private static final Map<String, ControlAdmision.Clase> CLASE_POR_METODO = new HashMap<>();
+
+    static {
+        CLASE_POR_METODO.put("obtenerTodas", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("obtenerPagina", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("obtenerPorEstado", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("obtenerOcupacion", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("obtenerListaEspera", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("exportar", ControlAdmision.Clase.LISTAR);
+        CLASE_POR_METODO.put("crearLote", ControlAdmision.Clase.MASIVA);
+        CLASE_POR_METODO.put("importar", ControlAdmision.Clase.MASIVA);
+        CLASE_POR_METODO.put("reconstruirOcupacion", ControlAdmision.Clase.MASIVA);
+        CLASE_POR_METODO.put("suscribirCambios", null);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // En el despacho asíncrono que completa una respuesta el permiso ya está tomado
+        if (!(handler instanceof HandlerMethod) || request.getAttribute(ATRIBUTO_PERMISO) != null) {
+            return true;
+        }
+        ControlAdmision.Clase clase = clasificar((HandlerMethod) handler, request.getMethod());
+        if (clase == null) {
+            return true;
+        }
+        ControlAdmision.Limitador limitador = ControlAdmision.limitador(clase);
+        if (!limitador.adquirir()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value()); // Retorna 503
+            response.setHeader("Retry-After", Integer.toString(ControlAdmision.getRetryAfterSegundos()));
+            return false;
+        }
+        request.setAttribute(ATRIBUTO_PERMISO, limitador);
+        request.setAttribute(ATRIBUTO_INICIO, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object permiso = request.getAttribute(ATRIBUTO_PERMISO);
+        if (permiso == null) {
+            return;
+        }
+        request.removeAttribute(ATRIBUTO_PERMISO);
+        long latencia = System.nanoTime() - (Long) request.getAttribute(ATRIBUTO_INICIO);
+        ((ControlAdmision.Limitador) permiso).liberar(latencia, ex != null || response.getStatus() >= 500);
+    }
+
+    private static ControlAdmision.Clase clasificar(HandlerMethod handler, String verbo) {
+        String metodo = handler.getMethod().getName();
+        if (CLASE_POR_METODO.containsKey(metodo)) {
+            return CLASE_POR_METODO.get(metodo);
+        }
+        switch (verbo) {
+            case "POST":
+                return ControlAdmision.Clase.CREAR;
+            case "GET":
+            case "HEAD":
+                return ControlAdmision.Clase.CONSULTAR;
+            default:
+                return ControlAdmision.Clase.MODIFICAR;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.casacaribe.reservas.config;
+
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mide la latencia de cada acción de los controladores REST y cuenta como error las respuestas 5xx
+ * y las excepciones no manejadas. El temporizador de cada método se resuelve una sola vez.
+ */
+public class InterceptorMetricas implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_INICIO = InterceptorMetricas.class.getName() + ".inicio";
+
+    private final Map<Method, Metricas.Temporizador> temporizadores = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getAttribute(ATRIBUTO_INICIO) == null) {
+            request.setAttribute(ATRIBUTO_INICIO, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object inicio = request.getAttribute(ATRIBUTO_INICIO);
+        if (!(handler instanceof HandlerMethod) || inicio == null) {
+            return;
+        }
+        Metricas.Temporizador temporizador = temporizadores.computeIfAbsent(((HandlerMethod) handler).getMethod(),
+                metodo -> Metricas.temporizador("controlador", metodo.getName()));
+        if (ex != null || response.getStatus() >= 500) {
+            temporizador.error();
+        }
+        temporizador.registrarDesde((Long) inicio);
+    }
+}
@@ -0,0 +1,196 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.FormatoDatos;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lee en streaming un archivo de reservas (CSV con encabezado o NDJSON) y entrega cada línea
+ * ya convertida a ReservaMesa, o el motivo por el que no pudo convertirse.
+ * Una línea defectuosa no detiene la lectura.
+ */
+final class LectorReservas {
+
+    private static final ObjectReader LECTOR_JSON = new ObjectMapper()
+            .findAndRegisterModules()
+            .readerFor(ReservaMesa.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Recibe el resultado de cada línea del archivo.
+     */
+    interface Destino {
+
+        void fila(long linea, ReservaMesa reserva) throws IOException;
+
+        void error(long linea, String motivo) throws IOException;
+    }
+
+    private LectorReservas() {
+    }
+
+    /**
+     * @param entrada Archivo en UTF-8; no se cierra.
+     * @param formato Formato del archivo.
+     * @param destino Receptor de cada línea.
+     * @throws IllegalArgumentException Si el encabezado CSV falta o no tiene las columnas obligatorias.
+     * @throws IOException Si falla la lectura o el destino.
+     */
+    static void leer(InputStream entrada, FormatoDatos formato, Destino destino) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+        if (formato == FormatoDatos.CSV) {
+            leerCsv(lector, destino);
+        } else {
+            leerNdjson(lector, destino);
+        }
+    }
+
+    private static void leerNdjson(BufferedReader lector, Destino destino) throws IOException {
+        String linea;
+        long numero = 0;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.trim().isEmpty()) {
+                continue;
+            }
+            ReservaMesa reserva;
+            try {
+                reserva = LECTOR_JSON.readValue(linea);
+            } catch (JsonProcessingException e) {
+                destino.error(numero, "JSON no válido: " + e.getOriginalMessage());
+                continue;
+            }
+            destino.fila(numero, reserva);
+        }
+    }
+
+    private static void leerCsv(BufferedReader lector, Destino destino) throws IOException {
+        long[] numero = {0};
+        List<String> encabezado = leerRegistroCsv(lector, numero);
+        if (encabezado == null) {
+            return;
+        }
+        // Se aceptan los nombres de la tabla (fecha_reserva) y los de la API (fechaReserva)
+        int fecha = -1, hora = -1, personas = -1, nombre = -1, email = -1, estado = -1;
+        for (int i = 0; i < encabezado.size(); i++) {
+            switch (encabezado.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT)) {
+                case "fechareserva": fecha = i; break;
+                case "horareserva": hora = i; break;
+                case "numpersonas": personas = i; break;
+                case "nombrecliente": nombre = i; break;
+                case "emailcliente": email = i; break;
+                case "estado": estado = i; break;
+                default: break; // id y version se ignoran: las reservas importadas reciben IDs nuevos
+            }
+        }
+        if (fecha < 0 || hora < 0 || personas < 0 || nombre < 0) {
+            throw new IllegalArgumentException(
+                    "El encabezado CSV debe incluir fecha_reserva, hora_reserva, num_personas y nombre_cliente.");
+        }
+
+        while (true) {
+            long inicioRegistro = numero[0] + 1;
+            List<String> campos = leerRegistroCsv(lector, numero);
+            if (campos == null) {
+                return;
+            }
+            if (campos.size() == 1 && campos.get(0).isEmpty()) {
+                continue; // Línea en blanco
+            }
+            if (campos.size() != encabezado.size()) {
+                destino.error(inicioRegistro, "Se esperaban " + encabezado.size() + " columnas y hay " + campos.size() + ".");
+                continue;
+            }
+            ReservaMesa reserva = new ReservaMesa();
+            try {
+                reserva.setFechaReserva(LocalDate.parse(campos.get(fecha).trim()));
+                reserva.setHoraReserva(LocalTime.parse(campos.get(hora).trim()));
+                reserva.setNumPersonas(Integer.parseInt(campos.get(personas).trim()));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                destino.error(inicioRegistro, "Fecha, hora o número de personas no válidos: " + e.getMessage());
+                continue;
+            }
+            reserva.setNombreCliente(vacioANulo(campos.get(nombre)));
+            reserva.setEmailCliente(email < 0 ? null : vacioANulo(campos.get(email)));
+            reserva.setEstado(estado < 0 ? null : vacioANulo(campos.get(estado)));
+            destino.fila(inicioRegistro, reserva);
+        }
+    }
+
+    /**
+     * Lee un registro CSV (RFC 4180): comas como separador y comillas dobles para campos con comas,
+     * comillas ("") o saltos de línea, que pueden abarcar varias líneas físicas.
+     *
+     * @param numero Contador de líneas físicas leídas, que se actualiza.
+     * @return Los campos del registro, o null al final del archivo.
+     */
+    private static List<String> leerRegistroCsv(BufferedReader lector, long[] numero) throws IOException {
+        String linea = lector.readLine();
+        if (linea == null) {
+            return null;
+        }
+        numero[0]++;
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        int i = 0;
+        while (true) {
+            if (i == linea.length()) {
+                if (!entreComillas) {
+                    break;
+                }
+                // Campo entre comillas con salto de línea: continúa en la siguiente línea física
+                String siguiente = lector.readLine();
+                if (siguiente == null) {
+                    break;
+                }
+                numero[0]++;
+                campo.append('\n');
+                linea = siguiente;
+                i = 0;
+                continue;
+            }
+            char c = linea.charAt(i++);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i < linea.length() && linea.charAt(i) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private static String vacioANulo(String valor) {
+        return (valor == null || valor.isEmpty()) ? null : valor;
+    }
+}
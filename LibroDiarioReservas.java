@@ -0,0 +1,362 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.Reserva;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ProyeccionReserva;
+import com.casacaribe.reservas.repository.ReservaRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Libro diario en memoria para el listado del puesto de recepción (hoy y los próximos días).
+ *
+ * Cada día se guarda en formato columnar: arreglos primitivos de IDs, minutos del día y personas,
+ * el estado codificado en un diccionario de un byte y los nombres de cliente internados.
+ * Los días son inmutables: lectores sin bloqueo, y cada escritura publica una copia del día afectado.
+ * Un día se carga de la base de datos la primera vez que se consulta y luego se mantiene con cada
+ * alta, modificación o eliminación registrada aquí; si una escritura no trae la fila completa, el día
+ * se invalida y se recarga en la siguiente consulta. Las escrituras que no pasan por este libro (API REST,
+ * lista de espera, importaciones, otras instancias) no llegan: por eso cada día se recarga además cuando
+ * su carga supera casacaribe.libroDiario.ttlMs, que acota cuánto tardan en verse.
+ */
+public class LibroDiarioReservas {
+
+    private final ReservaRepository reservaRepository;
+    private final int diasVisibles;
+    private final long ttlNanos;
+
+    private final Map<LocalDate, Dia> dias = new ConcurrentHashMap<>();
+    private final Map<String, String> nombres = new ConcurrentHashMap<>();
+    private final Map<String, Byte> codigosEstado = new ConcurrentHashMap<>();
+    // Código 0 reservado para estado null
+    private volatile String[] estados = {null};
+    // Se incrementa en cada escritura: una carga que se cruza con una escritura no se publica
+    private long generacion;
+
+    /**
+     * @param reservaRepository Origen de los días que aún no están en memoria.
+     * @param diasVisibles Días que se mantienen en memoria a partir de hoy (hoy incluido).
+     * @param ttlMs Antigüedad máxima de la carga de un día antes de volver a leerlo de la base de datos.
+     */
+    public LibroDiarioReservas(ReservaRepository reservaRepository, int diasVisibles, long ttlMs) {
+        this.reservaRepository = reservaRepository;
+        this.diasVisibles = Math.max(1, diasVisibles);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, ttlMs));
+    }
+
+    /**
+     * Construye el libro a partir de propiedades del sistema
+     * (casacaribe.libroDiario.dias, por defecto 3, y casacaribe.libroDiario.ttlMs, por defecto 30000).
+     */
+    public static LibroDiarioReservas desdePropiedadesSistema(ReservaRepository reservaRepository) {
+        return new LibroDiarioReservas(reservaRepository, Integer.getInteger("casacaribe.libroDiario.dias", 3),
+                Long.getLong("casacaribe.libroDiario.ttlMs", 30_000L));
+    }
+
+    public int getDiasVisibles() {
+        return diasVisibles;
+    }
+
+    /**
+     * Retorna las reservas de un rango de días, ordenadas por fecha, hora e ID.
+     * Los días fuera de la ventana [hoy, hoy + diasVisibles) se leen de la base de datos sin guardarse.
+     *
+     * @param desde Primer día del rango.
+     * @param numDias Número de días del rango.
+     * @return Reservas del rango (sin email: el listado no lo muestra).
+     */
+    public List<Reserva> listar(LocalDate desde, int numDias) {
+        purgarDiasPasados();
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 0; i < numDias; i++) {
+            LocalDate fecha = desde.plusDays(i);
+            Dia dia = obtenerDia(fecha);
+            // El diccionario se lee después del día: ya contiene todos los códigos que el día usa
+            dia.agregarA(fecha, estados, reservas);
+        }
+        return reservas;
+    }
+
+    /**
+     * Registra el alta o la modificación de una reserva con sus datos completos.
+     * Si la reserva cambió de día, se retira del día anterior.
+     */
+    public void registrar(int id, LocalDate fecha, LocalTime hora, int numPersonas, String nombreCliente, String estado) {
+        short minutos = (short) (hora.getHour() * 60 + hora.getMinute());
+        String nombre = internar(nombreCliente);
+        byte codigo = codificarEstado(estado);
+        synchronized (this) {
+            generacion++;
+            retirarDeOtrosDias(id, fecha);
+            Dia dia = dias.get(fecha);
+            if (dia != null) {
+                dias.put(fecha, dia.con(id, minutos, (short) numPersonas, codigo, nombre));
+            }
+        }
+    }
+
+    /**
+     * Registra el alta o la modificación de una reserva persistida.
+     */
+    public void registrar(ReservaMesa reserva) {
+        registrar(reserva.getId(), reserva.getFechaReserva(), reserva.getHoraReserva(), reserva.getNumPersonas(),
+                reserva.getNombreCliente(), reserva.getEstado());
+    }
+
+    /**
+     * Retira una reserva eliminada.
+     */
+    public void eliminar(int id) {
+        synchronized (this) {
+            generacion++;
+            retirarDeOtrosDias(id, null);
+        }
+    }
+
+    /**
+     * Descarta un día para que se recargue en la siguiente consulta
+     * (p. ej. tras un alta cuyo ID no se conoce).
+     */
+    public void invalidarDia(LocalDate fecha) {
+        synchronized (this) {
+            generacion++;
+            dias.remove(fecha);
+        }
+    }
+
+    private Dia obtenerDia(LocalDate fecha) {
+        Dia dia = dias.get(fecha);
+        if (dia != null && !vencido(dia)) {
+            return dia;
+        }
+        long generacionInicial;
+        synchronized (this) {
+            generacionInicial = generacion;
+        }
+        Dia cargado = cargar(fecha);
+        if (enVentana(fecha)) {
+            synchronized (this) {
+                if (generacion == generacionInicial) {
+                    // Otro lector pudo recargarlo mientras tanto
+                    Dia existente = dias.get(fecha);
+                    if (existente != null && !vencido(existente)) {
+                        return existente;
+                    }
+                    dias.put(fecha, cargado);
+                }
+            }
+        }
+        return cargado;
+    }
+
+    // Las escrituras registradas aquí no renuevan la carga: solo la base de datos trae las ajenas
+    private boolean vencido(Dia dia) {
+        return System.nanoTime() - dia.cargadoEn > ttlNanos;
+    }
+
+    private Dia cargar(LocalDate fecha) {
+        long cargadoEn = System.nanoTime();
+        List<ReservaMesa> filas = reservaRepository.consultarPorFecha(fecha, ProyeccionReserva.RECEPCION);
+        int n = filas.size();
+        int[] ids = new int[n];
+        short[] minutos = new short[n];
+        short[] personas = new short[n];
+        byte[] codigos = new byte[n];
+        String[] nombresDia = new String[n];
+        for (int i = 0; i < n; i++) {
+            ReservaMesa fila = filas.get(i);
+            ids[i] = fila.getId();
+            minutos[i] = (short) (fila.getHoraReserva().getHour() * 60 + fila.getHoraReserva().getMinute());
+            personas[i] = (short) fila.getNumPersonas();
+            codigos[i] = codificarEstado(fila.getEstado());
+            nombresDia[i] = internar(fila.getNombreCliente());
+        }
+        return new Dia(ids, minutos, personas, codigos, nombresDia, cargadoEn);
+    }
+
+    private boolean enVentana(LocalDate fecha) {
+        LocalDate hoy = LocalDate.now();
+        return !fecha.isBefore(hoy) && fecha.isBefore(hoy.plusDays(diasVisibles));
+    }
+
+    private void retirarDeOtrosDias(int id, LocalDate excepto) {
+        for (Map.Entry<LocalDate, Dia> entrada : dias.entrySet()) {
+            if (!entrada.getKey().equals(excepto)) {
+                Dia sin = entrada.getValue().sin(id);
+                if (sin != entrada.getValue()) {
+                    entrada.setValue(sin);
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta los días que salieron de la ventana y los nombres que ya no usa ningún día.
+     */
+    private void purgarDiasPasados() {
+        if (dias.keySet().stream().allMatch(this::enVentana)) {
+            return;
+        }
+        synchronized (this) {
+            dias.keySet().removeIf(fecha -> !enVentana(fecha));
+            Set<String> vigentes = new HashSet<>();
+            dias.values().forEach(dia -> vigentes.addAll(Arrays.asList(dia.nombres)));
+            nombres.keySet().retainAll(vigentes);
+        }
+    }
+
+    private String internar(String nombre) {
+        return nombre == null ? null : nombres.computeIfAbsent(nombre, clave -> clave);
+    }
+
+    private byte codificarEstado(String estado) {
+        if (estado == null) {
+            return 0;
+        }
+        Byte codigo = codigosEstado.get(estado);
+        if (codigo != null) {
+            return codigo;
+        }
+        synchronized (codigosEstado) {
+            codigo = codigosEstado.get(estado);
+            if (codigo == null) {
+                String[] actuales = estados;
+                if (actuales.length > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Demasiados estados de reserva distintos.");
+                }
+                String[] nuevos = Arrays.copyOf(actuales, actuales.length + 1);
+                nuevos[actuales.length] = estado;
+                // Se publica primero el diccionario y luego el código que lo referencia
+                estados = nuevos;
+                codigo = (byte) actuales.length;
+                codigosEstado.put(estado, codigo);
+            }
+            return codigo;
+        }
+    }
+
+    /**
+     * Reservas de un día en columnas, ordenadas por minuto del día e ID. Inmutable.
+     */
+    private static final class Dia {
+        private final int[] ids;
+        private final short[] minutos;
+        private final short[] personas;
+        private final byte[] estados;
+        private final String[] nombres;
+        // Momento (System.nanoTime) en que se leyó de la base de datos; las copias lo conservan
+        private final long cargadoEn;
+
+        private Dia(int[] ids, short[] minutos, short[] personas, byte[] estados, String[] nombres, long cargadoEn) {
+            this.ids = ids;
+            this.minutos = minutos;
+            this.personas = personas;
+            this.estados = estados;
+            this.nombres = nombres;
+            this.cargadoEn = cargadoEn;
+        }
+
+        private int posicion(int id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Una copia sin la reserva, o este mismo día si no la contiene.
+         */
+        private Dia sin(int id) {
+            int i = posicion(id);
+            if (i < 0) {
+                return this;
+            }
+            return new Dia(quitar(ids, i), quitar(minutos, i), quitar(personas, i), quitar(estados, i), quitar(nombres, i), cargadoEn);
+        }
+
+        /**
+         * @return Una copia con la reserva insertada (o reemplazada) en su posición ordenada.
+         */
+        private Dia con(int id, short minuto, short numPersonas, byte estado, String nombre) {
+            Dia base = sin(id);
+            int n = base.ids.length;
+            int i = 0;
+            while (i < n && (base.minutos[i] < minuto || (base.minutos[i] == minuto && base.ids[i] < id))) {
+                i++;
+            }
+            int[] nIds = new int[n + 1];
+            short[] nMinutos = new short[n + 1];
+            short[] nPersonas = new short[n + 1];
+            byte[] nEstados = new byte[n + 1];
+            String[] nNombres = new String[n + 1];
+            System.arraycopy(base.ids, 0, nIds, 0, i);
+            System.arraycopy(base.minutos, 0, nMinutos, 0, i);
+            System.arraycopy(base.personas, 0, nPersonas, 0, i);
+            System.arraycopy(base.estados, 0, nEstados, 0, i);
+            System.arraycopy(base.nombres, 0, nNombres, 0, i);
+            nIds[i] = id;
+            nMinutos[i] = minuto;
+            nPersonas[i] = numPersonas;
+            nEstados[i] = estado;
+            nNombres[i] = nombre;
+            System.arraycopy(base.ids, i, nIds, i + 1, n - i);
+            System.arraycopy(base.minutos, i, nMinutos, i + 1, n - i);
+            System.arraycopy(base.personas, i, nPersonas, i + 1, n - i);
+            System.arraycopy(base.estados, i, nEstados, i + 1, n - i);
+            System.arraycopy(base.nombres, i, nNombres, i + 1, n - i);
+            return new Dia(nIds, nMinutos, nPersonas, nEstados, nNombres, base.cargadoEn);
+        }
+
+        private void agregarA(LocalDate fecha, String[] diccionarioEstados, List<Reserva> destino) {
+            for (int i = 0; i < ids.length; i++) {
+                Reserva reserva = new Reserva();
+                reserva.setId(ids[i]);
+                reserva.setNombreCliente(nombres[i]);
+                reserva.setFechaReserva(fecha);
+                reserva.setHoraReserva(LocalTime.of(minutos[i] / 60, minutos[i] % 60));
+                reserva.setNumPersonas(personas[i]);
+                reserva.setEstado(diccionarioEstados[estados[i]]);
+                destino.add(reserva);
+            }
+        }
+
+        private static int[] quitar(int[] a, int i) {
+            int[] r = new int[a.length - 1];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 1, r, i, a.length - i - 1);
+            return r;
+        }
+
+        private static short[] quitar(short[] a, int i) {
+            short[] r = new short[a.length - 1];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 1, r, i, a.length - i - 1);
+            return r;
+        }
+
+        private static byte[] quitar(byte[] a, int i) {
+            byte[] r = new byte[a.length - 1];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 1, r, i, a.length - i - 1);
+            return r;
+        }
+
+        private static String[] quitar(String[] a, int i) {
+            String[] r = new String[a.length - 1];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 1, r, i, a.length - i - 1);
+            return r;
+        }
+    }
+}
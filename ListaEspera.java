@@ -0,0 +1,377 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.EntradaEspera;
+import com.casacaribe.reservas.repository.ListaEsperaRepository;
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Colas de la lista de espera, en memoria, con una cola de prioridad por día y franja de 15 minutos.
+ * Cada entrada está en la cola de todas las franjas de su ventana (horaDesde..horaHasta); dentro de
+ * cada cola van primero los grupos más grandes y, a igual tamaño, los que llegaron antes.
+ *
+ * Cuando se libera capacidad, emparejar() recorre las franjas desde la hora liberada hacia afuera
+ * y ofrece el hueco al primer grupo que cabe: el más grande que cabe, que es el que mejor aprovecha
+ * la mesa. Si un grupo no cabe en una franja, ningún otro del mismo tamaño cabe en ella, así que se
+ * salta directamente al tamaño siguiente: cada franja cuesta como mucho una prueba por tamaño de grupo,
+ * sin importar cuántas entradas haya en espera.
+ *
+ * La tabla lista_espera es la fuente de verdad; las colas se cargan desde ella al arrancar.
+ * Las operaciones se sincronizan por día con candados segmentados.
+ */
+@Component
+public class ListaEspera {
+
+    private static final int MINUTOS_FRANJA = 15;
+    private static final int FRANJAS_DIA = 24 * 60 / MINUTOS_FRANJA;
+    private static final int SEGMENTOS_CANDADO = 64;
+
+    private static final Metricas.Temporizador T_EMPAREJAR = Metricas.temporizador("espera", "emparejar");
+
+    // Prioridad dentro de una franja: más personas primero; a igualdad, orden de llegada
+    private static final Comparator<Espera> PRIORIDAD = Comparator.comparingInt((Espera e) -> -e.numPersonas)
+            .thenComparing(e -> e.creadaEn)
+            .thenComparingInt(e -> e.id);
+
+    private final ListaEsperaRepository repositorio = new ListaEsperaRepository();
+    private final int franjasDesvio;
+    private final int ofertaMinutos;
+    private final Object[] candados = new Object[SEGMENTOS_CANDADO];
+    private final Map<Long, Dia> dias = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService vencimientos;
+
+    /**
+     * @param desvioMinutos Distancia máxima entre la hora liberada y la hora que se ofrece.
+     * @param ofertaMinutos Tiempo que se retiene una mesa ofrecida antes de pasarla al siguiente.
+     */
+    @Autowired
+    public ListaEspera(@Value("${casacaribe.espera.desvioMinutos:60}") int desvioMinutos,
+                       @Value("${casacaribe.espera.ofertaMinutos:15}") int ofertaMinutos) {
+        this.franjasDesvio = Math.max(0, desvioMinutos / MINUTOS_FRANJA);
+        this.ofertaMinutos = ofertaMinutos;
+        for (int i = 0; i < SEGMENTOS_CANDADO; i++) {
+            candados[i] = new Object();
+        }
+        this.vencimientos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "casacaribe-espera-vencimientos");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Construye la lista a partir de propiedades del sistema (para uso fuera de Spring).
+     */
+    public static ListaEspera desdePropiedadesSistema() {
+        return new ListaEspera(
+                Integer.getInteger("casacaribe.espera.desvioMinutos", 60),
+                Integer.getInteger("casacaribe.espera.ofertaMinutos", 15));
+    }
+
+    /**
+     * Carga las entradas en espera desde hoy (al iniciar la aplicación). Las ofertas que quedaron
+     * abiertas vuelven a la cola: la mesa que retenían solo existía en memoria.
+     */
+    @PostConstruct
+    public void calentar() {
+        try {
+            List<EntradaEspera> activas = repositorio.reabrirYConsultarActivas(LocalDate.now());
+            activas.forEach(this::agregar);
+            System.out.println("Lista de espera cargada con " + activas.size() + " entradas.");
+        } catch (IllegalStateException e) {
+            System.err.println("No se pudo cargar la lista de espera: " + e.getMessage());
+        }
+    }
+
+    public int getOfertaMinutos() {
+        return ofertaMinutos;
+    }
+
+    /**
+     * Pone en cola una entrada en estado ESPERANDO (ya guardada, con ID y momento de alta).
+     */
+    public void agregar(EntradaEspera entrada) {
+        Espera espera = new Espera(new EntradaEspera(entrada));
+        long epoch = entrada.getFechaReserva().toEpochDay();
+        synchronized (candado(epoch)) {
+            Dia dia = dias.computeIfAbsent(epoch, e -> new Dia());
+            if (dia.porId.putIfAbsent(espera.id, espera) != null) {
+                return;
+            }
+            for (int franja = espera.desde; franja <= espera.hasta; franja++) {
+                if (dia.porFranja[franja] == null) {
+                    dia.porFranja[franja] = new TreeSet<>(PRIORIDAD);
+                }
+                dia.porFranja[franja].add(espera);
+            }
+        }
+    }
+
+    /**
+     * Saca de las colas una entrada (p. ej. porque el cliente se retiró). No hace nada si ya no estaba.
+     */
+    public void quitar(EntradaEspera entrada) {
+        long epoch = entrada.getFechaReserva().toEpochDay();
+        synchronized (candado(epoch)) {
+            Dia dia = dias.get(epoch);
+            Espera espera = (dia == null) ? null : dia.porId.get(entrada.getId());
+            if (espera != null) {
+                quitar(epoch, dia, espera);
+            }
+        }
+    }
+
+    /**
+     * @return Número de entradas en cola (sin contar las que tienen una oferta abierta).
+     */
+    public int getEnEspera() {
+        int total = 0;
+        for (Dia dia : dias.values()) {
+            total += dia.porId.size();
+        }
+        return total;
+    }
+
+    /**
+     * Ofrece un hueco liberado al grupo en espera que mejor lo aprovecha. Prueba las franjas desde
+     * la hora liberada hacia afuera (primero la misma, luego una después, una antes, dos después...)
+     * hasta casacaribe.espera.desvioMinutos, sin ofrecer horas que ya pasaron.
+     * El grupo emparejado sale de las colas.
+     *
+     * @param retencion Intenta retener una mesa para el grupo a esa hora; se llama con el candado del día tomado.
+     * @return El emparejamiento con lo retenido, o null si nadie en espera cabe.
+     */
+    public <T> Emparejamiento<T> emparejar(LocalDate fecha, LocalTime hora, Retencion<T> retencion) {
+        long inicio = System.nanoTime();
+        long epoch = fecha.toEpochDay();
+        try {
+            synchronized (candado(epoch)) {
+                Dia dia = dias.get(epoch);
+                if (dia == null) {
+                    return null;
+                }
+                int primeraFranja = primeraFranjaOfrecible(epoch);
+                int centro = franja(hora);
+                for (int desvio = 0; desvio <= franjasDesvio; desvio++) {
+                    for (int lado = 0; lado < (desvio == 0 ? 1 : 2); lado++) {
+                        int franja = (lado == 0) ? centro + desvio : centro - desvio;
+                        if (franja < primeraFranja || franja >= FRANJAS_DIA || dia.porFranja[franja] == null) {
+                            continue;
+                        }
+                        Emparejamiento<T> emparejamiento = emparejarEnFranja(epoch, dia, franja, retencion);
+                        if (emparejamiento != null) {
+                            return emparejamiento;
+                        }
+                    }
+                }
+                return null;
+            }
+        } finally {
+            T_EMPAREJAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Intenta ofrecer mesa a una entrada concreta (p. ej. recién llegada) en la primera hora de su ventana en que quepa.
+     *
+     * @return El emparejamiento, o null si no cabe en ninguna hora de su ventana o ya no está en cola.
+     */
+    public <T> Emparejamiento<T> emparejar(EntradaEspera entrada, Retencion<T> retencion) {
+        long inicio = System.nanoTime();
+        long epoch = entrada.getFechaReserva().toEpochDay();
+        try {
+            synchronized (candado(epoch)) {
+                Dia dia = dias.get(epoch);
+                Espera espera = (dia == null) ? null : dia.porId.get(entrada.getId());
+                if (espera == null) {
+                    return null;
+                }
+                for (int franja = Math.max(espera.desde, primeraFranjaOfrecible(epoch)); franja <= espera.hasta; franja++) {
+                    LocalTime horaOferta = horaOferta(espera, franja);
+                    T retenida = retencion.retener(espera.entrada, horaOferta);
+                    if (retenida != null) {
+                        quitar(epoch, dia, espera);
+                        return new Emparejamiento<>(new EntradaEspera(espera.entrada), horaOferta, retenida);
+                    }
+                }
+                return null;
+            }
+        } finally {
+            T_EMPAREJAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Programa el vencimiento de una oferta.
+     *
+     * @return El vencimiento, que se cancela si la oferta se acepta o se rechaza antes.
+     */
+    public ScheduledFuture<?> programarVencimiento(Runnable alVencer) {
+        return vencimientos.schedule(() -> {
+            try {
+                alVencer.run();
+            } catch (RuntimeException e) {
+                System.err.println("ERROR al vencer una oferta de la lista de espera: " + e.getMessage());
+            }
+        }, ofertaMinutos, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Detiene los vencimientos programados (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        vencimientos.shutdownNow();
+    }
+
+    private <T> Emparejamiento<T> emparejarEnFranja(long epoch, Dia dia, int franja, Retencion<T> retencion) {
+        TreeSet<Espera> cola = dia.porFranja[franja];
+        Espera espera = cola.isEmpty() ? null : cola.first();
+        while (espera != null) {
+            LocalTime horaOferta = horaOferta(espera, franja);
+            T retenida = retencion.retener(espera.entrada, horaOferta);
+            if (retenida != null) {
+                quitar(epoch, dia, espera);
+                return new Emparejamiento<>(new EntradaEspera(espera.entrada), horaOferta, retenida);
+            }
+            // Si no cabe un grupo de este tamaño, no cabe ninguno igual: se salta al tamaño siguiente
+            espera = cola.higher(Espera.ultimoDeTamano(espera.numPersonas));
+        }
+        return null;
+    }
+
+    private void quitar(long epoch, Dia dia, Espera espera) {
+        dia.porId.remove(espera.id);
+        for (int franja = espera.desde; franja <= espera.hasta; franja++) {
+            if (dia.porFranja[franja] != null) {
+                dia.porFranja[franja].remove(espera);
+            }
+        }
+        if (dia.porId.isEmpty()) {
+            dias.remove(epoch);
+        }
+    }
+
+    // La franja en curso todavía se ofrece; las anteriores ya pasaron
+    private static int primeraFranjaOfrecible(long epoch) {
+        long hoy = LocalDate.now().toEpochDay();
+        if (epoch < hoy) {
+            return FRANJAS_DIA;
+        }
+        return (epoch == hoy) ? franja(LocalTime.now()) : 0;
+    }
+
+    private static LocalTime horaOferta(Espera espera, int franja) {
+        // En la primera franja de la ventana se respeta la hora exacta pedida (p. ej. 20:10)
+        return (franja == espera.desde) ? espera.entrada.getHoraDesde()
+                : LocalTime.of(franja * MINUTOS_FRANJA / 60, franja * MINUTOS_FRANJA % 60);
+    }
+
+    private static int franja(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_FRANJA;
+    }
+
+    private Object candado(long epoch) {
+        return candados[(int) (epoch & (SEGMENTOS_CANDADO - 1))];
+    }
+
+    /**
+     * Retiene capacidad para un grupo en espera.
+     */
+    public interface Retencion<T> {
+
+        /**
+         * @return Lo retenido (p. ej. la mesa asignada), o null si el grupo no cabe a esa hora.
+         */
+        T retener(EntradaEspera entrada, LocalTime hora);
+    }
+
+    /**
+     * Grupo en espera al que se le retuvo capacidad, con la hora que se le ofrece.
+     */
+    public static final class Emparejamiento<T> {
+        private final EntradaEspera entrada;
+        private final LocalTime hora;
+        private final T retenida;
+
+        private Emparejamiento(EntradaEspera entrada, LocalTime hora, T retenida) {
+            this.entrada = entrada;
+            this.hora = hora;
+            this.retenida = retenida;
+        }
+
+        public EntradaEspera getEntrada() {
+            return entrada;
+        }
+
+        public LocalTime getHora() {
+            return hora;
+        }
+
+        public T getRetenida() {
+            return retenida;
+        }
+    }
+
+    /**
+     * Entrada en cola, con su ventana convertida a franjas.
+     */
+    private static final class Espera {
+        private final EntradaEspera entrada;
+        private final int id;
+        private final int numPersonas;
+        private final LocalDateTime creadaEn;
+        private final int desde;
+        private final int hasta;
+
+        private Espera(EntradaEspera entrada) {
+            this.entrada = entrada;
+            this.id = entrada.getId();
+            this.numPersonas = entrada.getNumPersonas();
+            this.creadaEn = entrada.getCreadaEn();
+            this.desde = franja(entrada.getHoraDesde());
+            this.hasta = franja(entrada.getHoraHasta());
+        }
+
+        private Espera(int numPersonas) {
+            this.entrada = null;
+            this.id = Integer.MAX_VALUE;
+            this.numPersonas = numPersonas;
+            this.creadaEn = LocalDateTime.MAX;
+            this.desde = 0;
+            this.hasta = -1;
+        }
+
+        // Clave que va detrás de todas las entradas de ese tamaño
+        private static Espera ultimoDeTamano(int numPersonas) {
+            return new Espera(numPersonas);
+        }
+    }
+
+    /**
+     * Colas de un día: una por franja, más el acceso por ID para retirar entradas.
+     */
+    private static final class Dia {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final TreeSet<Espera>[] porFranja = new TreeSet[FRANJAS_DIA];
+        private final Map<Integer, Espera> porId = new HashMap<>();
+    }
+}
@@ -0,0 +1,198 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.EntradaEspera;
+import com.casacaribe.reservas.modelo.EstadoEspera;
+import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.Metricas;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persistencia de la lista de espera (tabla lista_espera) con JDBC puro.
+ * Los cambios de estado son condicionales (solo aplican desde el estado esperado), de modo que
+ * una oferta, su aceptación, su vencimiento y una baja concurrentes no se pisan entre sí.
+ */
+public class ListaEsperaRepository {
+
+    private static final String COLUMNAS = "id, fecha_reserva, hora_desde, hora_hasta, num_personas, nombre_cliente, "
+            + "email_cliente, estado, creada_en, hora_ofrecida, oferta_vence_en, reserva_id";
+    private static final String SQL_INSERT = "INSERT INTO lista_espera (fecha_reserva, hora_desde, hora_hasta, num_personas, "
+            + "nombre_cliente, email_cliente, estado) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id, creada_en";
+    private static final String SQL_SELECT_BY_ID = "SELECT " + COLUMNAS + " FROM lista_espera WHERE id = ?";
+    private static final String SQL_SELECT_POR_FECHA = "SELECT " + COLUMNAS
+            + " FROM lista_espera WHERE fecha_reserva = ? ORDER BY hora_desde, creada_en, id";
+    private static final String SQL_SELECT_ACTIVAS = "SELECT " + COLUMNAS
+            + " FROM lista_espera WHERE fecha_reserva >= ? AND estado = 'Esperando' ORDER BY creada_en, id";
+    private static final String SQL_CAMBIAR_ESTADO = "UPDATE lista_espera SET estado = ?, hora_ofrecida = ?, "
+            + "oferta_vence_en = ?, reserva_id = ? WHERE id = ? AND estado = ?";
+    // Las ofertas no sobreviven a un reinicio: la mesa retenida solo existía en memoria
+    private static final String SQL_REABRIR_OFERTAS = "UPDATE lista_espera SET estado = 'Esperando', hora_ofrecida = NULL, "
+            + "oferta_vence_en = NULL WHERE estado = 'Ofrecida'";
+
+    private static final Metricas.Temporizador T_INSERTAR = Metricas.temporizador("repositorio", "insertarEspera");
+    private static final Metricas.Temporizador T_CAMBIAR_ESTADO = Metricas.temporizador("repositorio", "cambiarEstadoEspera");
+    private static final Metricas.Temporizador T_CONSULTAR = Metricas.temporizador("repositorio", "consultarEspera");
+
+    /**
+     * Guarda una entrada nueva en estado ESPERANDO.
+     *
+     * @param entrada Entrada validada; recibe su ID, estado y momento de alta.
+     * @return La misma entrada.
+     * @throws IllegalStateException Si no se pudo guardar.
+     */
+    public EntradaEspera insertar(EntradaEspera entrada) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_INSERT);
+            ps.setObject(1, entrada.getFechaReserva());
+            ps.setObject(2, entrada.getHoraDesde());
+            ps.setObject(3, entrada.getHoraHasta());
+            ps.setInt(4, entrada.getNumPersonas());
+            ps.setString(5, entrada.getNombreCliente());
+            ps.setString(6, entrada.getEmailCliente());
+            ps.setString(7, EstadoEspera.ESPERANDO.getEtiqueta());
+            rs = ps.executeQuery();
+            rs.next();
+            entrada.setId(rs.getInt(1));
+            entrada.setCreadaEn(rs.getObject(2, LocalDateTime.class));
+            entrada.setEstado(EstadoEspera.ESPERANDO.getEtiqueta());
+            return entrada;
+        } catch (SQLException e) {
+            T_INSERTAR.error();
+            System.err.println("ERROR en insertarEspera: " + e.getMessage());
+            throw new IllegalStateException("No se pudo guardar la entrada de la lista de espera.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_INSERTAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Cambia el estado de una entrada solo si sigue en el estado esperado.
+     *
+     * @param horaOfrecida Hora de la mesa retenida (solo en OFRECIDA), o null.
+     * @param ofertaVenceEn Vencimiento de la oferta (solo en OFRECIDA), o null.
+     * @param reservaId Reserva creada (solo en ACEPTADA), o null.
+     * @return true si la entrada estaba en el estado esperado y se cambió.
+     */
+    public boolean cambiarEstado(int id, EstadoEspera esperado, EstadoEspera nuevo,
+                                 LocalTime horaOfrecida, LocalDateTime ofertaVenceEn, Integer reservaId) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_CAMBIAR_ESTADO);
+            ps.setString(1, nuevo.getEtiqueta());
+            ps.setObject(2, horaOfrecida, Types.TIME);
+            ps.setObject(3, ofertaVenceEn, Types.TIMESTAMP);
+            ps.setObject(4, reservaId, Types.INTEGER);
+            ps.setInt(5, id);
+            ps.setString(6, esperado.getEtiqueta());
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            T_CAMBIAR_ESTADO.error();
+            System.err.println("ERROR en cambiarEstadoEspera: " + e.getMessage());
+            return false;
+        } finally {
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CAMBIAR_ESTADO.registrarDesde(inicio);
+        }
+    }
+
+    public Optional<EntradaEspera> consultarPorId(int id) {
+        List<EntradaEspera> entradas = consultar(SQL_SELECT_BY_ID, id);
+        return entradas.isEmpty() ? Optional.empty() : Optional.of(entradas.get(0));
+    }
+
+    /**
+     * @return Todas las entradas del día (en cualquier estado), por hora inicial y orden de llegada.
+     */
+    public List<EntradaEspera> consultarPorFecha(LocalDate fecha) {
+        return consultar(SQL_SELECT_POR_FECHA, fecha);
+    }
+
+    /**
+     * Devuelve a la cola las ofertas que quedaron abiertas y lista las entradas en espera
+     * desde una fecha, por orden de llegada (para cargar la lista al arrancar).
+     */
+    public List<EntradaEspera> reabrirYConsultarActivas(LocalDate desde) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_REABRIR_OFERTAS);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            T_CAMBIAR_ESTADO.error();
+            System.err.println("ERROR en reabrirOfertas: " + e.getMessage());
+        } finally {
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CAMBIAR_ESTADO.registrarDesde(inicio);
+        }
+        return consultar(SQL_SELECT_ACTIVAS, desde);
+    }
+
+    private List<EntradaEspera> consultar(String sql, Object parametro) {
+        long inicio = System.nanoTime();
+        List<EntradaEspera> entradas = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(sql);
+            ps.setObject(1, parametro);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                entradas.add(mapear(rs));
+            }
+        } catch (SQLException e) {
+            T_CONSULTAR.error();
+            System.err.println("ERROR en consultarEspera: " + e.getMessage());
+            throw new IllegalStateException("No se pudo consultar la lista de espera.", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR.registrarDesde(inicio);
+        }
+        return entradas;
+    }
+
+    private static EntradaEspera mapear(ResultSet rs) throws SQLException {
+        EntradaEspera entrada = new EntradaEspera();
+        entrada.setId(rs.getInt(1));
+        entrada.setFechaReserva(rs.getObject(2, LocalDate.class));
+        entrada.setHoraDesde(rs.getObject(3, LocalTime.class));
+        entrada.setHoraHasta(rs.getObject(4, LocalTime.class));
+        entrada.setNumPersonas(rs.getInt(5));
+        entrada.setNombreCliente(rs.getString(6));
+        entrada.setEmailCliente(rs.getString(7));
+        entrada.setEstado(rs.getString(8));
+        entrada.setCreadaEn(rs.getObject(9, LocalDateTime.class));
+        entrada.setHoraOfrecida(rs.getObject(10, LocalTime.class));
+        entrada.setOfertaVenceEn(rs.getObject(11, LocalDateTime.class));
+        entrada.setReservaId((Integer) rs.getObject(12));
+        return entrada;
+    }
+}
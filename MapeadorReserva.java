@@ -0,0 +1,76 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Mapeador de filas de reservas precompilado para un ResultSet concreto.
+ * Los índices de columna se resuelven una sola vez a partir de los metadatos, de modo que
+ * mapear cada fila es un acceso por posición; fecha y hora se leen directamente como java.time.
+ * Admite cualquier proyección: las columnas ausentes no se leen.
+ */
+final class MapeadorReserva {
+
+    private static final int AUSENTE = 0;
+
+    private int id = AUSENTE;
+    private int fecha = AUSENTE;
+    private int hora = AUSENTE;
+    private int personas = AUSENTE;
+    private int nombre = AUSENTE;
+    private int email = AUSENTE;
+    private int estado = AUSENTE;
+    private int version = AUSENTE;
+
+    private MapeadorReserva(ResultSetMetaData metadatos) throws SQLException {
+        for (int i = metadatos.getColumnCount(); i >= 1; i--) {
+            // Se recorre de atrás hacia adelante: ante columnas repetidas gana la primera
+            switch (metadatos.getColumnLabel(i).toLowerCase(Locale.ROOT)) {
+                case "id": id = i; break;
+                case "fecha_reserva": fecha = i; break;
+                case "hora_reserva": hora = i; break;
+                case "num_personas": personas = i; break;
+                case "nombre_cliente": nombre = i; break;
+                case "email_cliente": email = i; break;
+                case "estado": estado = i; break;
+                case "version": version = i; break;
+                default: break;
+            }
+        }
+    }
+
+    /**
+     * Resuelve los índices de columna del ResultSet.
+     *
+     * @param rs ResultSet recién ejecutado.
+     * @return Mapeador válido para todas las filas de ese ResultSet.
+     */
+    static MapeadorReserva para(ResultSet rs) throws SQLException {
+        return new MapeadorReserva(rs.getMetaData());
+    }
+
+    /**
+     * Mapea la fila actual del ResultSet.
+     */
+    ReservaMesa mapear(ResultSet rs) throws SQLException {
+        ReservaMesa reserva = new ReservaMesa(
+            id != AUSENTE ? rs.getInt(id) : 0,
+            fecha != AUSENTE ? rs.getObject(fecha, LocalDate.class) : null,
+            hora != AUSENTE ? rs.getObject(hora, LocalTime.class) : null,
+            personas != AUSENTE ? rs.getInt(personas) : 0,
+            nombre != AUSENTE ? rs.getString(nombre) : null,
+            email != AUSENTE ? rs.getString(email) : null,
+            estado != AUSENTE ? rs.getString(estado) : null
+        );
+        if (version != AUSENTE) {
+            reserva.setVersion(rs.getInt(version));
+        }
+        return reserva;
+    }
+}
@@ -0,0 +1,172 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: Metricas.java
+    * Descripción: Registro de métricas de latencia y errores por operación, exportable en formato de texto Prometheus.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro central de métricas de la ruta crítica (conexión, repositorio, servicio, controlador y servlet).
+ *
+ * Cada operación tiene un Temporizador que se obtiene una sola vez (normalmente en un campo estático)
+ * y se usa así:
+ * <pre>
+ *     long inicio = System.nanoTime();
+ *     try { ... } catch (SQLException e) { TEMPORIZADOR.error(); ... } finally { TEMPORIZADOR.registrarDesde(inicio); }
+ * </pre>
+ * Registrar una muestra no bloquea ni asigna memoria (ver HistogramaLatencia).
+ */
+public final class Metricas {
+
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // Ordenado por capa y operación para que la exportación sea estable
+    private static final Map<String, Temporizador> TEMPORIZADORES = new ConcurrentSkipListMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * Retorna el temporizador de una operación, creándolo si no existe.
+     *
+     * @param capa Capa de la aplicación (p. ej. "repositorio").
+     * @param operacion Nombre de la operación (p. ej. "crearReserva").
+     * @return Temporizador compartido de la operación.
+     */
+    public static Temporizador temporizador(String capa, String operacion) {
+        return TEMPORIZADORES.computeIfAbsent(capa + "|" + operacion, clave -> new Temporizador(capa, operacion));
+    }
+
+    /**
+     * Escribe todas las métricas en el formato de texto de Prometheus (versión 0.0.4).
+     *
+     * @param salida Destino del texto.
+     * @throws IOException Si falla la escritura.
+     */
+    public static void escribirPrometheus(Appendable salida) throws IOException {
+        salida.append("# HELP casacaribe_operacion_segundos Latencia por operación.\n");
+        salida.append("# TYPE casacaribe_operacion_segundos summary\n");
+        for (Temporizador t : TEMPORIZADORES.values()) {
+            String etiquetas = "capa=\"" + t.capa + "\",operacion=\"" + t.operacion + "\"";
+            for (double cuantil : CUANTILES) {
+                salida.append("casacaribe_operacion_segundos{").append(etiquetas)
+                        .append(",quantile=\"").append(Double.toString(cuantil)).append("\"} ")
+                        .append(segundos(t.latencias.percentil(cuantil * 100))).append('\n');
+            }
+            salida.append("casacaribe_operacion_segundos_sum{").append(etiquetas).append("} ")
+                    .append(segundos(t.latencias.getSumaNanos())).append('\n');
+            salida.append("casacaribe_operacion_segundos_count{").append(etiquetas).append("} ")
+                    .append(Long.toString(t.latencias.getTotal())).append('\n');
+        }
+
+        salida.append("# HELP casacaribe_operacion_segundos_max Latencia máxima observada por operación.\n");
+        salida.append("# TYPE casacaribe_operacion_segundos_max gauge\n");
+        for (Temporizador t : TEMPORIZADORES.values()) {
+            salida.append("casacaribe_operacion_segundos_max{capa=\"").append(t.capa).append("\",operacion=\"")
+                    .append(t.operacion).append("\"} ").append(segundos(t.latencias.getMaximoNanos())).append('\n');
+        }
+
+        salida.append("# HELP casacaribe_operacion_errores_total Errores por operación (SQLException o respuesta 5xx).\n");
+        salida.append("# TYPE casacaribe_operacion_errores_total counter\n");
+        for (Temporizador t : TEMPORIZADORES.values()) {
+            salida.append("casacaribe_operacion_errores_total{capa=\"").append(t.capa).append("\",operacion=\"")
+                    .append(t.operacion).append("\"} ").append(Long.toString(t.errores.sum())).append('\n');
+        }
+
+        PoolConexiones.Estadisticas pool = ConexionDB.getEstadisticasPool();
+        if (pool != null) {
+            gauge(salida, "casacaribe_pool_conexiones_activas", "Conexiones prestadas.", pool.getActivas());
+            gauge(salida, "casacaribe_pool_conexiones_inactivas", "Conexiones libres en el pool.", pool.getInactivas());
+            gauge(salida, "casacaribe_pool_conexiones_esperando", "Hilos esperando una conexión.", pool.getEsperando());
+            contador(salida, "casacaribe_pool_tiempos_agotados_total", "Esperas de conexión agotadas.", pool.getTiemposAgotados());
+        }
+
+        if (ControlAdmision.isHabilitado()) {
+            salida.append("# HELP casacaribe_admision_limite Límite adaptativo de peticiones simultáneas por clase de operación.\n");
+            salida.append("# TYPE casacaribe_admision_limite gauge\n");
+            for (ControlAdmision.Limitador l : ControlAdmision.limitadores()) {
+                porClase(salida, "casacaribe_admision_limite", l, l.getLimite());
+            }
+            salida.append("# HELP casacaribe_admision_en_curso Peticiones admitidas en curso por clase de operación.\n");
+            salida.append("# TYPE casacaribe_admision_en_curso gauge\n");
+            for (ControlAdmision.Limitador l : ControlAdmision.limitadores()) {
+                porClase(salida, "casacaribe_admision_en_curso", l, l.getEnCurso());
+            }
+            salida.append("# HELP casacaribe_admision_esperando Peticiones en la cola de admisión por clase de operación.\n");
+            salida.append("# TYPE casacaribe_admision_esperando gauge\n");
+            for (ControlAdmision.Limitador l : ControlAdmision.limitadores()) {
+                porClase(salida, "casacaribe_admision_esperando", l, l.getEsperando());
+            }
+            salida.append("# HELP casacaribe_admision_rechazadas_total Peticiones rechazadas con 503 por clase de operación.\n");
+            salida.append("# TYPE casacaribe_admision_rechazadas_total counter\n");
+            for (ControlAdmision.Limitador l : ControlAdmision.limitadores()) {
+                porClase(salida, "casacaribe_admision_rechazadas_total", l, l.getRechazadas());
+            }
+        }
+    }
+
+    private static void porClase(Appendable salida, String nombre, ControlAdmision.Limitador limitador, long valor) throws IOException {
+        salida.append(nombre).append("{clase=\"").append(limitador.getClase().getNombre()).append("\"} ")
+                .append(Long.toString(valor)).append('\n');
+    }
+
+    private static void gauge(Appendable salida, String nombre, String ayuda, long valor) throws IOException {
+        salida.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        salida.append("# TYPE ").append(nombre).append(" gauge\n");
+        salida.append(nombre).append(' ').append(Long.toString(valor)).append('\n');
+    }
+
+    private static void contador(Appendable salida, String nombre, String ayuda, long valor) throws IOException {
+        salida.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        salida.append("# TYPE ").append(nombre).append(" counter\n");
+        salida.append(nombre).append(' ').append(Long.toString(valor)).append('\n');
+    }
+
+    private static String segundos(double nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Latencias y errores de una operación.
+     */
+    public static final class Temporizador {
+        private final String capa;
+        private final String operacion;
+        private final HistogramaLatencia latencias = new HistogramaLatencia();
+        private final LongAdder errores = new LongAdder();
+
+        private Temporizador(String capa, String operacion) {
+            this.capa = capa;
+            this.operacion = operacion;
+        }
+
+        /**
+         * Registra la duración de una operación que empezó en inicioNanos (System.nanoTime()).
+         */
+        public void registrarDesde(long inicioNanos) {
+            latencias.registrar(System.nanoTime() - inicioNanos);
+        }
+
+        /**
+         * Cuenta un error de la operación.
+         */
+        public void error() {
+            errores.increment();
+        }
+
+        public HistogramaLatencia getLatencias() {
+            return latencias;
+        }
+
+        public long getErrores() {
+            return errores.sum();
+        }
+    }
+}
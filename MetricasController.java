@@ -0,0 +1,26 @@
+package com.casacaribe.reservas.controller;
+
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Expone las métricas de latencia y errores en formato de texto Prometheus.
+ * URL: GET /metricas
+ */
+@RestController
+public class MetricasController {
+
+    private static final MediaType TEXTO_PROMETHEUS = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    @GetMapping("/metricas")
+    public ResponseEntity<String> obtenerMetricas() throws IOException {
+        StringBuilder texto = new StringBuilder(16 * 1024);
+        Metricas.escribirPrometheus(texto);
+        return ResponseEntity.ok().contentType(TEXTO_PROMETHEUS).body(texto.toString());
+    }
+}
@@ -0,0 +1,24 @@
+import java.io.IOException;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.casacaribe.reservas.util.Metricas;
+
+/**
+ * Expone las métricas de latencia y errores en formato de texto Prometheus
+ * para el despliegue basado en servlets (equivalente a GET /metricas de la API REST).
+ */
+@WebServlet("/metricas")
+public class MetricasServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        Metricas.escribirPrometheus(response.getWriter());
+    }
+}
@@ -0,0 +1,48 @@
+/* Ocupación de un día */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Totales de un día y su desglose por franja, en el orden de las horas.
+ * Solo aparecen las franjas con alguna reserva activa.
+ */
+public class OcupacionDia {
+
+    private final LocalDate fechaReserva;
+    private final int reservas;
+    private final int comensales;
+    private final List<OcupacionFranja> franjas;
+
+    public OcupacionDia(LocalDate fechaReserva, List<OcupacionFranja> franjas) {
+        this.fechaReserva = fechaReserva;
+        this.franjas = Collections.unmodifiableList(franjas);
+        int totalReservas = 0;
+        int totalComensales = 0;
+        for (OcupacionFranja franja : franjas) {
+            totalReservas += franja.getReservas();
+            totalComensales += franja.getComensales();
+        }
+        this.reservas = totalReservas;
+        this.comensales = totalComensales;
+    }
+
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    public int getReservas() {
+        return reservas;
+    }
+
+    public int getComensales() {
+        return comensales;
+    }
+
+    public List<OcupacionFranja> getFranjas() {
+        return franjas;
+    }
+}
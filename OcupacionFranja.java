@@ -0,0 +1,33 @@
+/* Ocupación de una franja horaria */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalTime;
+
+/**
+ * Reservas y comensales (sin contar las canceladas) de una hora concreta de un día.
+ */
+public class OcupacionFranja {
+
+    private final LocalTime horaReserva;
+    private final int reservas;
+    private final int comensales;
+
+    public OcupacionFranja(LocalTime horaReserva, int reservas, int comensales) {
+        this.horaReserva = horaReserva;
+        this.reservas = reservas;
+        this.comensales = comensales;
+    }
+
+    public LocalTime getHoraReserva() {
+        return horaReserva;
+    }
+
+    public int getReservas() {
+        return reservas;
+    }
+
+    public int getComensales() {
+        return comensales;
+    }
+}
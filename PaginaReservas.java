@@ -0,0 +1,96 @@
+/* Página de Reservas */
+
+package com.casacaribe.reservas.modelo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Página de resultados del listado de reservas con paginación por clave (keyset).
+ * El cursor es opaco para el cliente: codifica la última (fecha, hora, id) entregada.
+ */
+public class PaginaReservas {
+
+    private final List<ReservaMesa> reservas;
+    private final String siguienteCursor;
+
+    /**
+     * @param reservas Reservas de la página, en orden de fecha, hora e ID.
+     * @param siguienteCursor Cursor para pedir la siguiente página, o null si es la última.
+     */
+    public PaginaReservas(List<ReservaMesa> reservas, String siguienteCursor) {
+        this.reservas = reservas;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<ReservaMesa> getReservas() {
+        return reservas;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Codifica la posición de una reserva como cursor opaco (Base64 URL-safe).
+     * @param ultima Última reserva entregada al cliente.
+     * @return El cursor codificado.
+     */
+    public static String codificarCursor(ReservaMesa ultima) {
+        String valor = ultima.getFechaReserva() + "|" + ultima.getHoraReserva() + "|" + ultima.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente.
+     * @param cursor Cursor opaco, o null/vacío para la primera página.
+     * @return La posición decodificada, o null si no se recibió cursor.
+     * @throws IllegalArgumentException Si el cursor no es válido.
+     */
+    public static Cursor decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor de paginación inválido.");
+            }
+            return new Cursor(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Integer.parseInt(partes[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido.", e);
+        }
+    }
+
+    /**
+     * Posición (fecha, hora, id) a partir de la cual continúa el listado.
+     */
+    public static class Cursor {
+        private final LocalDate fechaReserva;
+        private final LocalTime horaReserva;
+        private final int id;
+
+        public Cursor(LocalDate fechaReserva, LocalTime horaReserva, int id) {
+            this.fechaReserva = fechaReserva;
+            this.horaReserva = horaReserva;
+            this.id = id;
+        }
+
+        public LocalDate getFechaReserva() {
+            return fechaReserva;
+        }
+
+        public LocalTime getHoraReserva() {
+            return horaReserva;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
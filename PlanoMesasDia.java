@@ -0,0 +1,37 @@
+/* Plano de mesas de un día */
+
+package com.casacaribe.reservas.modelo;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mesas asignadas a las reservas activas de un día, ordenadas por hora y mesa.
+ * Las reservas sin mesa (anteriores al plano del salón o que ya no caben en él) se listan aparte
+ * para que el encargado de sala las resuelva a mano.
+ */
+public class PlanoMesasDia {
+
+    private final LocalDate fechaReserva;
+    private final List<AsignacionMesa> asignaciones;
+    private final List<AsignacionMesa> sinMesa;
+
+    public PlanoMesasDia(LocalDate fechaReserva, List<AsignacionMesa> asignaciones, List<AsignacionMesa> sinMesa) {
+        this.fechaReserva = fechaReserva;
+        this.asignaciones = Collections.unmodifiableList(asignaciones);
+        this.sinMesa = Collections.unmodifiableList(sinMesa);
+    }
+
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    public List<AsignacionMesa> getAsignaciones() {
+        return asignaciones;
+    }
+
+    public List<AsignacionMesa> getSinMesa() {
+        return sinMesa;
+    }
+}
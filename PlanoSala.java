@@ -0,0 +1,181 @@
+package com.casacaribe.reservas.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plano del salón: mesas con su capacidad, mesas que pueden juntarse y duración del turno
+ * según el tamaño del grupo. Se describe con tres textos (p. ej. propiedades de configuración):
+ * <pre>
+ *   mesas          M1:2,M2:2,M3:4         código:capacidad
+ *   combinaciones  M1+M2,M2+M3            mesas que pueden juntarse
+ *   turnos         2:90,4:120,10:150      hasta N personas:minutos
+ * </pre>
+ * Cada mesa y cada combinación es una opción de asiento. Las opciones se ordenan por capacidad
+ * y, a igual capacidad, prefiriendo menos mesas, que es el orden en que las prueba el asignador.
+ */
+public final class PlanoSala {
+
+    private final String[] codigos;
+    private final int[] capacidades;
+    private final Opcion[] opciones;
+    private final int[] turnoHastaPersonas;
+    private final int[] turnoMinutos;
+
+    private PlanoSala(String[] codigos, int[] capacidades, Opcion[] opciones, int[] turnoHastaPersonas, int[] turnoMinutos) {
+        this.codigos = codigos;
+        this.capacidades = capacidades;
+        this.opciones = opciones;
+        this.turnoHastaPersonas = turnoHastaPersonas;
+        this.turnoMinutos = turnoMinutos;
+    }
+
+    /**
+     * @throws IllegalArgumentException Si algún texto está mal formado, una mesa se repite
+     *                                  o una combinación nombra una mesa inexistente.
+     */
+    public static PlanoSala desdeTexto(String mesas, String combinaciones, String turnos) {
+        List<String> codigos = new ArrayList<>();
+        List<Integer> capacidades = new ArrayList<>();
+        Map<String, Integer> indices = new HashMap<>();
+        for (String mesa : partir(mesas)) {
+            String[] partes = mesa.split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Mesa no válida (se espera código:capacidad): " + mesa);
+            }
+            String codigo = partes[0].trim();
+            int capacidad = entero(partes[1], mesa);
+            if (indices.putIfAbsent(codigo, codigos.size()) != null) {
+                throw new IllegalArgumentException("Mesa repetida en el plano: " + codigo);
+            }
+            codigos.add(codigo);
+            capacidades.add(capacidad);
+        }
+        if (codigos.isEmpty()) {
+            throw new IllegalArgumentException("El plano del salón no tiene mesas.");
+        }
+
+        List<Opcion> opciones = new ArrayList<>();
+        for (int i = 0; i < codigos.size(); i++) {
+            opciones.add(new Opcion(codigos.get(i), new int[]{i}, capacidades.get(i)));
+        }
+        for (String combinacion : partir(combinaciones)) {
+            String[] partes = combinacion.split("\\+");
+            int[] mesasCombinadas = new int[partes.length];
+            int capacidad = 0;
+            for (int j = 0; j < partes.length; j++) {
+                Integer indice = indices.get(partes[j].trim());
+                if (indice == null) {
+                    throw new IllegalArgumentException("La combinación " + combinacion + " nombra una mesa inexistente: " + partes[j].trim());
+                }
+                mesasCombinadas[j] = indice;
+                capacidad += capacidades.get(indice);
+            }
+            if (partes.length < 2 || Arrays.stream(mesasCombinadas).distinct().count() != partes.length) {
+                throw new IllegalArgumentException("Combinación no válida: " + combinacion);
+            }
+            opciones.add(new Opcion(combinacion.replace(" ", ""), mesasCombinadas, capacidad));
+        }
+        opciones.sort(Comparator.comparingInt((Opcion o) -> o.capacidad).thenComparingInt(o -> o.mesas.length));
+
+        List<int[]> tramos = new ArrayList<>();
+        for (String turno : partir(turnos)) {
+            String[] partes = turno.split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Turno no válido (se espera personas:minutos): " + turno);
+            }
+            tramos.add(new int[]{entero(partes[0], turno), entero(partes[1], turno)});
+        }
+        if (tramos.isEmpty()) {
+            throw new IllegalArgumentException("El plano del salón no define la duración de los turnos.");
+        }
+        tramos.sort(Comparator.comparingInt(t -> t[0]));
+
+        return new PlanoSala(
+                codigos.toArray(new String[0]),
+                capacidades.stream().mapToInt(Integer::intValue).toArray(),
+                opciones.toArray(new Opcion[0]),
+                tramos.stream().mapToInt(t -> t[0]).toArray(),
+                tramos.stream().mapToInt(t -> t[1]).toArray());
+    }
+
+    /**
+     * @return Número de mesas individuales.
+     */
+    public int getNumMesas() {
+        return codigos.length;
+    }
+
+    public String getCodigoMesa(int mesa) {
+        return codigos[mesa];
+    }
+
+    public int getCapacidadMesa(int mesa) {
+        return capacidades[mesa];
+    }
+
+    /**
+     * @return Mayor capacidad entre mesas y combinaciones.
+     */
+    public int getCapacidadMaxima() {
+        return opciones[opciones.length - 1].capacidad;
+    }
+
+    /**
+     * @return Minutos de turno del primer tramo que admite el grupo (el último tramo cubre a los mayores).
+     */
+    public int minutosTurno(int numPersonas) {
+        for (int i = 0; i < turnoHastaPersonas.length; i++) {
+            if (numPersonas <= turnoHastaPersonas[i]) {
+                return turnoMinutos[i];
+            }
+        }
+        return turnoMinutos[turnoMinutos.length - 1];
+    }
+
+    Opcion[] getOpciones() {
+        return opciones;
+    }
+
+    private static String[] partir(String texto) {
+        return (texto == null || texto.trim().isEmpty()) ? new String[0] : texto.trim().split("\\s*,\\s*");
+    }
+
+    private static int entero(String texto, String elemento) {
+        try {
+            int valor = Integer.parseInt(texto.trim());
+            if (valor < 1) {
+                throw new NumberFormatException();
+            }
+            return valor;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número no válido en el plano del salón: " + elemento);
+        }
+    }
+
+    /**
+     * Opción de asiento: una mesa o una combinación de mesas (índices en el plano).
+     */
+    static final class Opcion {
+        final String codigo;
+        final int[] mesas;
+        final int capacidad;
+
+        private Opcion(String codigo, int[] mesas, int capacidad) {
+            this.codigo = codigo;
+            this.mesas = mesas;
+            this.capacidad = capacidad;
+        }
+
+        /**
+         * @return true si esta opción aprovecha mejor el salón que otra: menos asientos o, con los mismos, menos mesas.
+         */
+        boolean mejorQue(Opcion otra) {
+            return capacidad < otra.capacidad || (capacidad == otra.capacidad && mesas.length < otra.mesas.length);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/* Proyecto: Casa Caribe - Sistema de Reservas
+    * Archivo: PoolConexiones.java
+    * Descripción: Pool acotado de conexiones JDBC utilizado por ConexionDB.
+    * Autor: Equipo de Desarrollo Casa Caribe
+    */
+
+package com.casacaribe.reservas.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * Reutiliza conexiones físicas para evitar el handshake TCP + autenticación en cada petición.
+ * Las conexiones entregadas son envoltorios: al llamar a close() vuelven al pool en lugar de cerrarse,
+ * por lo que ConexionDB.closeConnection() sigue funcionando sin cambios en los repositorios.
+ */
+public class PoolConexiones {
+
+    /**
+     * Fábrica de conexiones físicas (por defecto, DriverManager desde ConexionDB).
+     */
+    public interface FabricaConexiones {
+        Connection crear() throws SQLException;
+    }
+
+    /**
+     * Parámetros de configuración del pool.
+     */
+    public static class Configuracion {
+        private int tamanoMinimo = 2;
+        private int tamanoMaximo = 10;
+        private long tiempoEsperaMs = 5_000;
+        private long tiempoInactividadMs = 10 * 60_000;
+        private int tiempoValidacionSeg = 2;
+        private long umbralValidacionMs = 500;
+        private long umbralFugaMs = 60_000;
+        private long intervaloMantenimientoMs = 30_000;
+
+        /**
+         * Construye la configuración a partir de propiedades del sistema (-Dcasacaribe.db.pool.*).
+         * @return Configuración con los valores por defecto sobrescritos por las propiedades presentes.
+         */
+        public static Configuracion desdePropiedadesSistema() {
+            Configuracion c = new Configuracion();
+            c.tamanoMinimo = Integer.getInteger("casacaribe.db.pool.minimo", c.tamanoMinimo);
+            c.tamanoMaximo = Integer.getInteger("casacaribe.db.pool.maximo", c.tamanoMaximo);
+            c.tiempoEsperaMs = Long.getLong("casacaribe.db.pool.esperaMs", c.tiempoEsperaMs);
+            c.tiempoInactividadMs = Long.getLong("casacaribe.db.pool.inactividadMs", c.tiempoInactividadMs);
+            c.tiempoValidacionSeg = Integer.getInteger("casacaribe.db.pool.validacionSeg", c.tiempoValidacionSeg);
+            c.umbralValidacionMs = Long.getLong("casacaribe.db.pool.validacionTrasMs", c.umbralValidacionMs);
+            c.umbralFugaMs = Long.getLong("casacaribe.db.pool.fugaMs", c.umbralFugaMs);
+            return c;
+        }
+
+        public Configuracion tamanoMinimo(int tamanoMinimo) { this.tamanoMinimo = tamanoMinimo; return this; }
+        public Configuracion tamanoMaximo(int tamanoMaximo) { this.tamanoMaximo = tamanoMaximo; return this; }
+        public Configuracion tiempoEsperaMs(long tiempoEsperaMs) { this.tiempoEsperaMs = tiempoEsperaMs; return this; }
+        public Configuracion tiempoInactividadMs(long tiempoInactividadMs) { this.tiempoInactividadMs = tiempoInactividadMs; return this; }
+        public Configuracion tiempoValidacionSeg(int tiempoValidacionSeg) { this.tiempoValidacionSeg = tiempoValidacionSeg; return this; }
+        /** @param umbralValidacionMs Inactividad a partir de la cual se valida la conexión al prestarla (0 valida siempre). */
+        public Configuracion umbralValidacionMs(long umbralValidacionMs) { this.umbralValidacionMs = umbralValidacionMs; return this; }
+        /** @param umbralFugaMs Tiempo máximo de préstamo antes de reportar una fuga (0 desactiva la detección). */
+        public Configuracion umbralFugaMs(long umbralFugaMs) { this.umbralFugaMs = umbralFugaMs; return this; }
+        public Configuracion intervaloMantenimientoMs(long intervaloMantenimientoMs) { this.intervaloMantenimientoMs = intervaloMantenimientoMs; return this; }
+    }
+
+    // Límites (en microsegundos) de los cubos del histograma de tiempos de adquisición
+    private static final long[] LIMITES_HISTOGRAMA_US = {10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000};
+
+    private final Configuracion config;
+    private final FabricaConexiones fabrica;
+
+    // Conexiones físicas libres; LIFO para reutilizar primero la conexión "más caliente"
+    private final LinkedBlockingDeque<ConexionFisica> inactivas = new LinkedBlockingDeque<>();
+    // Un permiso por conexión que puede estar prestada; acota el tamaño total del pool
+    private final Semaphore permisos;
+    private final Map<ConexionFisica, Prestamo> prestadas = new ConcurrentHashMap<>();
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final AtomicLong creadas = new AtomicLong();
+    private final AtomicLong destruidas = new AtomicLong();
+    private final AtomicLong tiemposAgotados = new AtomicLong();
+    private final AtomicLongArray histograma = new AtomicLongArray(LIMITES_HISTOGRAMA_US.length + 1);
+
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    public PoolConexiones(Configuracion config, FabricaConexiones fabrica) {
+        if (config.tamanoMinimo < 0 || config.tamanoMaximo < 1 || config.tamanoMinimo > config.tamanoMaximo) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: mínimo=" + config.tamanoMinimo + ", máximo=" + config.tamanoMaximo);
+        }
+        this.config = config;
+        this.fabrica = fabrica;
+        this.permisos = new Semaphore(config.tamanoMaximo, true);
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "casacaribe-pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, config.intervaloMantenimientoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene una conexión del pool, esperando como máximo el tiempo configurado.
+     *
+     * @return Conexión lista para usar; su close() la devuelve al pool.
+     * @throws SQLException Si se agota el tiempo de espera o no se puede abrir una conexión física.
+     */
+    public Connection obtener() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+        long inicio = System.nanoTime();
+        esperando.incrementAndGet();
+        try {
+            if (!permisos.tryAcquire(config.tiempoEsperaMs, TimeUnit.MILLISECONDS)) {
+                tiemposAgotados.incrementAndGet();
+                throw new SQLException("Tiempo de espera agotado (" + config.tiempoEsperaMs + " ms) al obtener una conexión del pool.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", e);
+        } finally {
+            esperando.decrementAndGet();
+        }
+
+        try {
+            ConexionFisica fisica = tomarInactivaValida();
+            if (fisica == null) {
+                fisica = abrir();
+            }
+            registrarTiempoAdquisicion(System.nanoTime() - inicio);
+            return prestar(fisica);
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones inactivas. Las prestadas se cierran al devolverse.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            destruir(fisica);
+        }
+    }
+
+    /**
+     * @return Instantánea de las estadísticas actuales del pool.
+     */
+    public Estadisticas getEstadisticas() {
+        long[] cubos = new long[histograma.length()];
+        for (int i = 0; i < cubos.length; i++) {
+            cubos[i] = histograma.get(i);
+        }
+        return new Estadisticas(prestadas.size(), inactivas.size(), esperando.get(), total.get(),
+                creadas.get(), destruidas.get(), tiemposAgotados.get(), cubos);
+    }
+
+    // --- Gestión interna de conexiones ---
+
+    private ConexionFisica tomarInactivaValida() {
+        ConexionFisica fisica;
+        while ((fisica = inactivas.pollFirst()) != null) {
+            if (!requiereValidacion(fisica) || esValida(fisica)) {
+                return fisica;
+            }
+            destruir(fisica);
+        }
+        return null;
+    }
+
+    // Una conexión devuelta hace poco se presta sin ida y vuelta al servidor: si se hubiera roto,
+    // el primer error de conexión (SQLState 08) la marca como dañada y no vuelve al pool
+    private boolean requiereValidacion(ConexionFisica fisica) {
+        return System.currentTimeMillis() - fisica.ultimoUso > config.umbralValidacionMs;
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        try {
+            return !fisica.conexion.isClosed() && fisica.conexion.isValid(config.tiempoValidacionSeg);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private ConexionFisica abrir() throws SQLException {
+        Connection conexion = fabrica.crear();
+        total.incrementAndGet();
+        creadas.incrementAndGet();
+        return new ConexionFisica(conexion);
+    }
+
+    private void destruir(ConexionFisica fisica) {
+        total.decrementAndGet();
+        destruidas.incrementAndGet();
+        try {
+            fisica.conexion.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar una conexión física del pool: " + e.getMessage());
+        }
+    }
+
+    private Connection prestar(ConexionFisica fisica) {
+        Throwable origen = config.umbralFugaMs > 0 ? new Throwable("Conexión obtenida aquí") : null;
+        Prestamo prestamo = new Prestamo(fisica, System.currentTimeMillis(), origen);
+        prestadas.put(fisica, prestamo);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, prestamo);
+    }
+
+    private void devolver(ConexionFisica fisica, boolean danada) {
+        prestadas.remove(fisica);
+        try {
+            if (danada || cerrado || fisica.conexion.isClosed()) {
+                destruir(fisica);
+                return;
+            }
+            // Restaurar el estado por defecto antes de reutilizar la conexión
+            if (!fisica.conexion.getAutoCommit()) {
+                fisica.conexion.rollback();
+                fisica.conexion.setAutoCommit(true);
+            }
+            fisica.ultimoUso = System.currentTimeMillis();
+            inactivas.offerFirst(fisica);
+        } catch (SQLException e) {
+            destruir(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Tarea periódica: desaloja conexiones inactivas, repone el mínimo y reporta posibles fugas.
+     */
+    private void mantener() {
+        if (cerrado) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+
+        // Desalojo por inactividad, respetando el tamaño mínimo
+        for (ConexionFisica fisica : inactivas) {
+            if (total.get() <= config.tamanoMinimo) {
+                break;
+            }
+            if (ahora - fisica.ultimoUso > config.tiempoInactividadMs && inactivas.remove(fisica)) {
+                destruir(fisica);
+            }
+        }
+
+        // Reposición hasta el tamaño mínimo
+        while (total.get() < config.tamanoMinimo && permisos.tryAcquire()) {
+            try {
+                inactivas.offerLast(abrir());
+            } catch (SQLException e) {
+                System.err.println("No se pudo precalentar el pool: " + e.getMessage());
+                break;
+            } finally {
+                permisos.release();
+            }
+        }
+
+        // Detección de fugas: préstamos que superan el umbral configurado
+        if (config.umbralFugaMs > 0) {
+            for (Prestamo prestamo : prestadas.values()) {
+                if (!prestamo.fugaReportada && ahora - prestamo.inicio > config.umbralFugaMs) {
+                    prestamo.fugaReportada = true;
+                    System.err.println("Posible fuga de conexión: prestada hace " + (ahora - prestamo.inicio) + " ms.");
+                    prestamo.origen.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void registrarTiempoAdquisicion(long nanos) {
+        long micros = nanos / 1_000;
+        int i = 0;
+        while (i < LIMITES_HISTOGRAMA_US.length && micros > LIMITES_HISTOGRAMA_US[i]) {
+            i++;
+        }
+        histograma.incrementAndGet(i);
+    }
+
+    // --- Clases auxiliares ---
+
+    private static final class ConexionFisica {
+        private final Connection conexion;
+        private volatile long ultimoUso = System.currentTimeMillis();
+
+        private ConexionFisica(Connection conexion) {
+            this.conexion = conexion;
+        }
+    }
+
+    /**
+     * Préstamo de una conexión física: intercepta close() para devolverla al pool.
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private final long inicio;
+        private final Throwable origen;
+        private volatile boolean fugaReportada;
+        // Sin monitores: devolver() hace E/S y no debe fijar hilos virtuales a su portador
+        private final AtomicBoolean devuelta = new AtomicBoolean();
+        private volatile boolean danada;
+
+        private Prestamo(ConexionFisica fisica, long inicio, Throwable origen) {
+            this.fisica = fisica;
+            this.inicio = inicio;
+            this.origen = origen;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (devuelta.compareAndSet(false, true)) {
+                        devolver(fisica, danada);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta.get() || fisica.conexion.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionAgrupada[" + fisica.conexion + "]";
+                default:
+                    break;
+            }
+            if (devuelta.get()) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            try {
+                return method.invoke(fisica.conexion, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                // Un error de conexión (SQLState clase 08) invalida la conexión física
+                if (causa instanceof SQLException && ((SQLException) causa).getSQLState() != null
+                        && ((SQLException) causa).getSQLState().startsWith("08")) {
+                    danada = true;
+                }
+                throw causa;
+            }
+        }
+    }
+
+    /**
+     * Instantánea inmutable de las estadísticas del pool.
+     */
+    public static final class Estadisticas {
+        private final int activas;
+        private final int inactivas;
+        private final int esperando;
+        private final int total;
+        private final long creadas;
+        private final long destruidas;
+        private final long tiemposAgotados;
+        private final long[] histogramaAdquisicion;
+
+        private Estadisticas(int activas, int inactivas, int esperando, int total, long creadas,
+                             long destruidas, long tiemposAgotados, long[] histogramaAdquisicion) {
+            this.activas = activas;
+            this.inactivas = inactivas;
+            this.esperando = esperando;
+            this.total = total;
+            this.creadas = creadas;
+            this.destruidas = destruidas;
+            this.tiemposAgotados = tiemposAgotados;
+            this.histogramaAdquisicion = histogramaAdquisicion;
+        }
+
+        public int getActivas() { return activas; }
+        public int getInactivas() { return inactivas; }
+        public int getEsperando() { return esperando; }
+        public int getTotal() { return total; }
+        public long getCreadas() { return creadas; }
+        public long getDestruidas() { return destruidas; }
+        public long getTiemposAgotados() { return tiemposAgotados; }
+
+        /**
+         * @return Límites superiores (µs) de cada cubo del histograma; el último cubo no tiene límite.
+         */
+        public static long[] getLimitesHistogramaUs() { return LIMITES_HISTOGRAMA_US.clone(); }
+
+        /**
+         * @return Número de adquisiciones por cubo de tiempo de espera.
+         */
+        public long[] getHistogramaAdquisicion() { return histogramaAdquisicion.clone(); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("EstadisticasPool{")
+                    .append("activas=").append(activas)
+                    .append(", inactivas=").append(inactivas)
+                    .append(", esperando=").append(esperando)
+                    .append(", total=").append(total)
+                    .append(", creadas=").append(creadas)
+                    .append(", destruidas=").append(destruidas)
+                    .append(", tiemposAgotados=").append(tiemposAgotados)
+                    .append(", adquisicion={");
+            for (int i = 0; i < histogramaAdquisicion.length; i++) {
+                sb.append(i < LIMITES_HISTOGRAMA_US.length ? "<=" + LIMITES_HISTOGRAMA_US[i] + "us" : "+Inf")
+                  .append('=').append(histogramaAdquisicion[i]);
+                if (i < histogramaAdquisicion.length - 1) {
+                    sb.append(", ");
+                }
+            }
+            return sb.append("}}").toString();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.casacaribe.reservas.repository;
+
+import java.io.IOException;
+
+/**
+ * Recibe, una a una, las filas de una consulta recorrida en modo streaming.
+ * Permite procesar resultados grandes sin materializar la lista completa en memoria.
+ *
+ * @param <T> Tipo de objeto al que se mapea cada fila.
+ */
+@FunctionalInterface
+public interface ProcesadorFila<T> {
+
+    /**
+     * Procesa una fila ya mapeada.
+     *
+     * @param fila Objeto mapeado desde la fila actual del ResultSet.
+     * @throws IOException Si falla la escritura hacia el destino (p. ej. el cliente cerró la conexión).
+     */
+    void procesar(T fila) throws IOException;
+}
@@ -0,0 +1,50 @@
+package com.casacaribe.reservas.repository;
+
+import java.util.Locale;
+
+/**
+ * Columnas de la tabla reservas que lee cada tipo de consulta.
+ * Las columnas que una proyección omite quedan en null (o 0) en la ReservaMesa mapeada.
+ */
+public enum ProyeccionReserva {
+
+    /** Todas las columnas de la reserva. */
+    COMPLETA("id, fecha_reserva, hora_reserva, num_personas, nombre_cliente, email_cliente, estado, version"),
+
+    /** Vista de listado: sin datos de contacto del cliente (nombre y email). */
+    RESUMEN("id, fecha_reserva, hora_reserva, num_personas, estado, version"),
+
+    /** Vista del puesto de recepción: como RESUMEN más el nombre del cliente. */
+    RECEPCION("id, fecha_reserva, hora_reserva, num_personas, nombre_cliente, estado, version");
+
+    private final String columnas;
+
+    ProyeccionReserva(String columnas) {
+        this.columnas = columnas;
+    }
+
+    /**
+     * @return Lista de columnas para la cláusula SELECT.
+     */
+    public String getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * Resuelve el parámetro "vista" de la API.
+     *
+     * @param vista "completa", "resumen" o null (completa).
+     * @return La proyección correspondiente.
+     * @throws IllegalArgumentException Si la vista no existe.
+     */
+    public static ProyeccionReserva desdeVista(String vista) {
+        if (vista == null || vista.isEmpty()) {
+            return COMPLETA;
+        }
+        try {
+            return valueOf(vista.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Vista no válida: " + vista, e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.IdempotenciaRepository;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import com.casacaribe.reservas.util.CacheAcotada;
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Altas idempotentes: la primera petición con una clave (cabecera Idempotency-Key o token del formulario)
+ * crea la reserva; las repeticiones con la misma clave reciben la reserva original sin volver a crearla.
+ *
+ * Las repeticiones se resuelven, en este orden:
+ * <ul>
+ *   <li>desde memoria, si el alta original ya terminó en esta instancia (caché acotada con expiración);</li>
+ *   <li>esperando al alta original, si sigue en curso en esta instancia (sin tocar la base de datos);</li>
+ *   <li>desde la tabla claves_idempotencia, cuya clave primaria impide que dos instancias ejecuten la misma alta.</li>
+ * </ul>
+ * Un alta que falla libera su clave, de modo que un reintento vuelve a intentarla. Si lo que falla es
+ * completar la clave (la reserva ya existe), la clave no se libera: se reintenta completarla en segundo plano
+ * mientras las repeticiones en esta instancia se resuelven desde memoria.
+ */
+@Component
+public class RegistroIdempotencia {
+
+    public static final int LONGITUD_CLAVE_MAXIMA = 128;
+    // Tiempo máximo que una repetición espera al alta original en curso en esta instancia
+    private static final long ESPERA_MAXIMA_MS = 30_000L;
+    // Pausa entre intentos de completar una clave cuya escritura falló
+    private static final long REINTENTO_COMPLETAR_SEG = 5L;
+
+    private static final Metricas.Temporizador T_EJECUTAR = Metricas.temporizador("idempotencia", "ejecutar");
+    private static final Metricas.Temporizador T_REPETICION = Metricas.temporizador("idempotencia", "repeticion");
+
+    private final ReservaRepository reservaRepository;
+    private final IdempotenciaRepository repositorio = new IdempotenciaRepository();
+    private final long conservacionSegundos;
+    private final long abandonoSegundos;
+    private final CacheAcotada<String, Resultado> resultados;
+    private final Map<String, CompletableFuture<Resultado>> enCurso = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purga;
+
+    /**
+     * @param tamano Máximo de resultados en memoria.
+     * @param conservacionHoras Tiempo que se conserva cada clave (en memoria y en la tabla).
+     * @param abandonoSegundos Antigüedad a partir de la cual un alta en curso se da por abandonada.
+     */
+    @Autowired
+    public RegistroIdempotencia(ReservaRepository reservaRepository,
+                                @Value("${casacaribe.idempotencia.tamano:10000}") int tamano,
+                                @Value("${casacaribe.idempotencia.conservacionHoras:24}") long conservacionHoras,
+                                @Value("${casacaribe.idempotencia.abandonoSegundos:120}") long abandonoSegundos) {
+        this.reservaRepository = reservaRepository;
+        this.conservacionSegundos = TimeUnit.HOURS.toSeconds(conservacionHoras);
+        this.abandonoSegundos = abandonoSegundos;
+        this.resultados = new CacheAcotada<>(tamano, TimeUnit.HOURS.toMillis(conservacionHoras));
+        this.purga = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "casacaribe-idempotencia-purga");
+            t.setDaemon(true);
+            return t;
+        });
+        purga.scheduleWithFixedDelay(this::purgar, 1, 60, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Construye el registro a partir de propiedades del sistema (para uso fuera de Spring, p. ej. el servlet).
+     */
+    public static RegistroIdempotencia desdePropiedadesSistema(ReservaRepository reservaRepository) {
+        return new RegistroIdempotencia(reservaRepository,
+                Integer.getInteger("casacaribe.idempotencia.tamano", 10_000),
+                Long.getLong("casacaribe.idempotencia.conservacionHoras", 24L),
+                Long.getLong("casacaribe.idempotencia.abandonoSegundos", 120L));
+    }
+
+    /**
+     * Ejecuta un alta una sola vez por clave.
+     *
+     * @param clave Clave elegida por el cliente.
+     * @param huella Resumen de los datos de la petición (ver {@link #huella(ReservaMesa)}).
+     * @param alta Crea y devuelve la reserva; solo se invoca si la clave es nueva.
+     * @return La reserva creada por esta petición o por la original.
+     * @throws IllegalArgumentException Si la clave está vacía o es demasiado larga, o el alta la rechaza.
+     * @throws ConflictoIdempotenciaException Si la clave no puede resolverse con la reserva original.
+     */
+    public ReservaMesa ejecutar(String clave, String huella, Supplier<ReservaMesa> alta) {
+        if (clave == null || clave.trim().isEmpty() || clave.length() > LONGITUD_CLAVE_MAXIMA) {
+            throw new IllegalArgumentException("La clave de idempotencia debe tener entre 1 y " + LONGITUD_CLAVE_MAXIMA + " caracteres.");
+        }
+        long inicio = System.nanoTime();
+        try {
+            Optional<Resultado> conocido = resultados.obtener(clave, c -> Optional.empty());
+            if (conocido.isPresent()) {
+                T_REPETICION.registrarDesde(inicio);
+                return conocido.get().para(huella);
+            }
+            CompletableFuture<Resultado> propio = new CompletableFuture<>();
+            CompletableFuture<Resultado> original = enCurso.putIfAbsent(clave, propio);
+            if (original != null) {
+                // Repetición concurrente en esta instancia: espera el resultado del alta original
+                Resultado resultado = esperar(original);
+                T_REPETICION.registrarDesde(inicio);
+                return resultado.para(huella);
+            }
+            try {
+                Resultado resultado = ejecutarUnaVez(clave, huella, alta);
+                propio.complete(resultado);
+                return resultado.para(huella);
+            } catch (RuntimeException e) {
+                propio.completeExceptionally(e);
+                throw e;
+            } finally {
+                enCurso.remove(clave, propio);
+            }
+        } finally {
+            T_EJECUTAR.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * Resumen de los datos de una reserva nueva: una clave repetida con otro resumen es otra petición.
+     */
+    public static String huella(ReservaMesa reserva) {
+        String datos = reserva.getFechaReserva() + "|" + reserva.getHoraReserva() + "|" + reserva.getNumPersonas()
+                + "|" + reserva.getNombreCliente() + "|" + reserva.getEmailCliente() + "|" + reserva.getEstado();
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(datos.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(resumen.length * 2);
+            for (byte b : resumen) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible.", e);
+        }
+    }
+
+    /**
+     * @return Número de resultados en memoria.
+     */
+    public int getTamano() {
+        return resultados.getTamano();
+    }
+
+    /**
+     * Detiene la purga periódica (al detener la aplicación).
+     */
+    @PreDestroy
+    public void detener() {
+        purga.shutdownNow();
+    }
+
+    private Resultado ejecutarUnaVez(String clave, String huella, Supplier<ReservaMesa> alta) {
+        if (!repositorio.reclamar(clave, huella, abandonoSegundos)) {
+            // La clave ya existía: el alta se hizo (o se está haciendo) en otra petición
+            return desdeBaseDatos(clave);
+        }
+        ReservaMesa creada;
+        try {
+            creada = alta.get();
+        } catch (RuntimeException e) {
+            repositorio.liberar(clave);
+            throw e;
+        }
+        Resultado resultado = new Resultado(huella, new ReservaMesa(creada));
+        resultados.actualizar(clave, resultado);
+        try {
+            repositorio.completar(clave, creada.getId());
+        } catch (IllegalStateException e) {
+            // Liberar la clave permitiría crear la reserva otra vez: se conserva en curso y se reintenta
+            System.err.println("No se pudo completar la clave de idempotencia " + clave + "; se reintentará: " + e.getMessage());
+            programarCompletar(clave, creada.getId(), System.nanoTime());
+        }
+        return resultado;
+    }
+
+    private void programarCompletar(String clave, int reservaId, long desde) {
+        purga.schedule(() -> completarPendiente(clave, reservaId, desde), REINTENTO_COMPLETAR_SEG, TimeUnit.SECONDS);
+    }
+
+    private void completarPendiente(String clave, int reservaId, long desde) {
+        try {
+            repositorio.completar(clave, reservaId);
+        } catch (IllegalStateException e) {
+            if (System.nanoTime() - desde < TimeUnit.SECONDS.toNanos(abandonoSegundos)) {
+                programarCompletar(clave, reservaId, desde);
+            } else {
+                // Pasado el plazo de abandono otra petición puede reclamar la clave y crear otra reserva
+                System.err.println("Se abandona la clave de idempotencia " + clave + " de la reserva " + reservaId
+                        + ": no se pudo completar en " + abandonoSegundos + " s.");
+            }
+        }
+    }
+
+    private Resultado desdeBaseDatos(String clave) {
+        IdempotenciaRepository.Registro registro = repositorio.consultar(clave).orElse(null);
+        if (registro == null || registro.getReservaId() == null) {
+            throw new ConflictoIdempotenciaException(ConflictoIdempotenciaException.Motivo.EN_CURSO,
+                    "El alta con la clave " + clave + " sigue en curso.");
+        }
+        ReservaMesa reserva = reservaRepository.findById((long) registro.getReservaId())
+                .orElseThrow(() -> new ConflictoIdempotenciaException(ConflictoIdempotenciaException.Motivo.RESERVA_ELIMINADA,
+                        "La reserva " + registro.getReservaId() + " creada con la clave " + clave + " ya no existe."));
+        Resultado resultado = new Resultado(registro.getHuella(), reserva);
+        resultados.actualizar(clave, resultado);
+        return resultado;
+    }
+
+    private static Resultado esperar(CompletableFuture<Resultado> original) {
+        try {
+            return original.get(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // El alta original falló: la repetición recibe el mismo error
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConflictoIdempotenciaException(ConflictoIdempotenciaException.Motivo.EN_CURSO,
+                    "El alta original sigue en curso.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictoIdempotenciaException(ConflictoIdempotenciaException.Motivo.EN_CURSO,
+                    "Interrumpido mientras se esperaba el alta original.");
+        }
+    }
+
+    private void purgar() {
+        int borradas = repositorio.purgarAnteriores(conservacionSegundos);
+        if (borradas > 0) {
+            System.out.println("Claves de idempotencia purgadas: " + borradas);
+        }
+    }
+
+    /**
+     * Resultado de un alta: la huella de su petición y la reserva creada.
+     */
+    private static final class Resultado {
+        private final String huella;
+        private final ReservaMesa reserva;
+
+        private Resultado(String huella, ReservaMesa reserva) {
+            this.huella = huella;
+            this.reserva = reserva;
+        }
+
+        /**
+         * @return Copia de la reserva para una petición con esa huella.
+         * @throws ConflictoIdempotenciaException Si la huella es de otra petición.
+         */
+        private ReservaMesa para(String huellaPeticion) {
+            if (!huella.equals(huellaPeticion)) {
+                throw new ConflictoIdempotenciaException(ConflictoIdempotenciaException.Motivo.OTRA_PETICION,
+                        "La clave de idempotencia ya se usó con otros datos.");
+            }
+            return new ReservaMesa(reserva);
+        }
+    }
+}
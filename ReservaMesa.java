@@ -19,6 +19,8 @@ public class ReservaMesa {
     private String nombreCliente;
     private String emailCliente;
     private String estado;
+    // Versión para control de concurrencia optimista; la incrementa cada actualización
+    private int version;
 
     /**
      * Constructor vacío.
@@ -46,6 +48,15 @@ public class ReservaMesa {
         this.estado = estado;
     }
 
+    /**
+     * Constructor de copia (p. ej. para entregar copias de las reservas en caché).
+     * @param otra La reserva a copiar.
+     */
+    public ReservaMesa(ReservaMesa otra) {
+        this(otra.id, otra.fechaReserva, otra.horaReserva, otra.numPersonas, otra.nombreCliente, otra.emailCliente, otra.estado);
+        this.version = otra.version;
+    }
+
     // Nomenclatura de Métodos (getters y setters) en camelCase
     
     public int getId() {
@@ -104,6 +115,14 @@ public class ReservaMesa {
         this.estado = estado;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Sobreescribe el método toString para una representación legible del objeto.
      * @return Una cadena de texto con los datos de la reserva.
@@ -117,6 +136,7 @@ public class ReservaMesa {
                 ", Hora=" + horaReserva +
                 ", Personas=" + numPersonas +
                 ", Estado='" + estado + '\'' +
+                ", Version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,24 +1,119 @@
-package com.casacaribe.reservas.modelo;
+package com.casacaribe.reservas.repository;
 
+import com.casacaribe.reservas.modelo.EstadoReserva;
+import com.casacaribe.reservas.modelo.OcupacionDia;
+import com.casacaribe.reservas.modelo.OcupacionFranja;
+import com.casacaribe.reservas.modelo.PaginaReservas;
+import com.casacaribe.reservas.modelo.ReservaMesa;
 import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.GeneradorIds;
+import com.casacaribe.reservas.util.GeneradorIdsHiLo;
+import com.casacaribe.reservas.util.Metricas;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Clase Repository (DAO - Data Access Object) para gestionar la persistencia
  * de la entidad ReservaMesa utilizando JDBC puro.
  * Nomenclatura de clase en CamelCase, métodos en camelCase.
+ * Solo lee la tabla reservas (particionada por mes); las reservas archivadas por
+ * ArchivadorReservas quedan fuera de todas las consultas.
  */
 public class ReservaRepository {
     // Nomenclatura de Constantes para las consultas SQL
-    private static final String SQL_INSERT = "INSERT INTO reservas (fecha_reserva, hora_reserva, num_personas, nombre_cliente, email_cliente) VALUES (?, ?, ?, ?, ?)";
-    private static final String SQL_SELECT_ALL = "SELECT * FROM reservas ORDER BY fecha_reserva, hora_reserva";
-    private static final String SQL_SELECT_BY_ID = "SELECT * FROM reservas WHERE id = ?";
-    private static final String SQL_UPDATE = "UPDATE reservas SET fecha_reserva = ?, hora_reserva = ?, num_personas = ?, estado = ? WHERE id = ?";
+    // El ID se asigna en la aplicación (GeneradorIds): la inserción no necesita leer claves generadas
+    private static final String SQL_INSERT = "INSERT INTO reservas (id, fecha_reserva, hora_reserva, num_personas, nombre_cliente, email_cliente, estado) "
+            + "VALUES (?, ?, ?, ?, ?, ?, COALESCE(CAST(? AS estado_reserva), 'Pendiente'))";
+    // Listados: una sentencia por proyección, construida una sola vez (sin SELECT *)
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_ALL = porProyeccion(" FROM reservas ORDER BY fecha_reserva, hora_reserva");
+    // Desde un día en adelante: solo se leen las particiones mensuales de ese día y los siguientes
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_DESDE = porProyeccion(
+            " FROM reservas WHERE fecha_reserva >= ? ORDER BY fecha_reserva, hora_reserva");
+    // Máximo de filas enviadas por cada executeBatch al crear reservas en lote
+    private static final int TAMANO_LOTE_INSERCION = 100;
+    // Tamaño de lote leído del cursor del servidor durante la exportación en streaming
+    private static final int TAMANO_LOTE_STREAMING = 500;
+
+    // Paginación por clave (keyset): usa el índice (fecha_reserva, hora_reserva, id) en lugar de OFFSET
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_PRIMERA_PAGINA = porProyeccion(" FROM reservas ORDER BY fecha_reserva, hora_reserva, id LIMIT ?");
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_PAGINA = porProyeccion(" FROM reservas WHERE (fecha_reserva, hora_reserva, id) > (?, ?, ?) ORDER BY fecha_reserva, hora_reserva, id LIMIT ?");
+    // Reservas de un día, en el orden del servicio (usa el índice fecha_reserva, hora_reserva, id)
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_POR_FECHA = porProyeccion(" FROM reservas WHERE fecha_reserva = ? ORDER BY hora_reserva, id");
+    // Reservas por estado (usa el índice estado, fecha_reserva, hora_reserva, id)
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_POR_ESTADO_Y_FECHA = porProyeccion(
+            " FROM reservas WHERE estado = CAST(? AS estado_reserva) AND fecha_reserva = ? ORDER BY hora_reserva, id");
+    private static final Map<ProyeccionReserva, String> SQL_SELECT_POR_ESTADO_DESDE = porProyeccion(
+            " FROM reservas WHERE estado = CAST(? AS estado_reserva) AND fecha_reserva >= ? ORDER BY fecha_reserva, hora_reserva, id");
+    private static final String SQL_SELECT_BY_ID = "SELECT " + ProyeccionReserva.COMPLETA.getColumnas() + " FROM reservas WHERE id = ?";
+    // Actualización condicional (concurrencia optimista): solo aplica si la versión no cambió.
+    // Devuelve en la misma sentencia la fila nueva y los valores anteriores de la reserva.
+    // Nombre, email y estado son opcionales: si no se envían se conservan los guardados.
+    private static final String SQL_UPDATE = "UPDATE reservas r SET fecha_reserva = ?, hora_reserva = ?, num_personas = ?, "
+            + "nombre_cliente = COALESCE(?, r.nombre_cliente), email_cliente = COALESCE(?, r.email_cliente), "
+            + "estado = COALESCE(CAST(? AS estado_reserva), r.estado), version = r.version + 1 "
+            + "FROM (SELECT id, fecha_reserva, hora_reserva, num_personas, estado FROM reservas WHERE id = ?) anterior "
+            + "WHERE r.id = anterior.id AND r.version = ? "
+            + "RETURNING r.id, r.fecha_reserva, r.hora_reserva, r.num_personas, r.nombre_cliente, r.email_cliente, r.estado, r.version, "
+            + "anterior.fecha_reserva AS fecha_anterior, anterior.hora_reserva AS hora_anterior, "
+            + "anterior.num_personas AS personas_anterior, anterior.estado AS estado_anterior";
     private static final String SQL_DELETE = "DELETE FROM reservas WHERE id = ?";
+    // Devuelve la fila tal como estaba al borrarla: solo quien la borró de verdad la recibe
+    private static final String SQL_DELETE_RETURNING = SQL_DELETE + " RETURNING " + ProyeccionReserva.COMPLETA.getColumnas();
+
+    // Resumen de ocupación por franja (mantenido por los disparadores de esquema.sql)
+    private static final String SQL_SELECT_OCUPACION = "SELECT fecha_reserva, hora_reserva, reservas, comensales "
+            + "FROM ocupacion_franjas WHERE fecha_reserva BETWEEN ? AND ? AND reservas > 0 "
+            + "ORDER BY fecha_reserva, hora_reserva";
+    // La reconstrucción bloquea las escrituras sobre reservas (no las lecturas) mientras recalcula el resumen
+    private static final String SQL_BLOQUEAR_RESERVAS = "LOCK TABLE reservas IN SHARE MODE";
+    private static final String SQL_VACIAR_OCUPACION = "DELETE FROM ocupacion_franjas";
+    // Incluye las reservas archivadas: el resumen conserva la ocupación de los días pasados
+    private static final String SQL_RECALCULAR_OCUPACION = "INSERT INTO ocupacion_franjas (fecha_reserva, hora_reserva, reservas, comensales) "
+            + "SELECT fecha_reserva, hora_reserva, count(*), sum(num_personas) "
+            + "FROM (SELECT fecha_reserva, hora_reserva, num_personas, estado FROM reservas "
+            + "UNION ALL SELECT fecha_reserva, hora_reserva, num_personas, estado FROM reservas_archivo) r "
+            + "WHERE estado <> 'Cancelada' GROUP BY fecha_reserva, hora_reserva";
+
+    // Latencia y errores SQL por operación (expuestos en /metricas)
+    private static final Metricas.Temporizador T_CREAR = Metricas.temporizador("repositorio", "crearReserva");
+    private static final Metricas.Temporizador T_CONSULTAR_TODAS = Metricas.temporizador("repositorio", "consultarTodas");
+    private static final Metricas.Temporizador T_CREAR_LOTE = Metricas.temporizador("repositorio", "crearReservasLote");
+    private static final Metricas.Temporizador T_RECORRER_TODAS = Metricas.temporizador("repositorio", "recorrerTodas");
+    private static final Metricas.Temporizador T_CONSULTAR_PAGINA = Metricas.temporizador("repositorio", "consultarPagina");
+    private static final Metricas.Temporizador T_CONSULTAR_POR_FECHA = Metricas.temporizador("repositorio", "consultarPorFecha");
+    private static final Metricas.Temporizador T_CONSULTAR_POR_ESTADO = Metricas.temporizador("repositorio", "consultarPorEstado");
+    private static final Metricas.Temporizador T_CONSULTAR_POR_ID = Metricas.temporizador("repositorio", "consultarPorId");
+    private static final Metricas.Temporizador T_ACTUALIZAR = Metricas.temporizador("repositorio", "actualizarReserva");
+    private static final Metricas.Temporizador T_ELIMINAR = Metricas.temporizador("repositorio", "eliminarReserva");
+    private static final Metricas.Temporizador T_CONSULTAR_OCUPACION = Metricas.temporizador("repositorio", "consultarOcupacion");
+    private static final Metricas.Temporizador T_RECONSTRUIR_OCUPACION = Metricas.temporizador("repositorio", "reconstruirOcupacion");
+
+    private final GeneradorIds generadorIds;
+
+    /**
+     * Crea el repositorio con el generador hi-lo compartido de la secuencia reservas_id_seq.
+     */
+    public ReservaRepository() {
+        this(GeneradorIdsHiLo.reservas());
+    }
+
+    /**
+     * @param generadorIds Origen de los IDs de las reservas nuevas.
+     */
+    public ReservaRepository(GeneradorIds generadorIds) {
+        this.generadorIds = generadorIds;
+    }
 
     /**
      * Inserta una nueva reserva en la base de datos (Operación C - Create).
@@ -27,42 +122,35 @@ public class ReservaRepository {
      * @return El ID generado de la nueva reserva, o -1 si falla.
      */
     public int crearReserva(ReservaMesa reserva) {
+        long inicio = System.nanoTime();
         int idGenerado = -1;
         Connection conn = null;
         PreparedStatement ps = null;
-        ResultSet rs = null;
 
         try {
+            int id = generadorIds.siguienteId();
             conn = ConexionDB.getConnection();
-            // Retorna las claves generadas
-            ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
+            ps = conn.prepareStatement(SQL_INSERT);
             
             // Seteo de parámetros
-            ps.setDate(1, Date.valueOf(reserva.getFechaReserva()));
-            ps.setTime(2, Time.valueOf(reserva.getHoraReserva()));
-            ps.setInt(3, reserva.getNumPersonas());
-            ps.setString(4, reserva.getNombreCliente());
-            ps.setString(5, reserva.getEmailCliente());
+            asignarParametrosInsercion(ps, reserva, id);
             
             // Ejecución de la consulta
             int filasAfectadas = ps.executeUpdate();
 
             if (filasAfectadas > 0) {
-                // Obtener el ID generado
-                rs = ps.getGeneratedKeys();
-                if (rs.next()) {
-                    idGenerado = rs.getInt(1);
-                    reserva.setId(idGenerado); // Actualiza el objeto con el ID
-                }
+                idGenerado = id;
+                reserva.setId(idGenerado); // Actualiza el objeto con el ID
             }
-        } catch (SQLException e) {
+        } catch (SQLException | IllegalStateException e) {
             // Manejo de Excepción: Imprimir el error
+            T_CREAR.error();
             System.err.println("ERROR en crearReserva: " + e.getMessage());
         } finally {
             // Cierre seguro de recursos
-            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
             try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
             ConexionDB.closeConnection(conn);
+            T_CREAR.registrarDesde(inicio);
         }
         return idGenerado;
     }
@@ -73,6 +161,17 @@ public class ReservaRepository {
      * @return Lista de objetos ReservaMesa.
      */
     public List<ReservaMesa> consultarTodas() {
+        return consultarTodas(ProyeccionReserva.COMPLETA);
+    }
+
+    /**
+     * Consulta todas las reservas leyendo solo las columnas de la proyección (Operación R - Read).
+     *
+     * @param proyeccion Columnas a leer; las omitidas quedan vacías en cada reserva.
+     * @return Lista de objetos ReservaMesa.
+     */
+    public List<ReservaMesa> consultarTodas(ProyeccionReserva proyeccion) {
+        long inicio = System.nanoTime();
         List<ReservaMesa> reservas = new ArrayList<>();
         Connection conn = null;
         PreparedStatement ps = null;
@@ -80,29 +179,360 @@ public class ReservaRepository {
 
         try {
             conn = ConexionDB.getConnection();
-            ps = conn.prepareStatement(SQL_SELECT_ALL);
+            ps = conn.prepareStatement(SQL_SELECT_ALL.get(proyeccion));
             rs = ps.executeQuery(); // Ejecución de la consulta SELECT
 
+            // Mapeo del ResultSet al objeto ReservaMesa (índices de columna resueltos una vez)
+            MapeadorReserva mapeador = MapeadorReserva.para(rs);
             while (rs.next()) {
-                // Mapeo del ResultSet al objeto ReservaMesa
-                ReservaMesa reserva = new ReservaMesa(
-                    rs.getInt("id"),
-                    rs.getDate("fecha_reserva").toLocalDate(),
-                    rs.getTime("hora_reserva").toLocalTime(),
-                    rs.getInt("num_personas"),
-                    rs.getString("nombre_cliente"),
-                    rs.getString("email_cliente"),
-                    rs.getString("estado")
-                );
-                reservas.add(reserva);
+                reservas.add(mapeador.mapear(rs));
             }
         } catch (SQLException e) {
+            T_CONSULTAR_TODAS.error();
             System.err.println("ERROR en consultarTodas: " + e.getMessage());
         } finally {
             // Cierre seguro de recursos
             try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
             try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
             ConexionDB.closeConnection(conn);
+            T_CONSULTAR_TODAS.registrarDesde(inicio);
+        }
+        return reservas;
+    }
+
+    private static Map<ProyeccionReserva, String> porProyeccion(String resto) {
+        Map<ProyeccionReserva, String> sentencias = new EnumMap<>(ProyeccionReserva.class);
+        for (ProyeccionReserva proyeccion : ProyeccionReserva.values()) {
+            sentencias.put(proyeccion, "SELECT " + proyeccion.getColumnas() + resto);
+        }
+        return Collections.unmodifiableMap(sentencias);
+    }
+
+    /**
+     * Inserta varias reservas en una sola transacción usando addBatch/executeBatch (Operación C - Create en lote).
+     * Los IDs se toman del generador antes de insertar y se asignan a cada objeto solo si su fila se confirma.
+     * Si el lote falla y no es atómico, se reintenta fila a fila con un savepoint por fila,
+     * de modo que solo las reservas defectuosas quedan sin guardar.
+     *
+     * @param reservas Reservas ya validadas a persistir.
+     * @param atomico true para deshacer todo el lote ante cualquier fallo.
+     * @return Arreglo con el ID generado de cada reserva, o -1 en las posiciones que fallaron.
+     */
+    public int[] crearReservasLote(List<ReservaMesa> reservas, boolean atomico) {
+        long inicio = System.nanoTime();
+        int[] ids = new int[reservas.size()];
+        Arrays.fill(ids, -1);
+        if (reservas.isEmpty()) {
+            return ids;
+        }
+        int[] asignados = new int[reservas.size()];
+        Connection conn = null;
+
+        try {
+            for (int i = 0; i < asignados.length; i++) {
+                asignados[i] = generadorIds.siguienteId();
+            }
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
+            try {
+                insertarEnLotes(conn, reservas, asignados);
+                System.arraycopy(asignados, 0, ids, 0, ids.length);
+                conn.commit();
+            } catch (SQLException e) {
+                T_CREAR_LOTE.error();
+                System.err.println("ERROR en crearReservasLote: " + e.getMessage());
+                conn.rollback();
+                Arrays.fill(ids, -1);
+                if (!atomico) {
+                    insertarFilaPorFila(conn, reservas, asignados, ids);
+                    conn.commit();
+                }
+            }
+        } catch (SQLException | IllegalStateException e) {
+            T_CREAR_LOTE.error();
+            System.err.println("ERROR en crearReservasLote: " + e.getMessage());
+            Arrays.fill(ids, -1);
+        } finally {
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CREAR_LOTE.registrarDesde(inicio);
+        }
+        // Solo se exponen los IDs de filas realmente confirmadas
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != -1) {
+                reservas.get(i).setId(ids[i]);
+            }
+        }
+        return ids;
+    }
+
+    private void insertarEnLotes(Connection conn, List<ReservaMesa> reservas, int[] asignados) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT)) {
+            for (int i = 0; i < reservas.size(); i++) {
+                asignarParametrosInsercion(ps, reservas.get(i), asignados[i]);
+                ps.addBatch();
+                if ((i + 1) % TAMANO_LOTE_INSERCION == 0 || i == reservas.size() - 1) {
+                    ps.executeBatch();
+                }
+            }
+        }
+    }
+
+    private void insertarFilaPorFila(Connection conn, List<ReservaMesa> reservas, int[] asignados, int[] ids) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT)) {
+            for (int i = 0; i < reservas.size(); i++) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    asignarParametrosInsercion(ps, reservas.get(i), asignados[i]);
+                    ps.executeUpdate();
+                    ids[i] = asignados[i];
+                    conn.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                    T_CREAR_LOTE.error();
+                    System.err.println("ERROR en crearReservasLote (fila " + i + "): " + e.getMessage());
+                    conn.rollback(savepoint);
+                }
+            }
+        }
+    }
+
+    private static void asignarParametrosInsercion(PreparedStatement ps, ReservaMesa reserva, int id) throws SQLException {
+        ps.setInt(1, id);
+        ps.setDate(2, Date.valueOf(reserva.getFechaReserva()));
+        ps.setTime(3, Time.valueOf(reserva.getHoraReserva()));
+        ps.setInt(4, reserva.getNumPersonas());
+        ps.setString(5, reserva.getNombreCliente());
+        ps.setString(6, reserva.getEmailCliente());
+        ps.setString(7, reserva.getEstado());
+    }
+
+    /**
+     * Recorre todas las reservas en modo streaming, entregándolas una a una al procesador.
+     * Con autocommit desactivado y un fetch size acotado, PostgreSQL usa un cursor del servidor:
+     * solo TAMANO_LOTE_STREAMING filas residen en memoria, y si el procesador se bloquea
+     * (cliente lento) la lectura de la base de datos se detiene con él.
+     *
+     * @param procesador Destino de cada reserva leída.
+     * @return El número de reservas procesadas.
+     * @throws IOException Si el procesador falla o la consulta se interrumpe a mitad del recorrido.
+     */
+    public long recorrerTodas(ProcesadorFila<ReservaMesa> procesador) throws IOException {
+        return recorrerTodas(procesador, ProyeccionReserva.COMPLETA);
+    }
+
+    /**
+     * Recorre todas las reservas en modo streaming leyendo solo las columnas de la proyección.
+     *
+     * @param procesador Destino de cada reserva leída.
+     * @param proyeccion Columnas a leer.
+     * @return El número de reservas procesadas.
+     * @throws IOException Si el procesador falla o la consulta se interrumpe a mitad del recorrido.
+     */
+    public long recorrerTodas(ProcesadorFila<ReservaMesa> procesador, ProyeccionReserva proyeccion) throws IOException {
+        return recorrer(null, procesador, proyeccion);
+    }
+
+    /**
+     * Recorre en modo streaming las reservas de un día y los siguientes, ordenadas por fecha y hora.
+     * Las particiones de los meses anteriores no se leen: el coste no depende del historial acumulado.
+     *
+     * @param desde Primer día a recorrer.
+     * @param procesador Destino de cada reserva leída.
+     * @param proyeccion Columnas a leer.
+     * @return El número de reservas procesadas.
+     * @throws IOException Si el procesador falla o la consulta se interrumpe a mitad del recorrido.
+     */
+    public long recorrerDesde(LocalDate desde, ProcesadorFila<ReservaMesa> procesador, ProyeccionReserva proyeccion) throws IOException {
+        return recorrer(desde, procesador, proyeccion);
+    }
+
+    private long recorrer(LocalDate desde, ProcesadorFila<ReservaMesa> procesador, ProyeccionReserva proyeccion) throws IOException {
+        long inicio = System.nanoTime();
+        long procesadas = 0;
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false); // Requerido por el driver para usar cursor del servidor
+            ps = conn.prepareStatement((desde == null ? SQL_SELECT_ALL : SQL_SELECT_DESDE).get(proyeccion),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (desde != null) {
+                ps.setObject(1, desde);
+            }
+            ps.setFetchSize(TAMANO_LOTE_STREAMING);
+            rs = ps.executeQuery();
+
+            MapeadorReserva mapeador = MapeadorReserva.para(rs);
+            while (rs.next()) {
+                procesador.procesar(mapeador.mapear(rs));
+                procesadas++;
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            T_RECORRER_TODAS.error();
+            System.err.println("ERROR en recorrerTodas: " + e.getMessage());
+            // La respuesta ya comenzó: se propaga para que la transferencia no parezca completa
+            throw new IOException("Exportación interrumpida tras " + procesadas + " reservas.", e);
+        } finally {
+            // Cierre seguro de recursos
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_RECORRER_TODAS.registrarDesde(inicio);
+        }
+        return procesadas;
+    }
+
+    /**
+     * Consulta una página de reservas ordenada por fecha, hora e ID (paginación por clave).
+     * El costo de cada página es constante sin importar el tamaño de la tabla.
+     *
+     * @param cursor Posición tras la cual continuar, o null para la primera página.
+     * @param tamano Número máximo de reservas de la página.
+     * @return La página con sus reservas y el cursor de la siguiente (null si no hay más).
+     * @throws IllegalStateException Si la consulta falla.
+     */
+    public PaginaReservas consultarPagina(PaginaReservas.Cursor cursor, int tamano) {
+        return consultarPagina(cursor, tamano, ProyeccionReserva.COMPLETA);
+    }
+
+    /**
+     * Consulta una página de reservas leyendo solo las columnas de la proyección.
+     *
+     * @param cursor Posición tras la cual continuar, o null para la primera página.
+     * @param tamano Número máximo de reservas de la página.
+     * @param proyeccion Columnas a leer (siempre incluye fecha, hora e ID, necesarios para el cursor).
+     * @return La página con sus reservas y el cursor de la siguiente (null si no hay más).
+     * @throws IllegalStateException Si la consulta falla (nunca se devuelve una página incompleta).
+     */
+    public PaginaReservas consultarPagina(PaginaReservas.Cursor cursor, int tamano, ProyeccionReserva proyeccion) {
+        long inicio = System.nanoTime();
+        List<ReservaMesa> reservas = new ArrayList<>(tamano);
+        boolean hayMas = false;
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            if (cursor == null) {
+                ps = conn.prepareStatement(SQL_SELECT_PRIMERA_PAGINA.get(proyeccion));
+                ps.setInt(1, tamano + 1);
+            } else {
+                ps = conn.prepareStatement(SQL_SELECT_PAGINA.get(proyeccion));
+                ps.setDate(1, Date.valueOf(cursor.getFechaReserva()));
+                ps.setTime(2, Time.valueOf(cursor.getHoraReserva()));
+                ps.setInt(3, cursor.getId());
+                ps.setInt(4, tamano + 1);
+            }
+            // Se pide una fila extra para saber si existe una página siguiente
+            ps.setFetchSize(tamano + 1);
+            rs = ps.executeQuery();
+
+            MapeadorReserva mapeador = MapeadorReserva.para(rs);
+            while (rs.next()) {
+                if (reservas.size() == tamano) {
+                    hayMas = true;
+                    break;
+                }
+                reservas.add(mapeador.mapear(rs));
+            }
+        } catch (SQLException e) {
+            T_CONSULTAR_PAGINA.error();
+            System.err.println("ERROR en consultarPagina: " + e.getMessage());
+            throw new IllegalStateException("No se pudo consultar la página de reservas.", e);
+        } finally {
+            // Cierre seguro de recursos
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR_PAGINA.registrarDesde(inicio);
+        }
+
+        String siguienteCursor = hayMas ? PaginaReservas.codificarCursor(reservas.get(reservas.size() - 1)) : null;
+        return new PaginaReservas(reservas, siguienteCursor);
+    }
+
+    /**
+     * Consulta las reservas de un día ordenadas por hora e ID (Operación R - Read).
+     *
+     * @param fecha Día a consultar.
+     * @param proyeccion Columnas a leer.
+     * @return Lista de reservas del día.
+     * @throws IllegalStateException Si la consulta falla (una lista vacía sería indistinguible de un día sin reservas).
+     */
+    public List<ReservaMesa> consultarPorFecha(LocalDate fecha, ProyeccionReserva proyeccion) {
+        long inicio = System.nanoTime();
+        List<ReservaMesa> reservas = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_SELECT_POR_FECHA.get(proyeccion));
+            ps.setObject(1, fecha);
+            rs = ps.executeQuery();
+
+            MapeadorReserva mapeador = MapeadorReserva.para(rs);
+            while (rs.next()) {
+                reservas.add(mapeador.mapear(rs));
+            }
+        } catch (SQLException e) {
+            T_CONSULTAR_POR_FECHA.error();
+            System.err.println("ERROR en consultarPorFecha: " + e.getMessage());
+            throw new IllegalStateException("No se pudieron consultar las reservas del " + fecha + ".", e);
+        } finally {
+            // Cierre seguro de recursos
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR_POR_FECHA.registrarDesde(inicio);
+        }
+        return reservas;
+    }
+
+    /**
+     * Consulta las reservas en un estado, de un día o desde un día en adelante (Operación R - Read).
+     *
+     * @param estado Estado buscado.
+     * @param fecha Día concreto; si soloEseDia es false, primer día del rango abierto.
+     * @param soloEseDia true para el día indicado, false para ese día y los siguientes.
+     * @param proyeccion Columnas a leer.
+     * @return Lista de reservas ordenadas por fecha, hora e ID.
+     * @throws IllegalStateException Si la consulta falla (una lista vacía sería indistinguible de ninguna reserva en ese estado).
+     */
+    public List<ReservaMesa> consultarPorEstado(EstadoReserva estado, LocalDate fecha, boolean soloEseDia, ProyeccionReserva proyeccion) {
+        long inicio = System.nanoTime();
+        List<ReservaMesa> reservas = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement((soloEseDia ? SQL_SELECT_POR_ESTADO_Y_FECHA : SQL_SELECT_POR_ESTADO_DESDE).get(proyeccion));
+            ps.setString(1, estado.getEtiqueta());
+            ps.setObject(2, fecha);
+            rs = ps.executeQuery();
+
+            MapeadorReserva mapeador = MapeadorReserva.para(rs);
+            while (rs.next()) {
+                reservas.add(mapeador.mapear(rs));
+            }
+        } catch (SQLException e) {
+            T_CONSULTAR_POR_ESTADO.error();
+            System.err.println("ERROR en consultarPorEstado: " + e.getMessage());
+            throw new IllegalStateException("No se pudo consultar las reservas en estado " + estado.getEtiqueta() + ".", e);
+        } finally {
+            // Cierre seguro de recursos
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR_POR_ESTADO.registrarDesde(inicio);
         }
         return reservas;
     }
@@ -114,6 +544,7 @@ public class ReservaRepository {
      * @return Un Optional que contiene la ReservaMesa si se encuentra, o vacío si no.
      */
     public Optional<ReservaMesa> consultarPorId(int id) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
@@ -125,59 +556,99 @@ public class ReservaRepository {
             rs = ps.executeQuery();
 
             if (rs.next()) {
-                ReservaMesa reserva = new ReservaMesa(
-                    rs.getInt("id"),
-                    rs.getDate("fecha_reserva").toLocalDate(),
-                    rs.getTime("hora_reserva").toLocalTime(),
-                    rs.getInt("num_personas"),
-                    rs.getString("nombre_cliente"),
-                    rs.getString("email_cliente"),
-                    rs.getString("estado")
-                );
-                return Optional.of(reserva);
+                return Optional.of(MapeadorReserva.para(rs).mapear(rs));
             }
         } catch (SQLException e) {
+            T_CONSULTAR_POR_ID.error();
             System.err.println("ERROR en consultarPorId: " + e.getMessage());
         } finally {
             // Cierre seguro de recursos
             try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
             try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
             ConexionDB.closeConnection(conn);
+            T_CONSULTAR_POR_ID.registrarDesde(inicio);
         }
         return Optional.empty(); // Retorna un Optional vacío si no se encuentra
     }
     
     /**
-     * Actualiza una reserva existente (Operación U - Update).
+     * Actualiza una reserva existente (Operación U - Update) con concurrencia optimista.
+     * La sentencia solo aplica si la versión de la reserva coincide con la de la base de datos,
+     * incrementa la versión y devuelve la fila nueva en el mismo viaje de ida y vuelta.
+     * El callback recibe la reserva anterior y la nueva antes de confirmar; si lanza cualquier
+     * excepción la actualización se deshace y la excepción se propaga.
      *
-     * @param reserva Objeto ReservaMesa con los datos actualizados.
-     * @return true si la actualización fue exitosa, false en caso contrario.
+     * @param reserva Objeto ReservaMesa con los datos actualizados y la versión leída por el cliente.
+     * @param antesDeConfirmar Validación a ejecutar con (anterior, nueva), o null si no se requiere.
+     * @return El resultado: ACTUALIZADA con la fila nueva, CONFLICTO con la fila vigente, o NO_ENCONTRADA.
+     * @throws IllegalArgumentException Si la validación rechaza el cambio.
+     * @throws IllegalStateException Si la base de datos falla, también al confirmar (el cambio no se aplica).
      */
-    public boolean actualizarReserva(ReservaMesa reserva) {
+    public ResultadoActualizacion actualizarReserva(ReservaMesa reserva, BiConsumer<ReservaMesa, ReservaMesa> antesDeConfirmar) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
-        int filasAfectadas = 0;
+        ResultSet rs = null;
 
         try {
             conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
             ps = conn.prepareStatement(SQL_UPDATE);
-            
+
             // Seteo de parámetros para la actualización
             ps.setDate(1, Date.valueOf(reserva.getFechaReserva()));
             ps.setTime(2, Time.valueOf(reserva.getHoraReserva()));
             ps.setInt(3, reserva.getNumPersonas());
-            ps.setString(4, reserva.getEstado());
-            ps.setInt(5, reserva.getId()); // ID para la cláusula WHERE
-
-            filasAfectadas = ps.executeUpdate();
+            ps.setString(4, reserva.getNombreCliente());
+            ps.setString(5, reserva.getEmailCliente());
+            ps.setString(6, reserva.getEstado());
+            ps.setInt(7, reserva.getId()); // ID para la cláusula WHERE
+            ps.setInt(8, reserva.getVersion()); // Versión esperada
 
+            rs = ps.executeQuery();
+            if (rs.next()) {
+                ReservaMesa nueva = MapeadorReserva.para(rs).mapear(rs);
+                ReservaMesa anterior = new ReservaMesa(nueva);
+                anterior.setFechaReserva(rs.getObject("fecha_anterior", LocalDate.class));
+                anterior.setHoraReserva(rs.getObject("hora_anterior", LocalTime.class));
+                anterior.setNumPersonas(rs.getInt("personas_anterior"));
+                anterior.setEstado(rs.getString("estado_anterior"));
+                anterior.setVersion(nueva.getVersion() - 1);
+                if (antesDeConfirmar != null) {
+                    antesDeConfirmar.accept(anterior, nueva);
+                }
+                conn.commit();
+                return ResultadoActualizacion.actualizada(nueva, anterior);
+            }
         } catch (SQLException e) {
+            T_ACTUALIZAR.error();
             System.err.println("ERROR en actualizarReserva: " + e.getMessage());
+            throw new IllegalStateException("No se pudo actualizar la reserva " + reserva.getId() + ".", e);
         } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
             try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            // Sin confirmar (sin fila, validación rechazada o fallo SQL) se deshace antes de volver a autocommit,
+            // que confirmaría la transacción abierta; tras un commit no hay nada que deshacer
+            try { if (conn != null) conn.rollback(); } catch (SQLException e) {/* ignore */}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
             ConexionDB.closeConnection(conn);
+            T_ACTUALIZAR.registrarDesde(inicio);
         }
-        return filasAfectadas > 0;
+
+        // Ninguna fila coincidió: se distingue entre reserva inexistente y versión desactualizada
+        return consultarPorId(reserva.getId())
+                .map(ResultadoActualizacion::conflicto)
+                .orElseGet(ResultadoActualizacion::noEncontrada);
+    }
+
+    /**
+     * Actualiza una reserva existente sin validación adicional (Operación U - Update).
+     *
+     * @param reserva Objeto ReservaMesa con los datos actualizados y su versión.
+     * @return El resultado de la actualización.
+     */
+    public ResultadoActualizacion actualizarReserva(ReservaMesa reserva) {
+        return actualizarReserva(reserva, null);
     }
 
     /**
@@ -187,6 +658,7 @@ public class ReservaRepository {
      * @return true si la eliminación fue exitosa, false en caso contrario.
      */
     public boolean eliminarReserva(int id) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         int filasAfectadas = 0;
@@ -199,11 +671,176 @@ public class ReservaRepository {
             filasAfectadas = ps.executeUpdate();
             
         } catch (SQLException e) {
+            T_ELIMINAR.error();
             System.err.println("ERROR en eliminarReserva: " + e.getMessage());
         } finally {
             try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
             ConexionDB.closeConnection(conn);
+            T_ELIMINAR.registrarDesde(inicio);
         }
         return filasAfectadas > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Elimina una reserva por su ID y retorna la fila eliminada.
+     * Entre borrados concurrentes del mismo ID, solo uno la recibe.
+     *
+     * @param id El ID de la reserva a eliminar.
+     * @return Un Optional con la reserva tal como estaba, o vacío si no existía.
+     * @throws IllegalStateException Si la base de datos rechaza el borrado.
+     */
+    public Optional<ReservaMesa> eliminarYObtener(int id) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_DELETE_RETURNING);
+            ps.setInt(1, id);
+            rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return Optional.of(MapeadorReserva.para(rs).mapear(rs));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            T_ELIMINAR.error();
+            System.err.println("ERROR en eliminarYObtener: " + e.getMessage());
+            throw new IllegalStateException("No se pudo eliminar la reserva " + id + ".", e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_ELIMINAR.registrarDesde(inicio);
+        }
+    }
+
+    // --- MÉTODOS DE CONVENIENCIA USADOS POR ReservaService ---
+
+    /**
+     * Inserta una reserva nueva y la retorna con su ID generado.
+     *
+     * @param reserva Objeto ReservaMesa a persistir.
+     * @return La misma reserva con el ID asignado.
+     * @throws IllegalStateException Si la inserción falla.
+     */
+    public ReservaMesa save(ReservaMesa reserva) {
+        if (crearReserva(reserva) == -1) {
+            throw new IllegalStateException("No se pudo guardar la reserva.");
+        }
+        return reserva;
+    }
+
+    /**
+     * Consulta la ocupación por franja de un rango de días desde la tabla de resumen (Operación R - Read).
+     * El coste depende del número de franjas del rango, no del tamaño de la tabla de reservas.
+     *
+     * @param desde Primer día del rango (incluido).
+     * @param hasta Último día del rango (incluido).
+     * @return Ocupación de cada día con reservas activas, ordenada por fecha.
+     * @throws IllegalStateException Si la consulta falla (una lista vacía sería indistinguible de un rango sin reservas).
+     */
+    public List<OcupacionDia> consultarOcupacion(LocalDate desde, LocalDate hasta) {
+        long inicio = System.nanoTime();
+        List<OcupacionDia> dias = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            ps = conn.prepareStatement(SQL_SELECT_OCUPACION);
+            ps.setObject(1, desde);
+            ps.setObject(2, hasta);
+            rs = ps.executeQuery();
+
+            // Las filas llegan ordenadas por fecha: se agrupan al vuelo
+            LocalDate fechaActual = null;
+            List<OcupacionFranja> franjas = null;
+            while (rs.next()) {
+                LocalDate fecha = rs.getObject(1, LocalDate.class);
+                if (!fecha.equals(fechaActual)) {
+                    if (fechaActual != null) {
+                        dias.add(new OcupacionDia(fechaActual, franjas));
+                    }
+                    fechaActual = fecha;
+                    franjas = new ArrayList<>();
+                }
+                franjas.add(new OcupacionFranja(rs.getObject(2, LocalTime.class), rs.getInt(3), rs.getInt(4)));
+            }
+            if (fechaActual != null) {
+                dias.add(new OcupacionDia(fechaActual, franjas));
+            }
+        } catch (SQLException e) {
+            T_CONSULTAR_OCUPACION.error();
+            System.err.println("ERROR en consultarOcupacion: " + e.getMessage());
+            throw new IllegalStateException("No se pudo consultar la ocupación del " + desde + " al " + hasta + ".", e);
+        } finally {
+            // Cierre seguro de recursos
+            try { if (rs != null) rs.close(); } catch (SQLException e) {/* ignore */}
+            try { if (ps != null) ps.close(); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_CONSULTAR_OCUPACION.registrarDesde(inicio);
+        }
+        return dias;
+    }
+
+    /**
+     * Recalcula la tabla de resumen de ocupación a partir de las reservas, archivadas incluidas.
+     * Se ejecuta en una transacción que bloquea las escrituras sobre reservas mientras dura,
+     * de modo que ningún cambio concurrente quede fuera del recálculo.
+     *
+     * @return Número de franjas del resumen reconstruido.
+     * @throws IllegalStateException Si la reconstrucción falla (el resumen anterior se conserva).
+     */
+    public int reconstruirOcupacion() {
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        Statement st = null;
+
+        try {
+            conn = ConexionDB.getConnection();
+            conn.setAutoCommit(false);
+            st = conn.createStatement();
+            st.execute(SQL_BLOQUEAR_RESERVAS);
+            st.executeUpdate(SQL_VACIAR_OCUPACION);
+            int franjas = st.executeUpdate(SQL_RECALCULAR_OCUPACION);
+            conn.commit();
+            return franjas;
+        } catch (SQLException e) {
+            T_RECONSTRUIR_OCUPACION.error();
+            System.err.println("ERROR en reconstruirOcupacion: " + e.getMessage());
+            try { if (conn != null) conn.rollback(); } catch (SQLException ex) {/* ignore */}
+            throw new IllegalStateException("No se pudo reconstruir el resumen de ocupación.", e);
+        } finally {
+            try { if (st != null) st.close(); } catch (SQLException e) {/* ignore */}
+            try { if (conn != null) conn.setAutoCommit(true); } catch (SQLException e) {/* ignore */}
+            ConexionDB.closeConnection(conn);
+            T_RECONSTRUIR_OCUPACION.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * @return Lista de todas las reservas (equivalente a consultarTodas()).
+     */
+    public List<ReservaMesa> findAll() {
+        return consultarTodas();
+    }
+
+    /**
+     * @param id El ID de la reserva a buscar.
+     * @return Un Optional con la reserva, o vacío si no existe (equivalente a consultarPorId()).
+     */
+    public Optional<ReservaMesa> findById(Long id) {
+        return consultarPorId(id.intValue());
+    }
+
+    /**
+     * @param id El ID de la reserva a eliminar (equivalente a eliminarReserva()).
+     */
+    public void deleteById(Long id) {
+        eliminarReserva(id.intValue());
+    }
+}
\ No newline at end of file
@@ -3,6 +3,23 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.UUID;
+
+import com.casacaribe.reservas.modelo.EstadoReserva;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import com.casacaribe.reservas.service.ArchivadorReservas;
+import com.casacaribe.reservas.service.CacheReservas;
+import com.casacaribe.reservas.service.ConflictoIdempotenciaException;
+import com.casacaribe.reservas.service.ConflictoVersionException;
+import com.casacaribe.reservas.service.LibroDiarioReservas;
+import com.casacaribe.reservas.service.ReservaService;
+import com.casacaribe.reservas.util.CacheAcotada;
+import com.casacaribe.reservas.util.ControlAdmision;
+import com.casacaribe.reservas.util.HilosVirtuales;
+import com.casacaribe.reservas.util.Metricas;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
 
 import javax.xml.ws.WebServiceClient;
 
@@ -13,15 +30,62 @@ import javax.xml.ws.WebServiceClient;
  */
 public class ReservaServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    // Marca que la respuesta asíncrona se delegó a un JSP mediante AsyncContext.dispatch()
+    private static final String ATRIBUTO_VISTA_ASINCRONA = "casacaribe.vistaAsincrona";
+    // Latencia y errores por acción (expuestos en /metricas)
+    private static final Metricas.Temporizador T_LISTAR = Metricas.temporizador("servlet", "listar");
+    private static final Metricas.Temporizador T_FORMULARIO = Metricas.temporizador("servlet", "formulario");
+    private static final Metricas.Temporizador T_EDITAR = Metricas.temporizador("servlet", "editar");
+    private static final Metricas.Temporizador T_ELIMINAR = Metricas.temporizador("servlet", "eliminar");
+    private static final Metricas.Temporizador T_INSERTAR = Metricas.temporizador("servlet", "insertar");
+    private static final Metricas.Temporizador T_ACTUALIZAR = Metricas.temporizador("servlet", "actualizar");
+
     private ReservaDAO reservaDAO;
+    private LibroDiarioReservas libroDiario;
+    private ReservaRepository reservaRepository;
+    // Escrituras: las mismas reglas, índice de disponibilidad, mesas y lista de espera que la API REST
+    private ReservaService reservaService;
+    // true si el servicio lo creó este servlet (sin contexto de Spring) y debe detenerlo
+    private boolean servicioPropio;
+    private ArchivadorReservas archivador;
+    // Caché de reservas por ID del formulario de edición, compartida con ReservaService (misma invalidación)
+    private final CacheAcotada<Long, ReservaMesa> cacheReservas = CacheReservas.compartida();
 
     public void init() {
         reservaDAO = new ReservaDAO();
+        reservaRepository = new ReservaRepository();
+        // Con Spring en la misma aplicación se usa su ReservaService; si no, uno propio configurado por
+        // propiedades del sistema (ingreso agrupado, token de un solo uso del formulario de alta, etc.)
+        WebApplicationContext contexto = WebApplicationContextUtils.getWebApplicationContext(getServletContext());
+        servicioPropio = (contexto == null);
+        reservaService = servicioPropio ? ReservaService.desdePropiedadesSistema(reservaRepository)
+                : contexto.getBean(ReservaService.class);
+        // Listado de recepción: hoy y los próximos días en memoria (-Dcasacaribe.libroDiario.dias)
+        libroDiario = LibroDiarioReservas.desdePropiedadesSistema(reservaRepository);
+        // Particiones mensuales y archivo diario de las reservas pasadas (-Dcasacaribe.archivo.horizonteDias);
+        // con Spring ya lo programa su bean ArchivadorReservas
+        archivador = servicioPropio ? ArchivadorReservas.desdePropiedadesSistema() : null;
+    }
+
+    @Override
+    public void destroy() {
+        if (servicioPropio) {
+            reservaService.detener();
+            archivador.detener();
+        }
     }
 
     // Método principal para manejar peticiones GET
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
+        if (ejecutarEnHiloVirtual(request, response, this::procesarGet)) {
+            return;
+        }
+        procesarGet(request, response);
+    }
+
+    private void procesarGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
         
         String accion = request.getParameter("accion");
 
@@ -29,6 +93,14 @@ public class ReservaServlet extends HttpServlet {
             accion = "listar"; // Acción por defecto
         }
 
+        Metricas.Temporizador temporizador = temporizadorAccion(accion, false);
+        ControlAdmision.Limitador limitador = limitadorAccion(accion, false);
+        if (limitador != null && !limitador.adquirir()) {
+            rechazarPorSaturacion(response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean fallo = false;
         try {
             switch (accion) {
                 case "nuevo":
@@ -50,13 +122,28 @@ public class ReservaServlet extends HttpServlet {
                     break;
             }
         } catch (Exception ex) {
+            fallo = true;
+            temporizador.error();
             throw new ServletException(ex);
+        } finally {
+            temporizador.registrarDesde(inicio);
+            if (limitador != null) {
+                limitador.liberar(System.nanoTime() - inicio, fallo);
+            }
         }
     }
     
     // Método principal para manejar peticiones POST
     protected void doPost(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
+        if (ejecutarEnHiloVirtual(request, response, this::procesarPost)) {
+            return;
+        }
+        procesarPost(request, response);
+    }
+
+    private void procesarPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
         
         // Se asegura la codificación de caracteres para datos enviados desde el formulario
         request.setCharacterEncoding("UTF-8");
@@ -66,6 +153,14 @@ public class ReservaServlet extends HttpServlet {
             accion = "insertar";
         }
         
+        Metricas.Temporizador temporizador = temporizadorAccion(accion, true);
+        ControlAdmision.Limitador limitador = limitadorAccion(accion, true);
+        if (limitador != null && !limitador.adquirir()) {
+            rechazarPorSaturacion(response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean fallo = false;
         try {
             switch (accion) {
                 case "insertar":
@@ -79,8 +174,121 @@ public class ReservaServlet extends HttpServlet {
                     break;
             }
         } catch (Exception ex) {
+            fallo = true;
+            temporizador.error();
             throw new ServletException(ex);
+        } finally {
+            temporizador.registrarDesde(inicio);
+            if (limitador != null) {
+                limitador.liberar(System.nanoTime() - inicio, fallo);
+            }
+        }
+    }
+
+    /**
+     * Retorna el temporizador de una acción, con la misma resolución de acciones que procesarGet/procesarPost.
+     */
+    private static Metricas.Temporizador temporizadorAccion(String accion, boolean post) {
+        switch (accion) {
+            case "nuevo":
+                return post ? T_LISTAR : T_FORMULARIO;
+            case "insertar":
+                return post ? T_INSERTAR : T_FORMULARIO;
+            case "actualizar":
+                return post ? T_ACTUALIZAR : T_LISTAR;
+            case "editar":
+                return post ? T_LISTAR : T_EDITAR;
+            case "eliminar":
+                return post ? T_LISTAR : T_ELIMINAR;
+            default:
+                return T_LISTAR;
+        }
+    }
+
+    /**
+     * Retorna el limitador de admisión de una acción, o null si la acción no accede a la base de datos
+     * (o el control de admisión está desactivado).
+     */
+    private static ControlAdmision.Limitador limitadorAccion(String accion, boolean post) {
+        if (!ControlAdmision.isHabilitado()) {
+            return null;
+        }
+        switch (accion) {
+            case "nuevo":
+                return post ? ControlAdmision.limitador(ControlAdmision.Clase.LISTAR) : null;
+            case "insertar":
+                return post ? ControlAdmision.limitador(ControlAdmision.Clase.CREAR) : null;
+            case "actualizar":
+                return ControlAdmision.limitador(post ? ControlAdmision.Clase.MODIFICAR : ControlAdmision.Clase.LISTAR);
+            case "editar":
+                return ControlAdmision.limitador(post ? ControlAdmision.Clase.LISTAR : ControlAdmision.Clase.CONSULTAR);
+            case "eliminar":
+                return ControlAdmision.limitador(post ? ControlAdmision.Clase.LISTAR : ControlAdmision.Clase.MODIFICAR);
+            default:
+                return ControlAdmision.limitador(ControlAdmision.Clase.LISTAR);
+        }
+    }
+
+    /**
+     * Responde 503 con Retry-After: la base de datos está saturada y la petición no llega a esperarla.
+     */
+    private static void rechazarPorSaturacion(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", Integer.toString(ControlAdmision.getRetryAfterSegundos()));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                "El sistema de reservas está saturado. Intente de nuevo en unos segundos.");
+    }
+
+    /**
+     * Acción del servlet que puede ejecutarse en el hilo del contenedor o en un hilo virtual.
+     */
+    @FunctionalInterface
+    private interface Accion {
+        void ejecutar(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Con el modo de hilos virtuales activo, pasa la petición a modo asíncrono y la atiende en un hilo virtual,
+     * liberando el hilo del contenedor mientras se espera a la base de datos.
+     *
+     * @return true si la petición se delegó al hilo virtual; false si debe atenderse en el hilo actual.
+     */
+    private boolean ejecutarEnHiloVirtual(HttpServletRequest request, HttpServletResponse response, Accion accion) {
+        if (!HilosVirtuales.isHabilitado() || !request.isAsyncSupported()) {
+            return false;
+        }
+        AsyncContext contexto = request.startAsync(request, response);
+        HilosVirtuales.ejecutor().execute(() -> {
+            boolean despachado = false;
+            try {
+                accion.ejecutar(request, response);
+                despachado = request.getAttribute(ATRIBUTO_VISTA_ASINCRONA) != null;
+            } catch (Exception ex) {
+                log("Error al procesar la reserva en hilo virtual", ex);
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException e) {/* ignore */}
+            } finally {
+                // dispatch() completa el contexto al terminar el JSP; en los demás casos se completa aquí
+                if (!despachado) {
+                    contexto.complete();
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Muestra un JSP: con forward en modo síncrono, o con dispatch() del contexto asíncrono.
+     */
+    private void mostrarVista(HttpServletRequest request, HttpServletResponse response, String vista)
+            throws ServletException, IOException {
+        if (request.isAsyncStarted()) {
+            request.setAttribute(ATRIBUTO_VISTA_ASINCRONA, vista);
+            request.getAsyncContext().dispatch(vista);
+            return;
         }
+        RequestDispatcher dispatcher = request.getRequestDispatcher(vista);
+        dispatcher.forward(request, response);
     }
 
     /**
@@ -97,7 +305,12 @@ public class ReservaServlet extends HttpServlet {
         LocalDate fechaReserva = LocalDate.parse(request.getParameter("fechaReserva"));
         LocalTime horaReserva = LocalTime.parse(request.getParameter("horaReserva"));
         int numPersonas = Integer.parseInt(request.getParameter("numPersonas"));
-        String estado = request.getParameter("estado");
+        String estadoParam = request.getParameter("estado");
+        // El formulario puede omitir el estado (null: Pendiente en un alta, el guardado en una edición);
+        // si lo trae se normaliza a la etiqueta que guarda la columna
+        String estado = (estadoParam == null || estadoParam.isEmpty())
+                ? null
+                : EstadoReserva.desdeTexto(estadoParam).getEtiqueta();
         
         Reserva reserva = new Reserva();
         if (id > 0) {
@@ -117,74 +330,157 @@ public class ReservaServlet extends HttpServlet {
 
     private void listarReservas(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        // Obtiene la lista de reservas desde el DAO
-        List<Reserva> listaReservas = reservaDAO.listarReservas();
+        // Obtiene las reservas de los días visibles desde el libro diario en memoria (sin recorrer la tabla)
+        String fechaStr = request.getParameter("fecha");
+        LocalDate desde = (fechaStr != null && !fechaStr.isEmpty()) ? LocalDate.parse(fechaStr) : LocalDate.now();
+        List<Reserva> listaReservas = libroDiario.listar(desde, libroDiario.getDiasVisibles());
         
         // Establece la lista como atributo para que el JSP la consuma
         request.setAttribute("listaReservas", listaReservas);
+        request.setAttribute("fechaDesde", desde);
+        request.setAttribute("diasVisibles", libroDiario.getDiasVisibles());
         
         // Redirige (dispatch) al JSP de la lista de reservas (Vista)
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/lista_reservas.jsp");
-        dispatcher.forward(request, response);
+        mostrarVista(request, response, "/lista_reservas.jsp");
     }
 
     private void mostrarFormulario(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         // Prepara el formulario para una nueva reserva (Reserva vacía)
         request.setAttribute("reserva", new Reserva());
+        // El JSP lo devuelve en un campo oculto tokenFormulario; identifica este envío del formulario
+        request.setAttribute("tokenFormulario", UUID.randomUUID().toString());
         
         // Redirige al JSP del formulario
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/form_reserva.jsp");
-        dispatcher.forward(request, response);
+        mostrarVista(request, response, "/form_reserva.jsp");
     }
     
     private void mostrarFormularioEdicion(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         int id = Integer.parseInt(request.getParameter("id"));
         
-        // Busca la reserva existente por ID
-        Reserva reservaExistente = reservaDAO.buscarReserva(id);
+        // Busca la reserva existente por ID (primero en caché, luego en el repositorio, que trae la versión);
+        // el formulario recibe una copia, nunca el objeto guardado en la caché
+        Reserva reservaExistente = cacheReservas.obtener((long) id, reservaRepository::findById)
+                .map(ReservaServlet::aReserva)
+                .orElse(null);
         
-        // Pone la reserva existente en el request para pre-llenar el formulario
+        // Pone la reserva existente en el request para pre-llenar el formulario;
+        // el JSP devuelve su versión en el campo oculto "version"
         request.setAttribute("reserva", reservaExistente);
         
         // Redirige al JSP del formulario
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/form_reserva.jsp");
-        dispatcher.forward(request, response);
+        mostrarVista(request, response, "/form_reserva.jsp");
     }
 
     private void insertarReserva(HttpServletRequest request, HttpServletResponse response)
-            throws IOException {
+            throws ServletException, IOException {
         
         // Llama al método para mapear los parámetros del POST a un objeto Reserva
         Reserva nuevaReserva = mapearReserva(request);
+        if (nuevaReserva.getEstado() == null) {
+            nuevaReserva.setEstado(EstadoReserva.PENDIENTE.getEtiqueta());
+        }
+        String tokenFormulario = request.getParameter("tokenFormulario");
+        ReservaMesa reserva = new ReservaMesa(0, nuevaReserva.getFechaReserva(), nuevaReserva.getHoraReserva(),
+                nuevaReserva.getNumPersonas(), nuevaReserva.getNombreCliente(), nuevaReserva.getEmailCliente(),
+                nuevaReserva.getEstado());
         
-        // Llama al DAO para guardar la reserva
-        reservaDAO.insertarReserva(nuevaReserva);
+        try {
+            // El servicio valida, ocupa capacidad y mesa, guarda y publica el alta; con token, el alta se hace
+            // una sola vez y un reenvío del mismo formulario solo redirige al listado
+            ReservaMesa guardada = reservaService.crearReserva(reserva,
+                    (tokenFormulario == null || tokenFormulario.isEmpty()) ? null : tokenFormulario);
+            libroDiario.registrar(guardada);
+        } catch (ConflictoIdempotenciaException e) {
+            // El primer envío sigue en curso (p. ej. en otra instancia): el listado la mostrará al terminar
+            if (e.getMotivo() != ConflictoIdempotenciaException.Motivo.EN_CURSO) {
+                throw e;
+            }
+        } catch (IllegalArgumentException e) {
+            // Datos no válidos o sin capacidad a esa hora: se vuelve al formulario con el mismo token
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            request.setAttribute("reserva", nuevaReserva);
+            request.setAttribute("tokenFormulario", tokenFormulario);
+            request.setAttribute("error", e.getMessage());
+            mostrarVista(request, response, "/form_reserva.jsp");
+            return;
+        }
         
         // Redirige al listado de reservas (patrón Post-Redirect-Get)
         response.sendRedirect("reservas?accion=listar");
     }
 
     private void actualizarReserva(HttpServletRequest request, HttpServletResponse response)
-            throws IOException {
+            throws ServletException, IOException {
         
         // Llama al método para mapear los parámetros del POST a un objeto Reserva
         Reserva reservaActualizada = mapearReserva(request);
+        String versionStr = request.getParameter("version");
+        if (versionStr == null || versionStr.isEmpty()) {
+            // Sin la versión leída al abrir el formulario no puede detectarse una modificación concurrente
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Falta la versión de la reserva: recargue el formulario de edición.");
+            return;
+        }
+        ReservaMesa cambio = new ReservaMesa(reservaActualizada.getId(), reservaActualizada.getFechaReserva(),
+                reservaActualizada.getHoraReserva(), reservaActualizada.getNumPersonas(), reservaActualizada.getNombreCliente(),
+                reservaActualizada.getEmailCliente(), reservaActualizada.getEstado());
+        cambio.setVersion(Integer.parseInt(versionStr));
         
-        // Llama al DAO para actualizar la reserva
-        reservaDAO.actualizarReserva(reservaActualizada);
-        
+        // Actualización condicional por el servicio (las mismas reglas que la API REST): solo se aplica si nadie
+        // modificó la reserva desde que se abrió el formulario, el cambio de estado está permitido y el nuevo
+        // horario cabe; mueve la capacidad y la mesa, y una cancelación o reducción ofrece el hueco a la lista de espera
+        ReservaMesa actualizada;
+        try {
+            actualizada = reservaService.actualizarReserva((long) cambio.getId(), cambio);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            reservaActualizada.setVersion(cambio.getVersion());
+            request.setAttribute("reserva", reservaActualizada);
+            request.setAttribute("error", e.getMessage());
+            mostrarVista(request, response, "/form_reserva.jsp");
+            return;
+        } catch (ConflictoVersionException e) {
+            // Otra escritura (p. ej. el cliente desde la web) ganó: el formulario se muestra con los datos vigentes
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            request.setAttribute("reserva", aReserva(e.getReservaVigente()));
+            request.setAttribute("error", "La reserva se modificó mientras se editaba. Revise los datos actuales y vuelva a guardar.");
+            mostrarVista(request, response, "/form_reserva.jsp");
+            return;
+        }
+        if (actualizada == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "La reserva ya no existe.");
+            return;
+        }
+        libroDiario.registrar(actualizada);
         // Redirige al listado de reservas
         response.sendRedirect("reservas?accion=listar");
     }
 
+    /**
+     * Copia una reserva del repositorio al bean que usan los JSP, con su versión.
+     */
+    private static Reserva aReserva(ReservaMesa reservaMesa) {
+        Reserva reserva = new Reserva();
+        reserva.setId(reservaMesa.getId());
+        reserva.setNombreCliente(reservaMesa.getNombreCliente());
+        reserva.setEmailCliente(reservaMesa.getEmailCliente());
+        reserva.setFechaReserva(reservaMesa.getFechaReserva());
+        reserva.setHoraReserva(reservaMesa.getHoraReserva());
+        reserva.setNumPersonas(reservaMesa.getNumPersonas());
+        reserva.setEstado(reservaMesa.getEstado());
+        reserva.setVersion(reservaMesa.getVersion());
+        return reserva;
+    }
+
     private void eliminarReserva(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
         int id = Integer.parseInt(request.getParameter("id"));
         
-        // Llama al DAO para eliminar la reserva
-        reservaDAO.eliminarReserva(id);
+        // El servicio libera capacidad, mesa y hueco para la lista de espera, y publica la baja,
+        // solo si la fila existía
+        reservaService.eliminarReserva((long) id);
+        libroDiario.eliminar(id);
         
         // Redirige al listado de reservas
         response.sendRedirect("reservas?accion=listar");
@@ -206,4 +502,4 @@ public class ReservaServlet extends HttpServlet {
     public String toString() {
         return "ReservaServlet [reservaDAO=" + reservaDAO + ", getReservaDAO()=" + getReservaDAO() + "]";
     }
- 
\ No newline at end of file
+ 
\ No newline at end of file
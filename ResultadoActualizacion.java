@@ -0,0 +1,65 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+
+/**
+ * Resultado de una actualización con concurrencia optimista en ReservaRepository.
+ */
+public class ResultadoActualizacion {
+
+    /**
+     * Desenlace de la actualización.
+     */
+    public enum Estado {
+        /** La versión coincidía y la fila se actualizó. */
+        ACTUALIZADA,
+        /** La reserva existe pero otra escritura cambió su versión. */
+        CONFLICTO,
+        /** No existe una reserva con ese ID. */
+        NO_ENCONTRADA
+    }
+
+    private final Estado estado;
+    private final ReservaMesa reserva;
+    private final ReservaMesa anterior;
+
+    private ResultadoActualizacion(Estado estado, ReservaMesa reserva, ReservaMesa anterior) {
+        this.estado = estado;
+        this.reserva = reserva;
+        this.anterior = anterior;
+    }
+
+    static ResultadoActualizacion actualizada(ReservaMesa nueva, ReservaMesa anterior) {
+        return new ResultadoActualizacion(Estado.ACTUALIZADA, nueva, anterior);
+    }
+
+    static ResultadoActualizacion conflicto(ReservaMesa vigente) {
+        return new ResultadoActualizacion(Estado.CONFLICTO, vigente, null);
+    }
+
+    static ResultadoActualizacion noEncontrada() {
+        return new ResultadoActualizacion(Estado.NO_ENCONTRADA, null, null);
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public boolean isActualizada() {
+        return estado == Estado.ACTUALIZADA;
+    }
+
+    /**
+     * @return La fila nueva si se actualizó, la fila vigente si hubo conflicto, o null si no existe.
+     */
+    public ReservaMesa getReserva() {
+        return reserva;
+    }
+
+    /**
+     * @return Los valores previos a la actualización (solo si se actualizó).
+     */
+    public ReservaMesa getAnterior() {
+        return anterior;
+    }
+}
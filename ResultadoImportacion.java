@@ -0,0 +1,79 @@
+/* Resultado de una Importación Masiva */
+
+package com.casacaribe.reservas.modelo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de la importación masiva de reservas: filas leídas, importadas y rechazadas,
+ * el rendimiento obtenido y el motivo de las primeras líneas rechazadas.
+ */
+public class ResultadoImportacion {
+
+    private final long leidas;
+    private final long importadas;
+    private final long rechazadas;
+    private final long milisegundos;
+    private final List<Rechazo> rechazos;
+
+    public ResultadoImportacion(long leidas, long importadas, long rechazadas, long milisegundos, List<Rechazo> rechazos) {
+        this.leidas = leidas;
+        this.importadas = importadas;
+        this.rechazadas = rechazadas;
+        this.milisegundos = milisegundos;
+        this.rechazos = Collections.unmodifiableList(new ArrayList<>(rechazos));
+    }
+
+    public long getLeidas() {
+        return leidas;
+    }
+
+    public long getImportadas() {
+        return importadas;
+    }
+
+    public long getRechazadas() {
+        return rechazadas;
+    }
+
+    public long getMilisegundos() {
+        return milisegundos;
+    }
+
+    /**
+     * @return Filas leídas por segundo durante toda la importación (lectura, validación y COPY).
+     */
+    public long getFilasPorSegundo() {
+        return milisegundos == 0 ? leidas * 1000 : leidas * 1000 / milisegundos;
+    }
+
+    /**
+     * @return Las primeras líneas rechazadas (la lista se acota; getRechazadas() da el total).
+     */
+    public List<Rechazo> getRechazos() {
+        return rechazos;
+    }
+
+    /**
+     * Línea del archivo que no se importó.
+     */
+    public static class Rechazo {
+        private final long linea;
+        private final String motivo;
+
+        public Rechazo(long linea, String motivo) {
+            this.linea = linea;
+            this.motivo = motivo;
+        }
+
+        public long getLinea() {
+            return linea;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+    }
+}
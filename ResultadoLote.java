@@ -0,0 +1,89 @@
+/* Resultado de Creación en Lote */
+
+package com.casacaribe.reservas.modelo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de la creación de reservas en lote.
+ * Contiene un elemento por reserva recibida, en el mismo orden, con su ID generado o el motivo del fallo.
+ */
+public class ResultadoLote {
+
+    private final List<Elemento> elementos;
+    private final int creadas;
+
+    public ResultadoLote(List<Elemento> elementos) {
+        this.elementos = Collections.unmodifiableList(new ArrayList<>(elementos));
+        int total = 0;
+        for (Elemento elemento : elementos) {
+            if (elemento.isCreada()) {
+                total++;
+            }
+        }
+        this.creadas = total;
+    }
+
+    public List<Elemento> getElementos() {
+        return elementos;
+    }
+
+    public int getCreadas() {
+        return creadas;
+    }
+
+    public int getFallidas() {
+        return elementos.size() - creadas;
+    }
+
+    /**
+     * Resultado individual de una reserva del lote.
+     */
+    public static class Elemento {
+        private final int indice;
+        private final Integer id;
+        private final String error;
+
+        private Elemento(int indice, Integer id, String error) {
+            this.indice = indice;
+            this.id = id;
+            this.error = error;
+        }
+
+        /**
+         * @param indice Posición de la reserva en la petición.
+         * @param id ID generado.
+         * @return Elemento exitoso.
+         */
+        public static Elemento creada(int indice, int id) {
+            return new Elemento(indice, id, null);
+        }
+
+        /**
+         * @param indice Posición de la reserva en la petición.
+         * @param error Motivo por el que no se guardó.
+         * @return Elemento fallido.
+         */
+        public static Elemento fallida(int indice, String error) {
+            return new Elemento(indice, null, error);
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isCreada() {
+            return id != null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ReservaRepositoryMemoria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la asignación de mesas con el plano por defecto y un servicio de cena a medio llenar:
+ * asignar y liberar (con la reubicación que dispara la baja) y mover una reserva de hora.
+ * Con varios hilos, las reservas se reparten entre días para medir también los candados por día.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Threads(8)
+public class AsignadorMesasBenchmark {
+
+    private static final LocalDate MANANA = LocalDate.now().plusDays(1);
+    private static final int DIAS = 30;
+
+    private AsignadorMesas asignador;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        asignador = AsignadorMesas.desdePropiedadesSistema(new ReservaRepositoryMemoria());
+        // Cada día con unas 30 reservas entre las 19:00 y las 22:00
+        int id = 1;
+        for (int d = 0; d < DIAS; d++) {
+            for (int i = 0; i < 30; i++) {
+                ReservaMesa reserva = reserva(MANANA.plusDays(d), LocalTime.of(19 + i % 4, (i % 4) * 15), 1 + i % 6);
+                AsignadorMesas.Asignacion asignacion = asignador.asignar(reserva);
+                if (asignacion != null) {
+                    asignador.vincular(asignacion, id++);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public AsignadorMesas.Asignacion asignarYLiberar() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        ReservaMesa reserva = reserva(MANANA.plusDays(aleatorio.nextInt(DIAS)),
+                LocalTime.of(18 + aleatorio.nextInt(5), aleatorio.nextInt(4) * 15), 1 + aleatorio.nextInt(10));
+        AsignadorMesas.Asignacion asignacion = asignador.asignar(reserva);
+        if (asignacion != null) {
+            asignador.liberar(asignacion);
+        }
+        return asignacion;
+    }
+
+    @Benchmark
+    public boolean consultarMesa() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        return asignador.hayMesa(MANANA.plusDays(aleatorio.nextInt(DIAS)),
+                LocalTime.of(18 + aleatorio.nextInt(5), aleatorio.nextInt(4) * 15), 1 + aleatorio.nextInt(10));
+    }
+
+    private static ReservaMesa reserva(LocalDate fecha, LocalTime hora, int personas) {
+        ReservaMesa reserva = new ReservaMesa();
+        reserva.setFechaReserva(fecha);
+        reserva.setHoraReserva(hora);
+        reserva.setNumPersonas(personas);
+        reserva.setEstado("Pendiente");
+        return reserva;
+    }
+}
@@ -0,0 +1,25 @@
+package com.casacaribe.reservas.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks JMH de las rutas críticas de reservas con el perfilador de asignación (GC)
+ * activo, para que cada resultado incluya bytes asignados por operación.
+ *
+ * Uso: java -cp <clases y dependencias> com.casacaribe.reservas.benchmark.EjecutarBenchmarks [regex]
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        String patron = args.length > 0 ? args[0] : "com\\.casacaribe\\.reservas\\..*Benchmark.*";
+        Options opciones = new OptionsBuilder()
+                .include(patron)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opciones).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.EntradaEspera;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el emparejamiento de un hueco liberado con una lista de espera muy larga (5.000 grupos en una
+ * misma noche, con ventanas de hasta una hora y media). La retención simulada solo admite grupos hasta
+ * un tamaño aleatorio, de modo que se recorren franjas y tamaños antes de encontrar grupo;
+ * el emparejado vuelve a la cola para que la lista no se vacíe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ListaEsperaBenchmark {
+
+    private static final LocalDate MANANA = LocalDate.now().plusDays(1);
+    private static final int ENTRADAS = 5_000;
+
+    private ListaEspera listaEspera;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        listaEspera = new ListaEspera(60, 15);
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        LocalDateTime alta = LocalDateTime.now().minusDays(7);
+        for (int id = 1; id <= ENTRADAS; id++) {
+            LocalTime desde = LocalTime.of(19 + aleatorio.nextInt(3), aleatorio.nextInt(4) * 15);
+            EntradaEspera entrada = new EntradaEspera();
+            entrada.setId(id);
+            entrada.setFechaReserva(MANANA);
+            entrada.setHoraDesde(desde);
+            entrada.setHoraHasta(desde.plusMinutes(aleatorio.nextInt(7) * 15L));
+            entrada.setNumPersonas(1 + aleatorio.nextInt(10));
+            entrada.setNombreCliente("Cliente " + id);
+            entrada.setCreadaEn(alta.plusSeconds(id));
+            listaEspera.agregar(entrada);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void liberar() {
+        listaEspera.detener();
+    }
+
+    @Benchmark
+    public ListaEspera.Emparejamiento<Boolean> emparejarHueco() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int cabenHasta = 1 + aleatorio.nextInt(10);
+        ListaEspera.Emparejamiento<Boolean> emparejamiento = listaEspera.emparejar(MANANA,
+                LocalTime.of(18 + aleatorio.nextInt(5), aleatorio.nextInt(4) * 15),
+                (entrada, hora) -> entrada.getNumPersonas() <= cabenHasta ? Boolean.TRUE : null);
+        if (emparejamiento != null) {
+            listaEspera.agregar(emparejamiento.getEntrada());
+        }
+        return emparejamiento;
+    }
+}
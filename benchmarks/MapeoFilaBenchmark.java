@@ -0,0 +1,44 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el mapeo de filas del ResultSet a ReservaMesa que usan las consultas de ReservaRepository:
+ * los índices de columna se resuelven una vez por ResultSet y cada fila se lee por posición.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoFilaBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int filas;
+
+    @Benchmark
+    public void mapearFilas(Blackhole bh) throws SQLException {
+        ResultSet rs = ResultSetSimulado.crear(filas);
+        MapeadorReserva mapeador = MapeadorReserva.para(rs);
+        while (rs.next()) {
+            ReservaMesa reserva = mapeador.mapear(rs);
+            bh.consume(reserva);
+        }
+    }
+}
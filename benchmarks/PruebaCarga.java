@@ -0,0 +1,469 @@
+package com.casacaribe.reservas.carga;
+
+import com.casacaribe.reservas.controller.ReservaController;
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ReservaRepository;
+import com.casacaribe.reservas.service.AsignadorMesas;
+import com.casacaribe.reservas.service.ColaIngresoReservas;
+import com.casacaribe.reservas.service.FeedCambiosReservas;
+import com.casacaribe.reservas.service.IndiceDisponibilidad;
+import com.casacaribe.reservas.service.ListaEspera;
+import com.casacaribe.reservas.service.RegistroIdempotencia;
+import com.casacaribe.reservas.service.ReservaService;
+import com.casacaribe.reservas.util.ConexionDB;
+import com.casacaribe.reservas.util.HistogramaLatencia;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arnés de carga repetible para simular un servicio de sábado por la noche.
+ *
+ * Modos (-Dcarga.modo):
+ * - proceso (por defecto): arranca un PostgreSQL embebido, aplica esquema.sql y ejecuta las operaciones
+ *   directamente sobre ReservaController/ReservaService/ReservaRepository, sin capa HTTP.
+ * - http: envía peticiones a una instancia desplegada, ya sea la API REST (-Dcarga.frente=rest) o
+ *   ReservaServlet (-Dcarga.frente=servlet), en la URL -Dcarga.url.
+ *
+ * La carga es de lazo abierto: cada operación tiene una hora de inicio programada según la tasa objetivo
+ * y su latencia se mide desde esa hora, de modo que las esperas por saturación no se ocultan
+ * (sin "omisión coordinada").
+ *
+ * Parámetros: carga.tasa (ops/s), carga.duracion y carga.calentamiento (s),
+ * carga.mezcla (p. ej. crear:25,consultar:40,listar:10,actualizar:20,cancelar:5),
+ * carga.reservasIniciales, carga.enVueloMaximo, carga.semilla, carga.esquema.
+ */
+public class PruebaCarga {
+
+    /** Operaciones de la mezcla de carga. */
+    enum Operacion { CREAR, CONSULTAR, LISTAR, ACTUALIZAR, CANCELAR }
+
+    /** Resultado de una operación desde el punto de vista del cliente. */
+    enum Desenlace { EXITO, RECHAZO, ERROR }
+
+    /** Ejecuta una operación contra el sistema bajo prueba. */
+    interface Cliente {
+        Desenlace ejecutar(Operacion operacion, SplittableRandom aleatorio) throws Exception;
+    }
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    // Últimos IDs conocidos, para consultas, actualizaciones y cancelaciones
+    private static final int CAPACIDAD_IDS = 1 << 16;
+    private static final AtomicIntegerArray IDS = new AtomicIntegerArray(CAPACIDAD_IDS);
+    private static final AtomicLong IDS_REGISTRADOS = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        String modo = System.getProperty("carga.modo", "proceso");
+        double tasa = Double.parseDouble(System.getProperty("carga.tasa", "200"));
+        long duracionSeg = Long.getLong("carga.duracion", 60L);
+        long calentamientoSeg = Long.getLong("carga.calentamiento", 10L);
+        int enVueloMaximo = Integer.getInteger("carga.enVueloMaximo", 2_000);
+        int reservasIniciales = Integer.getInteger("carga.reservasIniciales", 1_000);
+        long semilla = Long.getLong("carga.semilla", 42L);
+        Map<Operacion, Integer> mezcla = parsearMezcla(System.getProperty("carga.mezcla",
+                "crear:25,consultar:40,listar:10,actualizar:20,cancelar:5"));
+
+        EmbeddedPostgres postgres = null;
+        Cliente cliente;
+        if ("http".equals(modo)) {
+            String url = System.getProperty("carga.url", "http://localhost:8080/api/reservas");
+            cliente = "servlet".equals(System.getProperty("carga.frente", "rest"))
+                    ? new ClienteServlet(url) : new ClienteRest(url);
+        } else {
+            postgres = EmbeddedPostgres.builder().start();
+            prepararBaseDatos(postgres);
+            cliente = new ClienteEnProceso();
+        }
+
+        try {
+            sembrar(cliente, reservasIniciales, new SplittableRandom(semilla));
+            System.out.printf(Locale.ROOT, "Calentamiento: %d s a %.0f ops/s%n", calentamientoSeg, tasa);
+            ejecutarFase(cliente, mezcla, tasa, calentamientoSeg, enVueloMaximo, semilla + 1);
+            System.out.printf(Locale.ROOT, "Medición: %d s a %.0f ops/s%n", duracionSeg, tasa);
+            Resultados resultados = ejecutarFase(cliente, mezcla, tasa, duracionSeg, enVueloMaximo, semilla + 2);
+            resultados.imprimir(duracionSeg);
+        } finally {
+            ConexionDB.cerrarPool();
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    // --- Preparación ---
+
+    private static void prepararBaseDatos(EmbeddedPostgres postgres) throws Exception {
+        String esquema = new String(Files.readAllBytes(Paths.get(System.getProperty("carga.esquema", "esquema.sql"))),
+                StandardCharsets.UTF_8);
+        try (Connection conn = postgres.getPostgresDatabase().getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute(esquema);
+        }
+        // ConexionDB lee la URL al cargarse: debe fijarse antes de la primera conexión
+        System.setProperty("casacaribe.db.url", postgres.getJdbcUrl("postgres", "postgres"));
+        System.setProperty("casacaribe.db.usuario", "postgres");
+        System.setProperty("casacaribe.db.password", "postgres");
+    }
+
+    private static void sembrar(Cliente cliente, int cantidad, SplittableRandom aleatorio) throws Exception {
+        System.out.println("Sembrando " + cantidad + " reservas...");
+        for (int i = 0; i < cantidad; i++) {
+            cliente.ejecutar(Operacion.CREAR, aleatorio);
+        }
+    }
+
+    private static Map<Operacion, Integer> parsearMezcla(String texto) {
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        for (String parte : texto.split(",")) {
+            String[] clavePeso = parte.trim().split(":");
+            mezcla.put(Operacion.valueOf(clavePeso[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(clavePeso[1].trim()));
+        }
+        return mezcla;
+    }
+
+    // --- Generación de carga ---
+
+    private static Resultados ejecutarFase(Cliente cliente, Map<Operacion, Integer> mezcla, double tasa,
+                                           long duracionSeg, int enVueloMaximo, long semilla) throws InterruptedException {
+        Operacion[] ruleta = construirRuleta(mezcla);
+        Resultados resultados = new Resultados();
+        Semaphore enVuelo = new Semaphore(enVueloMaximo);
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        long intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / tasa);
+        long inicio = System.nanoTime();
+        long fin = inicio + TimeUnit.SECONDS.toNanos(duracionSeg);
+
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; ; n++) {
+                long programada = inicio + n * intervalo;
+                if (programada >= fin) {
+                    break;
+                }
+                long espera = programada - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                Operacion operacion = ruleta[aleatorio.nextInt(ruleta.length)];
+                if (!enVuelo.tryAcquire()) {
+                    // El propio generador está saturado: se cuenta como operación descartada
+                    resultados.descartadas.increment();
+                    continue;
+                }
+                SplittableRandom aleatorioTarea = aleatorio.split();
+                ejecutor.execute(() -> {
+                    Desenlace desenlace;
+                    try {
+                        desenlace = cliente.ejecutar(operacion, aleatorioTarea);
+                    } catch (Exception e) {
+                        desenlace = Desenlace.ERROR;
+                    } finally {
+                        enVuelo.release();
+                    }
+                    resultados.registrar(operacion, desenlace, System.nanoTime() - programada);
+                });
+            }
+        }
+        return resultados;
+    }
+
+    private static Operacion[] construirRuleta(Map<Operacion, Integer> mezcla) {
+        List<Operacion> ruleta = new ArrayList<>();
+        mezcla.forEach((operacion, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                ruleta.add(operacion);
+            }
+        });
+        return ruleta.toArray(new Operacion[0]);
+    }
+
+    // --- Datos de prueba ---
+
+    static ReservaMesa reservaAleatoria(SplittableRandom aleatorio) {
+        ReservaMesa reserva = new ReservaMesa();
+        reserva.setFechaReserva(HOY.plusDays(aleatorio.nextInt(60)));
+        reserva.setHoraReserva(LocalTime.of(12 + aleatorio.nextInt(10), 15 * aleatorio.nextInt(4)));
+        reserva.setNumPersonas(1 + aleatorio.nextInt(10));
+        int n = aleatorio.nextInt(1_000_000);
+        reserva.setNombreCliente("Cliente " + n);
+        reserva.setEmailCliente("cliente" + n + "@ejemplo.com");
+        return reserva;
+    }
+
+    static void registrarId(int id) {
+        long posicion = IDS_REGISTRADOS.getAndIncrement();
+        IDS.set((int) (posicion & (CAPACIDAD_IDS - 1)), id);
+    }
+
+    static int idAleatorio(SplittableRandom aleatorio) {
+        long registrados = Math.min(IDS_REGISTRADOS.get(), CAPACIDAD_IDS);
+        return registrados == 0 ? 1 : IDS.get(aleatorio.nextInt((int) registrados));
+    }
+
+    private static Desenlace desenlace(int estadoHttp) {
+        if (estadoHttp >= 500) {
+            return Desenlace.ERROR;
+        }
+        // 400 sin cupo, 404 ya cancelada, 409 conflicto de versión: respuestas esperadas bajo carga
+        return estadoHttp >= 400 ? Desenlace.RECHAZO : Desenlace.EXITO;
+    }
+
+    // --- Clientes ---
+
+    /** Ejecuta las operaciones en el mismo proceso, sobre el controlador REST real. */
+    static final class ClienteEnProceso implements Cliente {
+        private final ReservaController controlador;
+
+        ClienteEnProceso() {
+            ReservaRepository repositorio = new ReservaRepository();
+            IndiceDisponibilidad indice = new IndiceDisponibilidad(repositorio, 60, 15, 120, 400);
+            indice.calentar();
+            ColaIngresoReservas cola = ColaIngresoReservas.desdePropiedadesSistema(repositorio);
+            AsignadorMesas asignador = AsignadorMesas.desdePropiedadesSistema(repositorio);
+            asignador.calentar();
+            ListaEspera listaEspera = ListaEspera.desdePropiedadesSistema();
+            listaEspera.calentar();
+            ReservaService servicio = new ReservaService(repositorio, indice, asignador, cola,
+                    FeedCambiosReservas.desdePropiedadesSistema(), listaEspera, RegistroIdempotencia.desdePropiedadesSistema(repositorio));
+            this.controlador = new ReservaController(servicio);
+        }
+
+        @Override
+        public Desenlace ejecutar(Operacion operacion, SplittableRandom aleatorio) {
+            ResponseEntity<?> respuesta;
+            switch (operacion) {
+                case CREAR: {
+                    ResponseEntity<ReservaMesa> creada = controlador.crearReserva(reservaAleatoria(aleatorio), null);
+                    if (creada.getBody() != null) {
+                        registrarId(creada.getBody().getId());
+                    }
+                    respuesta = creada;
+                    break;
+                }
+                case CONSULTAR:
+                    respuesta = controlador.obtenerPorId((long) idAleatorio(aleatorio), null);
+                    break;
+                case LISTAR:
+                    respuesta = controlador.obtenerPagina(50, null, "resumen", null);
+                    break;
+                case ACTUALIZAR: {
+                    ResponseEntity<ReservaMesa> actual = controlador.obtenerPorId((long) idAleatorio(aleatorio), null);
+                    if (actual.getBody() == null) {
+                        return Desenlace.RECHAZO;
+                    }
+                    ReservaMesa cambio = actual.getBody();
+                    cambio.setNumPersonas(1 + aleatorio.nextInt(10));
+                    respuesta = controlador.actualizarReserva((long) cambio.getId(), cambio);
+                    break;
+                }
+                case CANCELAR:
+                default:
+                    respuesta = controlador.eliminarReserva((long) idAleatorio(aleatorio));
+                    break;
+            }
+            return desenlace(respuesta.getStatusCodeValue());
+        }
+    }
+
+    /** Envía peticiones HTTP a la API REST desplegada (/api/reservas). */
+    static final class ClienteRest implements Cliente {
+        private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+        private static final Pattern VERSION = Pattern.compile("\"version\"\\s*:\\s*(\\d+)");
+
+        private final String url;
+        private final HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5)).build();
+
+        ClienteRest(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public Desenlace ejecutar(Operacion operacion, SplittableRandom aleatorio) throws Exception {
+            HttpResponse<String> respuesta;
+            switch (operacion) {
+                case CREAR:
+                    respuesta = enviar("POST", url, json(reservaAleatoria(aleatorio), 0));
+                    Matcher id = ID.matcher(respuesta.body());
+                    if (respuesta.statusCode() == 201 && id.find()) {
+                        registrarId(Integer.parseInt(id.group(1)));
+                    }
+                    break;
+                case CONSULTAR:
+                    respuesta = enviar("GET", url + "/" + idAleatorio(aleatorio), null);
+                    break;
+                case LISTAR:
+                    respuesta = enviar("GET", url + "?tamano=50", null);
+                    break;
+                case ACTUALIZAR: {
+                    int idActualizar = idAleatorio(aleatorio);
+                    HttpResponse<String> actual = enviar("GET", url + "/" + idActualizar, null);
+                    Matcher version = VERSION.matcher(actual.body());
+                    if (actual.statusCode() != 200 || !version.find()) {
+                        return desenlace(actual.statusCode());
+                    }
+                    ReservaMesa cambio = reservaAleatoria(aleatorio);
+                    respuesta = enviar("PUT", url + "/" + idActualizar, json(cambio, Integer.parseInt(version.group(1))));
+                    break;
+                }
+                case CANCELAR:
+                default:
+                    respuesta = enviar("DELETE", url + "/" + idAleatorio(aleatorio), null);
+                    break;
+            }
+            return desenlace(respuesta.statusCode());
+        }
+
+        private HttpResponse<String> enviar(String metodo, String destino, String cuerpo) throws Exception {
+            HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(destino)).timeout(Duration.ofSeconds(30));
+            if (cuerpo != null) {
+                peticion.header("Content-Type", "application/json")
+                        .method(metodo, HttpRequest.BodyPublishers.ofString(cuerpo));
+            } else {
+                peticion.method(metodo, HttpRequest.BodyPublishers.noBody());
+            }
+            return http.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        private static String json(ReservaMesa r, int version) {
+            return String.format(Locale.ROOT,
+                    "{\"fechaReserva\":\"%s\",\"horaReserva\":\"%s\",\"numPersonas\":%d,\"nombreCliente\":\"%s\",\"emailCliente\":\"%s\",\"version\":%d}",
+                    r.getFechaReserva(), r.getHoraReserva(), r.getNumPersonas(), r.getNombreCliente(), r.getEmailCliente(), version);
+        }
+    }
+
+    /** Envía peticiones HTTP a ReservaServlet desplegado (formularios y acciones por parámetro). */
+    static final class ClienteServlet implements Cliente {
+        private final String url;
+        // Sin seguir redirecciones: la respuesta del POST es el 302 del patrón Post-Redirect-Get
+        private final HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        private final int idMaximo = Integer.getInteger("carga.idMaximo", 1_000);
+
+        ClienteServlet(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public Desenlace ejecutar(Operacion operacion, SplittableRandom aleatorio) throws Exception {
+            int id = 1 + aleatorio.nextInt(idMaximo);
+            HttpResponse<Void> respuesta;
+            switch (operacion) {
+                case CREAR:
+                    respuesta = enviarFormulario("insertar", reservaAleatoria(aleatorio), 0);
+                    break;
+                case CONSULTAR:
+                    respuesta = obtener("accion=editar&id=" + id);
+                    break;
+                case LISTAR:
+                    respuesta = obtener("accion=listar");
+                    break;
+                case ACTUALIZAR:
+                    respuesta = enviarFormulario("actualizar", reservaAleatoria(aleatorio), id);
+                    break;
+                case CANCELAR:
+                default:
+                    respuesta = obtener("accion=eliminar&id=" + id);
+                    break;
+            }
+            return desenlace(respuesta.statusCode());
+        }
+
+        private HttpResponse<Void> obtener(String consulta) throws Exception {
+            HttpRequest peticion = HttpRequest.newBuilder(URI.create(url + "?" + consulta))
+                    .timeout(Duration.ofSeconds(30)).GET().build();
+            return http.send(peticion, HttpResponse.BodyHandlers.discarding());
+        }
+
+        private HttpResponse<Void> enviarFormulario(String accion, ReservaMesa r, int id) throws Exception {
+            String formulario = "accion=" + accion
+                    + (id > 0 ? "&id=" + id : "")
+                    + "&nombreCliente=" + URLEncoder.encode(r.getNombreCliente(), StandardCharsets.UTF_8)
+                    + "&emailCliente=" + URLEncoder.encode(r.getEmailCliente(), StandardCharsets.UTF_8)
+                    + "&fechaReserva=" + r.getFechaReserva()
+                    + "&horaReserva=" + r.getHoraReserva()
+                    + "&numPersonas=" + r.getNumPersonas()
+                    + "&estado=Pendiente";
+            HttpRequest peticion = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(formulario)).build();
+            return http.send(peticion, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    // --- Resultados ---
+
+    /** Latencias y desenlaces por operación. */
+    static final class Resultados {
+        private final Map<Operacion, HistogramaLatencia> latencias = new EnumMap<>(Operacion.class);
+        private final Map<Operacion, LongAdder> rechazos = new EnumMap<>(Operacion.class);
+        private final Map<Operacion, LongAdder> errores = new EnumMap<>(Operacion.class);
+        private final LongAdder descartadas = new LongAdder();
+
+        Resultados() {
+            for (Operacion operacion : Operacion.values()) {
+                latencias.put(operacion, new HistogramaLatencia());
+                rechazos.put(operacion, new LongAdder());
+                errores.put(operacion, new LongAdder());
+            }
+        }
+
+        void registrar(Operacion operacion, Desenlace desenlace, long nanos) {
+            latencias.get(operacion).registrar(nanos);
+            if (desenlace == Desenlace.RECHAZO) {
+                rechazos.get(operacion).increment();
+            } else if (desenlace == Desenlace.ERROR) {
+                errores.get(operacion).increment();
+            }
+        }
+
+        void imprimir(long duracionSeg) {
+            System.out.printf(Locale.ROOT, "%-11s %9s %9s %8s %8s %10s %10s %10s %10s%n",
+                    "operacion", "total", "ops/s", "rechazos", "errores", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            long total = 0;
+            for (Operacion operacion : Operacion.values()) {
+                HistogramaLatencia h = latencias.get(operacion);
+                total += h.getTotal();
+                System.out.printf(Locale.ROOT, "%-11s %9d %9.1f %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                        operacion.name().toLowerCase(Locale.ROOT), h.getTotal(), (double) h.getTotal() / duracionSeg,
+                        rechazos.get(operacion).sum(), errores.get(operacion).sum(),
+                        h.percentil(50) / 1e6, h.percentil(99) / 1e6, h.percentil(99.9) / 1e6, h.getMaximoNanos() / 1e6);
+            }
+            System.out.printf(Locale.ROOT, "Total: %d operaciones (%.1f ops/s), %d descartadas por el generador%n",
+                    total, (double) total / duracionSeg, descartadas.sum());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.casacaribe.reservas.repository;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Repositorio en memoria para benchmarks: reproduce el contrato de ReservaRepository sin base de datos,
+ * de modo que las mediciones del servicio reflejen solo la lógica de negocio.
+ */
+public class ReservaRepositoryMemoria extends ReservaRepository {
+
+    private final Map<Integer, ReservaMesa> reservas = new ConcurrentHashMap<>();
+    private final AtomicInteger secuencia = new AtomicInteger();
+
+    @Override
+    public int crearReserva(ReservaMesa reserva) {
+        int id = secuencia.incrementAndGet();
+        reserva.setId(id);
+        reservas.put(id, new ReservaMesa(reserva));
+        return id;
+    }
+
+    @Override
+    public int[] crearReservasLote(List<ReservaMesa> lote, boolean atomico) {
+        int[] ids = new int[lote.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = crearReserva(lote.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<ReservaMesa> consultarTodas() {
+        List<ReservaMesa> todas = new ArrayList<>(reservas.values());
+        todas.sort(Comparator.comparing(ReservaMesa::getFechaReserva).thenComparing(ReservaMesa::getHoraReserva));
+        return todas;
+    }
+
+    @Override
+    public List<ReservaMesa> consultarTodas(ProyeccionReserva proyeccion) {
+        return consultarTodas();
+    }
+
+    @Override
+    public long recorrerTodas(ProcesadorFila<ReservaMesa> procesador, ProyeccionReserva proyeccion) throws IOException {
+        return recorrerTodas(procesador);
+    }
+
+    @Override
+    public long recorrerTodas(ProcesadorFila<ReservaMesa> procesador) throws IOException {
+        long procesadas = 0;
+        for (ReservaMesa reserva : consultarTodas()) {
+            procesador.procesar(reserva);
+            procesadas++;
+        }
+        return procesadas;
+    }
+
+    @Override
+    public long recorrerDesde(LocalDate desde, ProcesadorFila<ReservaMesa> procesador, ProyeccionReserva proyeccion) throws IOException {
+        long procesadas = 0;
+        for (ReservaMesa reserva : consultarTodas()) {
+            if (!reserva.getFechaReserva().isBefore(desde)) {
+                procesador.procesar(reserva);
+                procesadas++;
+            }
+        }
+        return procesadas;
+    }
+
+    @Override
+    public List<ReservaMesa> consultarPorFecha(LocalDate fecha, ProyeccionReserva proyeccion) {
+        List<ReservaMesa> delDia = new ArrayList<>();
+        for (ReservaMesa reserva : consultarTodas()) {
+            if (reserva.getFechaReserva().equals(fecha)) {
+                delDia.add(reserva);
+            }
+        }
+        return delDia;
+    }
+
+    @Override
+    public Optional<ReservaMesa> consultarPorId(int id) {
+        ReservaMesa reserva = reservas.get(id);
+        return reserva == null ? Optional.empty() : Optional.of(new ReservaMesa(reserva));
+    }
+
+    @Override
+    public ResultadoActualizacion actualizarReserva(ReservaMesa reserva, BiConsumer<ReservaMesa, ReservaMesa> antesDeConfirmar) {
+        ReservaMesa[] resultado = new ReservaMesa[2];
+        reservas.computeIfPresent(reserva.getId(), (id, anterior) -> {
+            if (anterior.getVersion() != reserva.getVersion()) {
+                return anterior;
+            }
+            ReservaMesa nueva = new ReservaMesa(anterior);
+            nueva.setFechaReserva(reserva.getFechaReserva());
+            nueva.setHoraReserva(reserva.getHoraReserva());
+            nueva.setNumPersonas(reserva.getNumPersonas());
+            if (reserva.getNombreCliente() != null) {
+                nueva.setNombreCliente(reserva.getNombreCliente());
+            }
+            if (reserva.getEmailCliente() != null) {
+                nueva.setEmailCliente(reserva.getEmailCliente());
+            }
+            if (reserva.getEstado() != null) {
+                nueva.setEstado(reserva.getEstado());
+            }
+            nueva.setVersion(anterior.getVersion() + 1);
+            if (antesDeConfirmar != null) {
+                antesDeConfirmar.accept(anterior, nueva);
+            }
+            resultado[0] = nueva;
+            resultado[1] = anterior;
+            return nueva;
+        });
+        if (resultado[0] != null) {
+            return ResultadoActualizacion.actualizada(new ReservaMesa(resultado[0]), resultado[1]);
+        }
+        return consultarPorId(reserva.getId())
+                .map(ResultadoActualizacion::conflicto)
+                .orElseGet(ResultadoActualizacion::noEncontrada);
+    }
+
+    @Override
+    public boolean eliminarReserva(int id) {
+        return reservas.remove(id) != null;
+    }
+
+    @Override
+    public Optional<ReservaMesa> eliminarYObtener(int id) {
+        return Optional.ofNullable(reservas.remove(id));
+    }
+
+    public int getTamano() {
+        return reservas.size();
+    }
+}
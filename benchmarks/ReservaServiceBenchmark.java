@@ -0,0 +1,90 @@
+package com.casacaribe.reservas.service;
+
+import com.casacaribe.reservas.modelo.ReservaMesa;
+import com.casacaribe.reservas.repository.ReservaRepositoryMemoria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la lógica de creación y actualización de ReservaService (validación, índice de disponibilidad,
+ * caché) contra un repositorio en memoria, aislando el costo de la base de datos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ReservaServiceBenchmark {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    private ReservaRepositoryMemoria repositorio;
+    private ColaIngresoReservas cola;
+    private ListaEspera listaEspera;
+    private RegistroIdempotencia registroIdempotencia;
+    private ReservaService servicio;
+    private ReservaMesa existente;
+    private int contador;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        repositorio = new ReservaRepositoryMemoria();
+        // Capacidad prácticamente ilimitada: se mide el costo del índice, no el rechazo por cupo
+        IndiceDisponibilidad indice = new IndiceDisponibilidad(repositorio, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2, 120, 400);
+        // Sin plano de mesas: el asignador se mide aparte en AsignadorMesasBenchmark
+        AsignadorMesas asignador = new AsignadorMesas(repositorio, false, "M1:2", "", "2:90", 400);
+        cola = new ColaIngresoReservas(repositorio, false, 1, 1, 0, 0);
+        // Lista de espera vacía: las bajas no encuentran a quién ofrecer el hueco
+        listaEspera = ListaEspera.desdePropiedadesSistema();
+        // Las altas del benchmark no llevan clave de idempotencia: el registro no se usa
+        registroIdempotencia = RegistroIdempotencia.desdePropiedadesSistema(repositorio);
+        servicio = new ReservaService(repositorio, indice, asignador, cola, FeedCambiosReservas.desdePropiedadesSistema(),
+                listaEspera, registroIdempotencia);
+        existente = servicio.crearReserva(nuevaReserva(0));
+    }
+
+    @TearDown(Level.Iteration)
+    public void liberar() {
+        cola.detener();
+        listaEspera.detener();
+        registroIdempotencia.detener();
+    }
+
+    @Benchmark
+    public ReservaMesa crearReserva() {
+        return servicio.crearReserva(nuevaReserva(contador++));
+    }
+
+    @Benchmark
+    public ReservaMesa actualizarReserva() {
+        ReservaMesa cambio = new ReservaMesa(existente);
+        cambio.setNumPersonas(1 + (contador++ & 7));
+        existente = servicio.actualizarReserva((long) existente.getId(), cambio);
+        return existente;
+    }
+
+    private static ReservaMesa nuevaReserva(int n) {
+        ReservaMesa reserva = new ReservaMesa();
+        reserva.setFechaReserva(HOY.plusDays(n % 300));
+        reserva.setHoraReserva(LocalTime.of(12 + (n % 10), (n % 4) * 15));
+        reserva.setNumPersonas(1 + (n % 10));
+        reserva.setNombreCliente("Cliente " + n);
+        reserva.setEmailCliente("cliente" + n + "@ejemplo.com");
+        return reserva;
+    }
+}
@@ -0,0 +1,100 @@
+package com.casacaribe.reservas.repository;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * ResultSet simulado para medir el mapeo de filas sin base de datos.
+ * Entrega siempre la misma fila de la tabla reservas; el costo del proxy es constante,
+ * por lo que las comparaciones entre variantes de mapeo siguen siendo válidas.
+ */
+final class ResultSetSimulado {
+
+    private static final Date FECHA = Date.valueOf(LocalDate.of(2025, 12, 10));
+    private static final Time HORA = Time.valueOf(LocalTime.of(19, 30));
+    // Mismo orden de columnas que ProyeccionReserva.COMPLETA
+    private static final String[] COLUMNAS = {"id", "fecha_reserva", "hora_reserva", "num_personas",
+            "nombre_cliente", "email_cliente", "estado", "version"};
+    private static final ResultSetMetaData METADATOS = (ResultSetMetaData) Proxy.newProxyInstance(
+            ResultSetMetaData.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return COLUMNAS.length;
+                    case "getColumnLabel":
+                    case "getColumnName":
+                        return COLUMNAS[(Integer) args[0] - 1];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    private ResultSetSimulado() {
+    }
+
+    /**
+     * @param filas Número de filas que entregará next() antes de retornar false.
+     * @return Un ResultSet de solo lectura con filas idénticas.
+     */
+    static ResultSet crear(int filas) {
+        int[] actual = {0};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return actual[0]++ < filas;
+                        case "getInt":
+                            return valorEntero(args[0]);
+                        case "getString":
+                            return valorTexto(args[0]);
+                        case "getDate":
+                            return FECHA;
+                        case "getTime":
+                            return HORA;
+                        case "getObject":
+                            return valorObjeto(args[0], args.length > 1 ? (Class<?>) args[1] : null);
+                        case "getMetaData":
+                            return METADATOS;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static int valorEntero(Object columna) {
+        if ("num_personas".equals(columna) || Integer.valueOf(4).equals(columna)) {
+            return 4;
+        }
+        if ("version".equals(columna) || Integer.valueOf(8).equals(columna)) {
+            return 0;
+        }
+        return 42;
+    }
+
+    private static String valorTexto(Object columna) {
+        if ("email_cliente".equals(columna) || Integer.valueOf(6).equals(columna)) {
+            return "sofia.gomez@ejemplo.com";
+        }
+        if ("estado".equals(columna) || Integer.valueOf(7).equals(columna)) {
+            return "Pendiente";
+        }
+        return "Sofía Gómez";
+    }
+
+    private static Object valorObjeto(Object columna, Class<?> tipo) {
+        if (tipo == LocalDate.class) {
+            return FECHA.toLocalDate();
+        }
+        if (tipo == LocalTime.class) {
+            return HORA.toLocalTime();
+        }
+        return null;
+    }
+}
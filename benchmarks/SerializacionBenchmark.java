@@ -0,0 +1,61 @@
+package com.casacaribe.reservas.modelo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la serialización JSON de listas de ReservaMesa con la misma configuración de fechas que la API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int reservas;
+
+    private ObjectWriter escritor;
+    private List<ReservaMesa> lista;
+
+    @Setup
+    public void preparar() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        escritor = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ReservaMesa.class));
+        lista = new ArrayList<>(reservas);
+        LocalDate fecha = LocalDate.of(2025, 12, 10);
+        for (int i = 0; i < reservas; i++) {
+            lista.add(new ReservaMesa(i + 1, fecha.plusDays(i % 60), LocalTime.of(12 + (i % 10), 30), 1 + (i % 10),
+                    "Cliente " + i, "cliente" + i + "@ejemplo.com", "Pendiente"));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return escritor.writeValueAsBytes(lista);
+    }
+}
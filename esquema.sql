@@ -0,0 +1,278 @@
+-- Proyecto: Casa Caribe - Sistema de Reservas
+-- Archivo: esquema.sql
+-- Descripción: Esquema PostgreSQL de la tabla de reservas utilizada por ReservaRepository.
+
+-- Particionada por mes de fecha_reserva (reservas_AAAA_MM, más reservas_otras para las fechas sin
+-- partición): las consultas por fecha solo leen los meses afectados, y los meses pasados se trasladan
+-- enteros a reservas_archivo (ver archivar_reservas). La clave primaria incluye la columna de partición.
+--
+-- Costes de particionar:
+-- * PostgreSQL no admite una clave única que no contenga fecha_reserva, así que la base de datos solo
+--   garantiza que (id, fecha_reserva) no se repita. La unicidad del ID la da la secuencia reservas_id_seq
+--   (GeneradorIdsHiLo): ninguna ruta de la aplicación escribe un ID explícito. Quien inserte filas a mano
+--   debe tomar el ID de esa secuencia.
+-- * Una búsqueda solo por ID (findById, actualizar, eliminar) no puede descartar particiones y consulta el
+--   índice de cada una. Por eso el número de particiones adjuntas se mantiene acotado: los meses anteriores
+--   al horizonte (casacaribe.archivo.horizonteDias) se archivan cada día y por delante solo se crean
+--   casacaribe.archivo.mesesAdelantados meses (máximo 24), unas 17 particiones con la configuración por defecto.
+CREATE TABLE IF NOT EXISTS reservas (
+    id              SERIAL,
+    fecha_reserva   DATE         NOT NULL,
+    hora_reserva    TIME         NOT NULL,
+    num_personas    INTEGER      NOT NULL,
+    nombre_cliente  VARCHAR(100) NOT NULL,
+    email_cliente   VARCHAR(150),
+    estado          VARCHAR(20)  NOT NULL DEFAULT 'Pendiente',
+    PRIMARY KEY (id, fecha_reserva)
+) PARTITION BY RANGE (fecha_reserva);
+
+-- Crea la partición de un mes si no existe. Las filas de ese mes que hubieran caído en reservas_otras
+-- se trasladan a la nueva partición antes de adjuntarla (sin pasar por los disparadores de reservas).
+CREATE OR REPLACE FUNCTION crear_particion_reservas(mes DATE) RETURNS boolean LANGUAGE plpgsql AS $$
+DECLARE
+    desde  DATE := date_trunc('month', mes)::date;
+    hasta  DATE := (date_trunc('month', mes) + interval '1 month')::date;
+    nombre TEXT := 'reservas_' || to_char(mes, 'YYYY_MM');
+BEGIN
+    IF to_regclass(nombre) IS NOT NULL OR to_regclass('reservas_archivo_' || to_char(mes, 'YYYY_MM')) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE reservas INCLUDING DEFAULTS)', nombre);
+    IF to_regclass('reservas_otras') IS NOT NULL THEN
+        EXECUTE format('WITH movidas AS (DELETE FROM reservas_otras WHERE fecha_reserva >= %L AND fecha_reserva < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM movidas', desde, hasta, nombre);
+    END IF;
+    EXECUTE format('ALTER TABLE reservas ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nombre, desde, hasta);
+    RETURN true;
+END $$;
+
+-- Crea las particiones que falten desde el mes indicado: devuelve cuántas se crearon
+CREATE OR REPLACE FUNCTION crear_particiones_reservas(desde DATE, meses INTEGER) RETURNS integer LANGUAGE plpgsql AS $$
+DECLARE
+    creadas INTEGER := 0;
+BEGIN
+    FOR i IN 0 .. meses - 1 LOOP
+        IF crear_particion_reservas((date_trunc('month', desde) + make_interval(months => i))::date) THEN
+            creadas := creadas + 1;
+        END IF;
+    END LOOP;
+    RETURN creadas;
+END $$;
+
+-- Migración de una tabla reservas sin particionar: se copia a la tabla particionada, con una partición
+-- por cada mes con reservas. Los índices y disparadores se crean más abajo sobre la tabla nueva.
+-- Con mucho historial quedan temporalmente muchas particiones: el primer mantenimiento de
+-- ArchivadorReservas traslada a reservas_archivo los meses anteriores al horizonte.
+DO $$
+DECLARE
+    mes DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('reservas')) = 'r' THEN
+        ALTER TABLE reservas RENAME TO reservas_sin_particionar;
+        CREATE TABLE reservas (LIKE reservas_sin_particionar INCLUDING DEFAULTS) PARTITION BY RANGE (fecha_reserva);
+        ALTER SEQUENCE reservas_id_seq OWNED BY reservas.id;
+        CREATE TABLE reservas_otras PARTITION OF reservas DEFAULT;
+        FOR mes IN SELECT DISTINCT date_trunc('month', fecha_reserva)::date FROM reservas_sin_particionar LOOP
+            PERFORM crear_particion_reservas(mes);
+        END LOOP;
+        INSERT INTO reservas SELECT * FROM reservas_sin_particionar;
+        DROP TABLE reservas_sin_particionar;
+        ALTER TABLE reservas ADD PRIMARY KEY (id, fecha_reserva);
+    END IF;
+END $$;
+
+CREATE TABLE IF NOT EXISTS reservas_otras PARTITION OF reservas DEFAULT;
+-- El mes actual y los doce siguientes; ArchivadorReservas mantiene después la ventana
+SELECT crear_particiones_reservas(current_date, 13);
+
+-- Índice para el listado ordenado y la paginación por clave (fecha, hora, id)
+CREATE INDEX IF NOT EXISTS idx_reservas_fecha_hora_id ON reservas (fecha_reserva, hora_reserva, id);
+
+-- Control de concurrencia optimista: cada actualización incrementa la versión
+ALTER TABLE reservas ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+
+-- IDs por bloques (hi-lo): cada nextval() reserva 50 IDs que la aplicación reparte en memoria.
+-- El DEFAULT de la columna sigue siendo válido: consume un bloque completo y usa su primer ID.
+ALTER SEQUENCE reservas_id_seq INCREMENT BY 50;
+
+-- Estado tipado: enum de PostgreSQL (4 bytes por fila) en lugar de VARCHAR libre
+DO $$ BEGIN
+    CREATE TYPE estado_reserva AS ENUM ('Pendiente', 'Confirmada', 'Cancelada');
+EXCEPTION WHEN duplicate_object THEN NULL;
+END $$;
+
+-- Permite que los clientes que envían el estado como texto sigan pudiendo insertarlo y actualizarlo
+DO $$ BEGIN
+    CREATE CAST (varchar AS estado_reserva) WITH INOUT AS ASSIGNMENT;
+EXCEPTION WHEN duplicate_object THEN NULL;
+END $$;
+
+-- Migración de la columna: se normalizan mayúsculas y los valores desconocidos pasan a 'Pendiente'
+DO $$ BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = 'reservas' AND column_name = 'estado') <> 'USER-DEFINED' THEN
+        UPDATE reservas SET estado = initcap(estado) WHERE initcap(estado) IN ('Pendiente', 'Confirmada', 'Cancelada');
+        UPDATE reservas SET estado = 'Pendiente' WHERE estado NOT IN ('Pendiente', 'Confirmada', 'Cancelada');
+        ALTER TABLE reservas ALTER COLUMN estado DROP DEFAULT;
+        ALTER TABLE reservas ALTER COLUMN estado TYPE estado_reserva USING estado::estado_reserva;
+        ALTER TABLE reservas ALTER COLUMN estado SET DEFAULT 'Pendiente';
+    END IF;
+END $$;
+
+-- Consultas por estado ("pendientes de esta noche"): estado, fecha y hora en el índice
+CREATE INDEX IF NOT EXISTS idx_reservas_estado_fecha_hora ON reservas (estado, fecha_reserva, hora_reserva, id);
+
+-- Ocupación por franja (fecha y hora): reservas y comensales que no están canceladas.
+-- Se mantiene en la misma transacción que cada escritura sobre reservas y puede reconstruirse
+-- con ReservaRepository.reconstruirOcupacion().
+CREATE TABLE IF NOT EXISTS ocupacion_franjas (
+    fecha_reserva   DATE    NOT NULL,
+    hora_reserva    TIME    NOT NULL,
+    reservas        INTEGER NOT NULL DEFAULT 0,
+    comensales      INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (fecha_reserva, hora_reserva)
+);
+
+-- Disparadores por sentencia (no por fila): los lotes y las importaciones aplican una sola
+-- actualización por franja afectada. Las franjas se bloquean en orden de clave para que dos
+-- traslados cruzados (A→B y B→A) no se interbloqueen.
+CREATE OR REPLACE FUNCTION ajustar_ocupacion() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO ocupacion_franjas AS o (fecha_reserva, hora_reserva, reservas, comensales)
+        SELECT fecha_reserva, hora_reserva, count(*), sum(num_personas)
+        FROM nuevas WHERE estado <> 'Cancelada'
+        GROUP BY fecha_reserva, hora_reserva ORDER BY fecha_reserva, hora_reserva
+        ON CONFLICT (fecha_reserva, hora_reserva) DO UPDATE
+            SET reservas = o.reservas + EXCLUDED.reservas, comensales = o.comensales + EXCLUDED.comensales;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO ocupacion_franjas AS o (fecha_reserva, hora_reserva, reservas, comensales)
+        SELECT fecha_reserva, hora_reserva, -count(*), -sum(num_personas)
+        FROM anteriores WHERE estado <> 'Cancelada'
+        GROUP BY fecha_reserva, hora_reserva ORDER BY fecha_reserva, hora_reserva
+        ON CONFLICT (fecha_reserva, hora_reserva) DO UPDATE
+            SET reservas = o.reservas + EXCLUDED.reservas, comensales = o.comensales + EXCLUDED.comensales;
+    ELSE
+        -- Las filas cuyo cambio no afecta a la ocupación (p. ej. solo el nombre) se anulan y no bloquean nada
+        INSERT INTO ocupacion_franjas AS o (fecha_reserva, hora_reserva, reservas, comensales)
+        SELECT fecha_reserva, hora_reserva, sum(reservas), sum(comensales)
+        FROM (SELECT fecha_reserva, hora_reserva, 1 AS reservas, num_personas AS comensales
+              FROM nuevas WHERE estado <> 'Cancelada'
+              UNION ALL
+              SELECT fecha_reserva, hora_reserva, -1, -num_personas
+              FROM anteriores WHERE estado <> 'Cancelada') cambios
+        GROUP BY fecha_reserva, hora_reserva
+        HAVING sum(reservas) <> 0 OR sum(comensales) <> 0
+        ORDER BY fecha_reserva, hora_reserva
+        ON CONFLICT (fecha_reserva, hora_reserva) DO UPDATE
+            SET reservas = o.reservas + EXCLUDED.reservas, comensales = o.comensales + EXCLUDED.comensales;
+    END IF;
+    RETURN NULL;
+END $$;
+
+DROP TRIGGER IF EXISTS trg_ocupacion_insertar ON reservas;
+CREATE TRIGGER trg_ocupacion_insertar AFTER INSERT ON reservas
+    REFERENCING NEW TABLE AS nuevas FOR EACH STATEMENT EXECUTE FUNCTION ajustar_ocupacion();
+DROP TRIGGER IF EXISTS trg_ocupacion_actualizar ON reservas;
+CREATE TRIGGER trg_ocupacion_actualizar AFTER UPDATE ON reservas
+    REFERENCING OLD TABLE AS anteriores NEW TABLE AS nuevas FOR EACH STATEMENT EXECUTE FUNCTION ajustar_ocupacion();
+DROP TRIGGER IF EXISTS trg_ocupacion_eliminar ON reservas;
+CREATE TRIGGER trg_ocupacion_eliminar AFTER DELETE ON reservas
+    REFERENCING OLD TABLE AS anteriores FOR EACH STATEMENT EXECUTE FUNCTION ajustar_ocupacion();
+
+-- Carga inicial del resumen cuando la tabla se acaba de crear sobre datos existentes
+INSERT INTO ocupacion_franjas (fecha_reserva, hora_reserva, reservas, comensales)
+SELECT fecha_reserva, hora_reserva, count(*), sum(num_personas)
+FROM reservas WHERE estado <> 'Cancelada' AND NOT EXISTS (SELECT 1 FROM ocupacion_franjas)
+GROUP BY fecha_reserva, hora_reserva;
+
+-- Archivo de reservas pasadas: mismas columnas que reservas, particionado igual (reservas_archivo_AAAA_MM).
+-- Las consultas de la aplicación no lo leen; ocupacion_franjas conserva el resumen de los días archivados.
+-- Una columna nueva en reservas debe añadirse también aquí.
+CREATE TABLE IF NOT EXISTS reservas_archivo (LIKE reservas) PARTITION BY RANGE (fecha_reserva);
+
+DO $$ BEGIN
+    ALTER TABLE reservas_archivo ADD PRIMARY KEY (id, fecha_reserva);
+EXCEPTION WHEN invalid_table_definition THEN NULL;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_reservas_archivo_fecha_hora_id ON reservas_archivo (fecha_reserva, hora_reserva, id);
+
+-- Archiva las reservas anteriores a la fecha límite y devuelve cuántas se archivaron.
+-- Cada mes completo anterior al límite se separa de reservas y se adjunta a reservas_archivo sin copiar
+-- filas; las de reservas_otras se copian. Ninguna de las dos cosas pasa por los disparadores de ocupación.
+-- DETACH bloquea reservas en exclusiva hasta el final de la transacción: conviene ejecutarla con
+-- lock_timeout y en horas de poco tráfico (ver ArchivadorReservas).
+CREATE OR REPLACE FUNCTION archivar_reservas(limite DATE) RETURNS bigint LANGUAGE plpgsql AS $$
+DECLARE
+    particion TEXT;
+    archivo   TEXT;
+    mes       DATE;
+    filas     BIGINT;
+    total     BIGINT := 0;
+BEGIN
+    FOR mes IN SELECT DISTINCT date_trunc('month', fecha_reserva)::date FROM reservas_otras WHERE fecha_reserva < limite LOOP
+        archivo := 'reservas_archivo_' || to_char(mes, 'YYYY_MM');
+        IF to_regclass(archivo) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF reservas_archivo FOR VALUES FROM (%L) TO (%L)',
+                           archivo, mes, (mes + interval '1 month')::date);
+        END IF;
+    END LOOP;
+    WITH movidas AS (DELETE FROM reservas_otras WHERE fecha_reserva < limite RETURNING *)
+    INSERT INTO reservas_archivo SELECT * FROM movidas;
+    GET DIAGNOSTICS total = ROW_COUNT;
+
+    -- Los nombres AAAA_MM ordenan por mes: se para en el primero que no termina antes del límite
+    FOR particion IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                     WHERE i.inhparent = 'reservas'::regclass AND c.relname ~ '^reservas_[0-9]{4}_[0-9]{2}$'
+                     ORDER BY c.relname LOOP
+        mes := to_date(substr(particion, 10), 'YYYY_MM');
+        EXIT WHEN (mes + interval '1 month')::date > limite;
+        archivo := 'reservas_archivo_' || to_char(mes, 'YYYY_MM');
+        EXECUTE format('SELECT count(*) FROM %I', particion) INTO filas;
+        EXECUTE format('ALTER TABLE reservas DETACH PARTITION %I', particion);
+        IF to_regclass(archivo) IS NULL THEN
+            EXECUTE format('ALTER TABLE %I RENAME TO %I', particion, archivo);
+            EXECUTE format('ALTER TABLE reservas_archivo ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           archivo, mes, (mes + interval '1 month')::date);
+        ELSE
+            EXECUTE format('INSERT INTO %I SELECT * FROM %I', archivo, particion);
+            EXECUTE format('DROP TABLE %I', particion);
+        END IF;
+        total := total + filas;
+    END LOOP;
+    RETURN total;
+END $$;
+
+-- Lista de espera: clientes que aceptan cualquier hora de una ventana si se libera una mesa.
+-- Las colas de prioridad se mantienen en memoria (ListaEspera) y se cargan desde aquí al arrancar.
+CREATE TABLE IF NOT EXISTS lista_espera (
+    id               SERIAL PRIMARY KEY,
+    fecha_reserva    DATE         NOT NULL,
+    hora_desde       TIME         NOT NULL,
+    hora_hasta       TIME         NOT NULL,
+    num_personas     INTEGER      NOT NULL,
+    nombre_cliente   VARCHAR(100) NOT NULL,
+    email_cliente    VARCHAR(150),
+    estado           VARCHAR(20)  NOT NULL DEFAULT 'Esperando'
+                     CHECK (estado IN ('Esperando', 'Ofrecida', 'Aceptada', 'Retirada', 'Vencida')),
+    creada_en        TIMESTAMP    NOT NULL DEFAULT now(),
+    hora_ofrecida    TIME,
+    oferta_vence_en  TIMESTAMP,
+    reserva_id       INTEGER,
+    CHECK (hora_desde <= hora_hasta)
+);
+
+CREATE INDEX IF NOT EXISTS idx_lista_espera_fecha ON lista_espera (fecha_reserva, hora_desde);
+
+-- Claves de idempotencia de las altas (cabecera Idempotency-Key o token del formulario).
+-- La clave se reclama antes de crear la reserva: un reintento, aunque llegue a otra instancia,
+-- encuentra la clave y recibe la reserva original en lugar de crear otra.
+CREATE TABLE IF NOT EXISTS claves_idempotencia (
+    clave       VARCHAR(128) PRIMARY KEY,
+    huella      VARCHAR(64)  NOT NULL,   -- resumen de los datos enviados con la clave
+    reserva_id  INTEGER,                 -- NULL mientras el alta está en curso
+    creada_en   TIMESTAMP    NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_claves_idempotencia_creada ON claves_idempotencia (creada_en);
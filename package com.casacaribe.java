@@ -63,7 +63,7 @@ public class MainDemo {
             reservaActualizar.setNumPersonas(6);
             reservaActualizar.setEstado("Confirmada"); 
             
-            boolean exitoActualizacion = reservaRepository.actualizarReserva(reservaActualizar);
+            boolean exitoActualizacion = reservaRepository.actualizarReserva(reservaActualizar).isActualizada();
 
             if (exitoActualizacion) {
                 System.out.println("Reserva ID " + nuevoId + " actualizada. Nuevo estado: " + reservaActualizar.getEstado());
@@ -93,4 +93,4 @@ public class MainDemo {
         
         System.out.println("\n--- DEMOSTRACIÓN FINALIZADA ---");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,6 +4,9 @@ package com.casacaribe.reservas.modelo;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+import com.casacaribe.reservas.util.GeneradorIds;
+import com.casacaribe.reservas.util.GeneradorIdsHiLo;
+
 /**
  * Clase Modelo (Java Bean) para representar una Reserva del restaurante.
  * Contiene los atributos de la entidad, con getters y setters.
@@ -16,9 +19,10 @@ public class Reserva {
     private LocalTime horaReserva;
     private int numPersonas;
     private String estado; // Pendiente, Confirmada, Cancelada
+    private int version; // Concurrencia optimista: el formulario de edición la devuelve en un campo oculto
 
-    // Contador estático para simular IDs autoincrementables
-    private static int nextId = 1;
+    // Origen de los IDs de reservas nuevas: bloques de la secuencia reservas_id_seq, seguro entre hilos y nodos
+    private static volatile GeneradorIds generadorIds = GeneradorIdsHiLo.reservas();
 
     // Constructor vacío (necesario para Servlets/JSP)
     public Reserva() {
@@ -26,7 +30,7 @@ public class Reserva {
 
     // Constructor para crear nuevas reservas
     public Reserva(String nombreCliente, String emailCliente, LocalDate fechaReserva, LocalTime horaReserva, int numPersonas, String estado) {
-        this.id = nextId++;
+        this.id = generadorIds.siguienteId();
         this.nombreCliente = nombreCliente;
         this.emailCliente = emailCliente;
         this.fechaReserva = fechaReserva;
@@ -35,6 +39,13 @@ public class Reserva {
         this.estado = estado;
     }
     
+    /**
+     * Reemplaza el generador de IDs usado por el constructor de reservas nuevas (p. ej. sin base de datos).
+     */
+    public static void setGeneradorIds(GeneradorIds generador) {
+        generadorIds = generador;
+    }
+
     // Getters y Setters
     public int getId() {
         return id;
@@ -91,4 +102,12 @@ public class Reserva {
     public void setEstado(String estado) {
         this.estado = estado;
     }
-}
\ No newline at end of file
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+}
\ No newline at end of file